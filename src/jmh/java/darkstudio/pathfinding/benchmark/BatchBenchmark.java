@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.FinderPool;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.PathQuery;
+import darkstudio.pathfinding.model.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure how {@link FinderPool#findPaths(List, Grid, ForkJoinPool)} scales with the number of worker threads on a burst
+ * of queries against the same map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    @Param({"combat.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Grid grid;
+    private List<PathQuery> queries;
+    private FinderPool finderPool;
+    private ForkJoinPool forkJoinPool;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        grid = new Grid(matrix);
+        queries = new ArrayList<>();
+        Point[] pairs = MapFiles.randomPairs(matrix, 500, 42);
+        for (int i = 0; i < pairs.length; i += 2) {
+            queries.add(new PathQuery(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y));
+        }
+        finderPool = new FinderPool(DiagonalMovement.Always, new Options());
+        forkJoinPool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public List<List<Point>> findPaths() {
+        return finderPool.findPaths(queries, grid, forkJoinPool);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.BiJPSFinder;
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link BiJPSFinder} with the forward-only finder on the same pairs of nodes. With {@code query} "pocket",
+ * every end node is walled into a 3x3 pocket before the queries, so that they all fail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BidirectionalBenchmark {
+    @Param({"arena.map", "combat.map", "isound1.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    @Param({"random", "pocket"})
+    public String query;
+
+    private Point[] pairs;
+    private JumpPointFinderBase jps;
+    private JumpPointFinderBase biJps;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        pairs = MapFiles.randomPairs(matrix, 50, 42);
+        if ("pocket".equals(query)) {
+            enclose(matrix, pairs);
+        }
+        Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                ? Heuristic::manhattan : Heuristic::octile);
+        jps = Util.jumpPointFinder(diagonalMovement, options);
+        biJps = new BiJPSFinder(diagonalMovement, options);
+        context = new SearchContext(new Grid(matrix));
+    }
+
+    @Benchmark
+    public void jps(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(jps.findCompactPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    @Benchmark
+    public void biJps(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(biJps.findCompactPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    /**
+     * Wall every end node into a pocket of 3x3 nodes, and move the start nodes out of the walls and pockets.
+     */
+    private static void enclose(int[][] matrix, Point[] pairs) {
+        int height = matrix.length;
+        int width = matrix[0].length;
+        boolean[][] pocket = new boolean[height][width];
+        for (int i = 1; i < pairs.length; i += 2) {
+            Point end = pairs[i];
+            for (int y = end.y - 2; y <= end.y + 2; y++) {
+                for (int x = end.x - 2; x <= end.x + 2; x++) {
+                    if (x < 0 || y < 0 || x >= width || y >= height) {
+                        continue;
+                    }
+                    pocket[y][x] = true;
+                    if (Math.max(Math.abs(x - end.x), Math.abs(y - end.y)) == 2) {
+                        matrix[y][x] = 1;
+                    }
+                }
+            }
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < pairs.length; i += 2) {
+            while (matrix[pairs[i].y][pairs[i].x] != 0 || pocket[pairs[i].y][pairs[i].x]) {
+                pairs[i] = new Point(random.nextInt(width), random.nextInt(height));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.Heuristic.HeuristicMethod;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The baseline of {@link JumpPointFinderBase#findPath(int, int, int, int, SearchContext)}: one query per invocation,
+ * cycling through fixed pseudo-random pairs of the map, for every finder and heuristic. The sample time mode reports
+ * the latency percentiles of single queries, and the gc profiler configured in build.gradle their allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindPathBenchmark {
+    @Param({"arena.map", "combat.map", "isound1.map", "AR0011SR.map"})
+    public String map;
+
+    // IfAtMostOneObstacle and OnlyWhenNoObstacles are left out, as they are served by the same finder as Always.
+    @Param({"Always", "Never", "TeleportNever"})
+    public DiagonalMovement diagonalMovement;
+
+    @Param({"manhattan", "euclidean", "octile", "chebyshev"})
+    public String heuristic;
+
+    private Point[] pairs;
+    private JumpPointFinderBase finder;
+    private SearchContext context;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        pairs = MapFiles.randomPairs(matrix, 200, 42);
+        finder = Util.jumpPointFinder(diagonalMovement, new Options().heuristic(heuristic(heuristic)));
+        context = new SearchContext(new Grid(matrix));
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        Point start = pairs[next];
+        Point end = pairs[next + 1];
+        next = (next + 2) % pairs.length;
+        return finder.findPath(start.x, start.y, end.x, end.y, context);
+    }
+
+    private static HeuristicMethod heuristic(String name) {
+        switch (name) {
+            case "euclidean":
+                return Heuristic::euclidean;
+            case "octile":
+                return Heuristic::octile;
+            case "chebyshev":
+                return Heuristic::chebyshev;
+            default:
+                return Heuristic::manhattan;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.FlowField;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare a {@link FlowField} with a JPS search per unit, for many units heading to the same goal node, and measure the
+ * update of the field after the walkability of a random node changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowFieldBenchmark {
+    @Param({"combat.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    @Param({"100"})
+    public int units;
+
+    private Grid grid;
+    private Point goal;
+    private Point[] starts;
+    private Options options;
+    private JumpPointFinderBase jps;
+    private SearchContext context;
+    private FlowField field;
+    private Random random;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        Point[] pairs = MapFiles.randomPairs(matrix, units + 1, 42);
+        goal = pairs[0];
+        starts = new Point[units];
+        System.arraycopy(pairs, 1, starts, 0, units);
+        options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                ? Heuristic::manhattan : Heuristic::octile);
+        grid = new Grid(matrix);
+        jps = Util.jumpPointFinder(diagonalMovement, options);
+        context = new SearchContext(grid);
+        field = new FlowField(grid, goal.x, goal.y, diagonalMovement, options);
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public void jps(Blackhole blackhole) {
+        for (Point start : starts) {
+            blackhole.consume(jps.findCompactPath(start.x, start.y, goal.x, goal.y, context));
+        }
+    }
+
+    /**
+     * Build the field, and walk every unit to the goal node along it.
+     */
+    @Benchmark
+    public void flowField(Blackhole blackhole) {
+        FlowField built = new FlowField(grid, goal.x, goal.y, diagonalMovement, options);
+        for (Point start : starts) {
+            blackhole.consume(built.getPath(start.x, start.y));
+        }
+    }
+
+    /**
+     * Flip the walkability of a random node twice, updating the field after each change, which leaves the grid as it
+     * was.
+     */
+    @Benchmark
+    public void update() {
+        int x = random.nextInt(grid.getWidth());
+        int y = random.nextInt(grid.getHeight());
+        if (x == goal.x && y == goal.y) {
+            return;
+        }
+        List<Point> cell = Collections.singletonList(new Point(x, y));
+        grid.setWalkableAt(x, y, !grid.isWalkableAt(x, y));
+        field.update(cell);
+        grid.setWalkableAt(x, y, !grid.isWalkableAt(x, y));
+        field.update(cell);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.CompactGrid;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the {@code Node[][]} layout of {@link Grid} with the flags of {@link CompactGrid} on a map tiled
+ * {@code tiles} x {@code tiles} times. The setup prints the heap retained by one grid of each layout; the benchmarks
+ * measure building a grid and running the same queries on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GridMemoryBenchmark {
+    @Param({"AR0011SR.map"})
+    public String map;
+
+    @Param({"1", "4"})
+    public int tiles;
+
+    @Param({"Grid", "CompactGrid"})
+    public String layout;
+
+    private int[][] matrix;
+    private Grid grid;
+    private Point[] pairs;
+    private JumpPointFinderBase finder;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        matrix = tile(MapFiles.load(map), tiles);
+        pairs = MapFiles.randomPairs(matrix, 20, 42);
+        finder = Util.jumpPointFinder(DiagonalMovement.Always, new Options());
+
+        long before = usedHeap();
+        grid = build();
+        long retained = usedHeap() - before;
+        context = new SearchContext(grid);
+        System.out.printf("%n%s x%d %s: %dx%d nodes, %d bytes retained, %.1f bytes per node%n", map, tiles, layout,
+                grid.getWidth(), grid.getHeight(), retained, (double) retained / (grid.getWidth() * grid.getHeight()));
+    }
+
+    @Benchmark
+    public Grid build() {
+        return "CompactGrid".equals(layout) ? new CompactGrid(matrix) : new Grid(matrix);
+    }
+
+    @Benchmark
+    public void findPath(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(finder.findPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    private static int[][] tile(int[][] matrix, int tiles) {
+        int height = matrix.length;
+        int width = matrix[0].length;
+        int[][] tiled = new int[height * tiles][width * tiles];
+        for (int y = 0; y < tiled.length; y++) {
+            for (int x = 0; x < tiled[y].length; x++) {
+                tiled[y][x] = matrix[y % height][x % width];
+            }
+        }
+        return tiled;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.HPAFinder;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link HPAFinder} with the flat JPS on the same random pairs of nodes, and measure the update of its abstract
+ * graph after the walkability of a random node changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchicalBenchmark {
+    @Param({"combat.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    @Param({"16"})
+    public int clusterSize;
+
+    private Grid grid;
+    private Point[] pairs;
+    private JumpPointFinderBase jps;
+    private HPAFinder hpa;
+    private SearchContext context;
+    private Random random;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        pairs = MapFiles.randomPairs(matrix, 50, 42);
+        Options options = new Options().heuristic(Heuristic::octile);
+        grid = new Grid(matrix);
+        jps = Util.jumpPointFinder(diagonalMovement, options);
+        hpa = new HPAFinder(grid, clusterSize, diagonalMovement, options);
+        context = new SearchContext(grid);
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public void jps(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(jps.findCompactPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    @Benchmark
+    public void hpa(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(hpa.findCompactPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    /**
+     * Flip the walkability of a random node twice, updating the abstract graph after each change, which leaves the
+     * grid as it was.
+     */
+    @Benchmark
+    public int update() {
+        int x = random.nextInt(grid.getWidth());
+        int y = random.nextInt(grid.getHeight());
+        grid.setWalkableAt(x, y, !grid.isWalkableAt(x, y));
+        int rebuilt = hpa.update(x, y);
+        grid.setWalkableAt(x, y, !grid.isWalkableAt(x, y));
+        return rebuilt + hpa.update(x, y);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the queries of {@link JPSPlusFinder} with the scanning finders on the same pairs of nodes, and measure the
+ * building of the jump tables. The time and memory of one build are printed by the setup as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JPSPlusBenchmark {
+    @Param({"arena.map", "combat.map", "isound1.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    private Grid grid;
+    private Point[] pairs;
+    private JumpPointFinderBase jps;
+    private JPSPlusFinder jpsPlus;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        grid = new Grid(matrix);
+        pairs = MapFiles.randomPairs(matrix, 200, 42);
+        jps = Util.jumpPointFinder(diagonalMovement, new Options());
+        jpsPlus = new JPSPlusFinder(grid, diagonalMovement, new Options());
+        context = new SearchContext(grid);
+        System.out.printf("%n%s %s: tables built in %.3f ms, %d bytes%n", map, diagonalMovement,
+                jpsPlus.getBuildNanos() / 1e6, jpsPlus.getTableBytes());
+    }
+
+    @Benchmark
+    public void jps(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(jps.findPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    @Benchmark
+    public void jpsPlus(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(jpsPlus.findPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+
+    @Benchmark
+    public JPSPlusFinder build() {
+        return new JPSPlusFinder(grid, diagonalMovement, new Options());
+    }
+}
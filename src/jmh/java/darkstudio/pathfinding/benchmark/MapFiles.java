@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.TunnelNode;
+import darkstudio.pathfinding.utility.MapLoader;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Helpers to read the bundled MovingAI maps for the benchmarks.
+ */
+final class MapFiles {
+    private MapFiles() {
+    }
+
+    /**
+     * Read the specific MovingAI map from the classpath.
+     *
+     * @param name the resource name of the map, e.g. "arena.map".
+     * @return a 0-1 matrix representing the walkable status of the nodes (0 for walkable).
+     * @throws IOException if the map can not be read.
+     */
+    static int[][] load(String name) throws IOException {
+        Grid grid = MapLoader.load(copy(name));
+        int[][] matrix = new int[grid.getHeight()][grid.getWidth()];
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                matrix[y][x] = grid.isWalkableAt(x, y) ? 0 : 1;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Pick fixed pseudo-random pairs of walkable start and end positions, so that every run uses the same queries.
+     *
+     * @param matrix the 0-1 matrix of the map.
+     * @param count number of pairs to pick.
+     * @param seed the random seed.
+     * @return the picked pairs, i.e. {start, end, start, end, ...}.
+     */
+    static Point[] randomPairs(int[][] matrix, int count, long seed) {
+        List<Point> walkable = new ArrayList<>();
+        for (int y = 0; y < matrix.length; y++) {
+            for (int x = 0; x < matrix[y].length; x++) {
+                if (matrix[y][x] == 0) {
+                    walkable.add(new Point(x, y));
+                }
+            }
+        }
+        Random random = new Random(seed);
+        Point[] pairs = new Point[count * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = walkable.get(random.nextInt(walkable.size()));
+        }
+        return pairs;
+    }
+
+    /**
+     * Copy the specific MovingAI map from the classpath into a temporary file, for the loaders reading files.
+     *
+     * @param name the resource name of the map, e.g. "arena.map".
+     * @return the temporary file, deleted on exit.
+     * @throws IOException if the map can not be copied.
+     */
+    static File copy(String name) throws IOException {
+        File file = File.createTempFile("benchmark", ".map");
+        file.deleteOnExit();
+        try (InputStream in = MapFiles.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Map not found: " + name);
+            }
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * Scatter tunnels of three nodes going down at fixed pseudo-random places of the grid. The nodes of a tunnel and its
+     * out node are not shared with another tunnel.
+     *
+     * @param grid the grid to place the tunnels on.
+     * @param tunnels number of tunnels to place.
+     * @param seed the random seed.
+     * @return the placed tunnel nodes, to be set up by {@link Grid#setupTunnels(List)}.
+     */
+    static List<TunnelNode> placeTunnels(Grid grid, int tunnels, long seed) {
+        List<TunnelNode> tunnelNodes = new ArrayList<>();
+        boolean[][] used = new boolean[grid.getHeight()][grid.getWidth()];
+        Random random = new Random(seed);
+        while (tunnelNodes.size() < tunnels * 3) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight() - 3);
+            if (!isFree(grid, used, x, y) || !isFree(grid, used, x, y + 1) || !isFree(grid, used, x, y + 2)
+                    || !isFree(grid, used, x, y + 3)) {
+                continue;
+            }
+            for (int i = 0; i < 4; i++) {
+                used[y + i][x] = true;
+            }
+            TunnelNode previous = null;
+            for (int i = 0; i < 3; i++) {
+                TunnelNode tunnelNode = new TunnelNode(grid.getNodeAt(x, y + i));
+                tunnelNode.setDirection(TunnelNode.DOWN);
+                grid.replaceNode(x, y + i, tunnelNode);
+                if (previous != null) {
+                    previous.setOut(tunnelNode);
+                    tunnelNode.addIn(previous);
+                }
+                tunnelNodes.add(tunnelNode);
+                previous = tunnelNode;
+            }
+            previous.setOut(grid.getNodeAt(x, y + 3));
+        }
+        return tunnelNodes;
+    }
+
+    private static boolean isFree(Grid grid, boolean[][] used, int x, int y) {
+        return grid.isWalkableAt(x, y) && !used[y][x];
+    }
+}
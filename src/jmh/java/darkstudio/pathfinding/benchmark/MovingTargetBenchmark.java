@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Direction;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.MovingTargetPlanner;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link MovingTargetPlanner} with independent JPS searches on chases: the start node steps along the path
+ * found at every tick, while the goal node drifts by a random step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovingTargetBenchmark {
+    private static final int TICKS = 50;
+
+    @Param({"combat.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    private Grid grid;
+    private Point[] pairs;
+    private JumpPointFinderBase jps;
+    private MovingTargetPlanner planner;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        pairs = MapFiles.randomPairs(matrix, 10, 42);
+        Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                ? Heuristic::manhattan : Heuristic::octile);
+        grid = new Grid(matrix);
+        jps = Util.jumpPointFinder(diagonalMovement, options);
+        planner = new MovingTargetPlanner(grid, diagonalMovement, options);
+        context = new SearchContext(grid);
+    }
+
+    @Benchmark
+    public int jps() {
+        int steps = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            steps += chase(pairs[i], pairs[i + 1], false);
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int movingTarget() {
+        int steps = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            steps += chase(pairs[i], pairs[i + 1], true);
+        }
+        return steps;
+    }
+
+    /**
+     * @return number of ticks until the goal was caught or lost.
+     */
+    private int chase(Point start, Point goal, boolean movingTarget) {
+        Random random = new Random(42);
+        int startX = start.x, startY = start.y, goalX = goal.x, goalY = goal.y;
+        for (int tick = 0; tick < TICKS; tick++) {
+            Path path = movingTarget ? planner.plan(startX, startY, goalX, goalY)
+                    : jps.findCompactPath(startX, startY, goalX, goalY, context);
+            if (path.size() < 3) {
+                return tick;
+            }
+            startX = path.getX(1);
+            startY = path.getY(1);
+            int direction = random.nextInt(diagonalMovement == DiagonalMovement.Never ? 4 : 8);
+            if (grid.isWalkableAt(goalX + Direction.dx(direction), goalY + Direction.dy(direction))) {
+                goalX += Direction.dx(direction);
+                goalY += Direction.dy(direction);
+            }
+        }
+        return TICKS;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.MultiGoalFinder;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare a {@link MultiGoalFinder} with a JPS search per goal node, keeping the shortest path, for finding the path
+ * to the nearest of several goal nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiGoalBenchmark {
+    @Param({"combat.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    @Param({"8", "64"})
+    public int goalCount;
+
+    private Point start;
+    private List<Point> goals;
+    private JumpPointFinderBase jps;
+    private MultiGoalFinder multiGoal;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        Point[] pairs = MapFiles.randomPairs(matrix, goalCount + 1, 42);
+        start = pairs[0];
+        goals = Arrays.asList(pairs).subList(1, goalCount + 1);
+        Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                ? Heuristic::manhattan : Heuristic::octile);
+        jps = Util.jumpPointFinder(diagonalMovement, options);
+        multiGoal = new MultiGoalFinder(diagonalMovement, options);
+        context = new SearchContext(new Grid(matrix));
+    }
+
+    @Benchmark
+    public Path jps() {
+        Path nearest = Path.EMPTY;
+        double length = Double.POSITIVE_INFINITY;
+        for (Point goal : goals) {
+            Path path = jps.findCompactPath(start.x, start.y, goal.x, goal.y, context);
+            if (!path.isEmpty() && Util.pathLength(path) < length) {
+                nearest = path;
+                length = Util.pathLength(path);
+            }
+        }
+        return nearest;
+    }
+
+    @Benchmark
+    public void multiGoal(Blackhole blackhole) {
+        blackhole.consume(multiGoal.findNearestPath(start.x, start.y, goals, context));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.OpenList;
+import darkstudio.pathfinding.model.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link OpenList} with {@link PriorityQueue} as the open list of a search on the bundled maps.
+ * <p/>
+ * Each invocation runs a plain 8-direction A* for a fixed set of start/end pairs, so that the open list grows to the
+ * size of a real search and re-scored nodes are updated as often as a real search does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenListBenchmark {
+    private static final int[] DX = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] DY = {-1, 0, 1, 0, -1, -1, 1, 1};
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final byte UNVISITED = 0;
+    private static final byte OPENED = 1;
+    private static final byte CLOSED = 2;
+
+    @Param({"arena.map", "combat.map", "isound1.map", "AR0011SR.map"})
+    public String map;
+
+    private Grid grid;
+    private Point[] pairs;
+    private double[] gScores;
+    private double[] fScores;
+    private byte[] states;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        grid = new Grid(matrix);
+        pairs = MapFiles.randomPairs(matrix, 20, 42);
+        gScores = new double[grid.getWidth() * grid.getHeight()];
+        fScores = new double[gScores.length];
+        states = new byte[gScores.length];
+    }
+
+    @Benchmark
+    public double priorityQueue() {
+        double sum = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            sum += search(pairs[i], pairs[i + 1], new PriorityQueueFrontier(fScores));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double openList() {
+        double sum = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            sum += search(pairs[i], pairs[i + 1], new OpenListFrontier(gScores.length));
+        }
+        return sum;
+    }
+
+    private double search(Point start, Point end, Frontier frontier) {
+        int width = grid.getWidth();
+        int startNode = start.y * width + start.x;
+        int endNode = end.y * width + end.x;
+        int node, neighbor, x, y;
+        double ng;
+
+        Arrays.fill(states, UNVISITED);
+        gScores[startNode] = 0;
+        fScores[startNode] = 0;
+        frontier.add(startNode);
+        states[startNode] = OPENED;
+
+        while (!frontier.isEmpty()) {
+            node = frontier.poll();
+            states[node] = CLOSED;
+            if (node == endNode) {
+                return gScores[node];
+            }
+
+            for (int d = 0; d < DX.length; d++) {
+                x = node % width + DX[d];
+                y = node / width + DY[d];
+                if (!grid.isWalkableAt(x, y)) {
+                    continue;
+                }
+                neighbor = y * width + x;
+                if (states[neighbor] == CLOSED) {
+                    continue;
+                }
+
+                ng = gScores[node] + (d < 4 ? 1 : SQRT2);
+                if (states[neighbor] == UNVISITED || ng < gScores[neighbor]) {
+                    gScores[neighbor] = ng;
+                    fScores[neighbor] = ng + Heuristic.octile(Math.abs(x - end.x), Math.abs(y - end.y));
+                    if (states[neighbor] == UNVISITED) {
+                        frontier.add(neighbor);
+                        states[neighbor] = OPENED;
+                    } else {
+                        frontier.update(neighbor);
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    private interface Frontier {
+        void add(int node);
+
+        int poll();
+
+        void update(int node);
+
+        boolean isEmpty();
+    }
+
+    private static class PriorityQueueFrontier implements Frontier {
+        private final PriorityQueue<Integer> queue;
+
+        PriorityQueueFrontier(double[] fScores) {
+            queue = new PriorityQueue<>((a, b) -> Double.compare(fScores[a], fScores[b]));
+        }
+
+        @Override
+        public void add(int node) {
+            queue.add(node);
+        }
+
+        @Override
+        public int poll() {
+            return queue.poll();
+        }
+
+        @Override
+        public void update(int node) {
+            queue.remove(node);
+            queue.add(node);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return queue.isEmpty();
+        }
+    }
+
+    private class OpenListFrontier implements Frontier {
+        private final OpenList openList;
+
+        OpenListFrontier(int cellCount) {
+            openList = new OpenList(cellCount);
+        }
+
+        @Override
+        public void add(int node) {
+            openList.add(node, fScores[node]);
+        }
+
+        @Override
+        public int poll() {
+            return openList.poll();
+        }
+
+        @Override
+        public void update(int node) {
+            openList.update(node, fScores[node]);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return openList.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure single queries with a reused {@link SearchContext}, so that what is left to allocate is the work of the
+ * search itself and the returned path. Run with the GC profiler ({@code -prof gc}) and read
+ * {@code gc.alloc.rate.norm} for the bytes allocated per query. The queries through the overload taking a {@link Grid}
+ * should allocate about as much, as they reuse the idle contexts kept by the finder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryAllocationBenchmark {
+    @Param({"combat.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    private Point[] pairs;
+    private JumpPointFinderBase finder;
+    private Grid grid;
+    private SearchContext context;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        pairs = MapFiles.randomPairs(matrix, 200, 42);
+        finder = Util.jumpPointFinder(diagonalMovement, new Options());
+        grid = new Grid(matrix);
+        context = new SearchContext(grid);
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        Point start = pairs[next];
+        Point end = pairs[next + 1];
+        next = (next + 2) % pairs.length;
+        return finder.findPath(start.x, start.y, end.x, end.y, context);
+    }
+
+    @Benchmark
+    public List<Point> findPathOnGrid() {
+        Point start = pairs[next];
+        Point end = pairs[next + 1];
+        next = (next + 2) % pairs.length;
+        return finder.findPath(start.x, start.y, end.x, end.y, grid);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DStarLitePlanner;
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the replanning of {@link DStarLitePlanner} with a fresh JPS search after a node on the path was blocked and
+ * unblocked again, on the longest of some random pairs of nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplanBenchmark {
+    @Param({"combat.map", "AR0011SR.map"})
+    public String map;
+
+    @Param({"Always", "Never"})
+    public DiagonalMovement diagonalMovement;
+
+    private Grid grid;
+    private Point start;
+    private Point goal;
+    private Path path;
+    private JumpPointFinderBase jps;
+    private DStarLitePlanner planner;
+    private SearchContext context;
+    private Random random;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        Point[] pairs = MapFiles.randomPairs(matrix, 50, 42);
+        Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                ? Heuristic::manhattan : Heuristic::octile);
+        grid = new Grid(matrix);
+        jps = Util.jumpPointFinder(diagonalMovement, options);
+        context = new SearchContext(grid);
+        double longest = -1;
+        for (int i = 0; i < pairs.length; i += 2) {
+            Path found = jps.findCompactPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context);
+            if (Util.pathLength(found) > longest) {
+                longest = Util.pathLength(found);
+                start = pairs[i];
+                goal = pairs[i + 1];
+                path = found;
+            }
+        }
+        planner = new DStarLitePlanner(grid, diagonalMovement, options);
+        planner.plan(start.x, start.y, goal.x, goal.y);
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public void jps(Blackhole blackhole) {
+        List<Point> cell = blockRandomNode();
+        blackhole.consume(jps.findCompactPath(start.x, start.y, goal.x, goal.y, context));
+        unblock(cell);
+        blackhole.consume(jps.findCompactPath(start.x, start.y, goal.x, goal.y, context));
+    }
+
+    @Benchmark
+    public void dStarLite(Blackhole blackhole) {
+        List<Point> cell = blockRandomNode();
+        planner.update(cell);
+        blackhole.consume(planner.plan(start.x, start.y, goal.x, goal.y));
+        unblock(cell);
+        planner.update(cell);
+        blackhole.consume(planner.plan(start.x, start.y, goal.x, goal.y));
+    }
+
+    private List<Point> blockRandomNode() {
+        int i = 1 + random.nextInt(path.size() - 2);
+        grid.setWalkableAt(path.getX(i), path.getY(i), false);
+        return Collections.singletonList(new Point(path.getX(i), path.getY(i)));
+    }
+
+    private void unblock(List<Point> cell) {
+        grid.setWalkableAt(cell.get(0).x, cell.get(0).y, true);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.GridSnapshot;
+import darkstudio.pathfinding.utility.MapLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the cold start of a map with {@code tunnels} tunnels and the JPS+ jump tables: loading the text map, setting
+ * up the tunnels and building the tables, against reading a {@link GridSnapshot} of the same grid. Each fork measures
+ * a few single shots without warmup, the first of which runs in a cold JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@Fork(5)
+public class SnapshotBenchmark {
+    @Param({"AR0011SR.map"})
+    public String map;
+
+    @Param({"0", "1000"})
+    public int tunnels;
+
+    private File mapFile;
+    private File snapshotFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapFile = MapFiles.copy(map);
+        snapshotFile = File.createTempFile("benchmark", ".snapshot");
+        snapshotFile.deleteOnExit();
+        JPSPlusFinder finder = loadMap();
+        GridSnapshot.write(snapshotFile, finder.getGrid(), finder);
+    }
+
+    @Benchmark
+    public JPSPlusFinder loadMap() throws IOException {
+        Grid grid = MapLoader.load(mapFile);
+        grid.setupTunnels(new ArrayList<>(MapFiles.placeTunnels(grid, tunnels, 42)));
+        return new JPSPlusFinder(grid, DiagonalMovement.Always, new Options());
+    }
+
+    @Benchmark
+    public JPSPlusFinder readSnapshot() throws IOException {
+        return GridSnapshot.read(snapshotFile).getJPSPlusFinder(DiagonalMovement.Always, new Options());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.benchmark;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the teleport finder on a map scattered with {@code tunnels} tunnels of three nodes each, to see how the
+ * search time depends on the number of tunnel links of the grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeleportBenchmark {
+    @Param({"AR0011SR.map"})
+    public String map;
+
+    @Param({"10", "100", "1000"})
+    public int tunnels;
+
+    private Point[] pairs;
+    private JumpPointFinderBase finder;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] matrix = MapFiles.load(map);
+        Grid grid = new Grid(matrix);
+        grid.setupTunnels(new ArrayList<>(MapFiles.placeTunnels(grid, tunnels, 42)));
+
+        pairs = MapFiles.randomPairs(matrix, 50, 42);
+        finder = Util.jumpPointFinder(DiagonalMovement.TeleportNever, new Options().checkTeleporter(true));
+        context = new SearchContext(grid);
+    }
+
+    @Benchmark
+    public void findPath(Blackhole blackhole) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            blackhole.consume(finder.findPath(pairs[i].x, pairs[i].y, pairs[i + 1].x, pairs[i + 1].y, context));
+        }
+    }
+}
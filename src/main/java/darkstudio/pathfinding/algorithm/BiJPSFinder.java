@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+
+/**
+ * Bidirectional Jump Point Search: one search from the start node and one from the end node, each expanding the jump
+ * points of {@link JPFAlwaysMoveDiagonally} or {@link JPFNeverMoveDiagonally}, and always advancing the one with fewer
+ * open nodes. The jumps of either search stop at the nodes opened by the other one as well, and a node opened by both
+ * is a meeting point of cost {@code g(start -> node) + g(node <- end)}.
+ * <p/>
+ * The search stops when the smallest `f` value of either open list is not below the cost of the best meeting point,
+ * which is then optimal as long as the heuristic is consistent, e.g. {@link Heuristic#octile(int, int)}, or
+ * {@link Heuristic#manhattan(int, int)} without diagonal movement. It also stops as soon as either search runs out of
+ * nodes, so that a query whose end node lies in a small enclosed pocket fails after exploring the pocket only.
+ * <p/>
+ * The search from the end node keeps its state in {@link SearchContext#getReverse()}, so that the finder keeps no state
+ * of a search, like the other finders. Teleporters and bit scans are not supported.
+ */
+public class BiJPSFinder extends JumpPointFinderBase {
+    private final JumpPointFinderBase pruning;
+
+    /**
+     * @param diagonalMovement {@link DiagonalMovement#Never} for 4 directions, {@link DiagonalMovement#TeleportNever}
+     * is not supported, any other value for 8 directions as in {@link JPFAlwaysMoveDiagonally}.
+     * @param options the options of the search, checking neither teleporters nor bit scans.
+     */
+    public BiJPSFinder(DiagonalMovement diagonalMovement, Options options) {
+        super(options);
+        if (diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter()) {
+            throw new IllegalArgumentException("Teleporters are not supported by bidirectional search");
+        }
+        if (options.bitScan()) {
+            throw new IllegalArgumentException("Bit scans are not supported by bidirectional search");
+        }
+        pruning = pruning(diagonalMovement, options, BiJPSFinder::isOpenedOrEnd);
+    }
+
+    @Override
+    public Path findCompactPath(int startX, int startY, int endX, int endY, SearchContext context) {
+        SearchContext forward = context.reset();
+        Grid grid = forward.getGrid();
+        SearchContext backward = forward.getReverse().reset(grid);
+        SearchStats stats = forward.getStats();
+        long startNanos = stats != null ? System.nanoTime() : 0;
+        backward.setStats(stats);
+        try {
+            int meet = search(forward, backward, startX, startY, endX, endY);
+            long foundNanos = stats != null ? System.nanoTime() : 0;
+            Path path;
+            if (meet == -1) {
+                path = Path.EMPTY;
+            } else if (backward.getParent(meet) == -1) { // met at the end node
+                path = Util.expandPath(Util.backtrace(forward, meet), grid);
+            } else {
+                path = Util.expandPath(Util.biBacktrace(forward, meet, backward, backward.getParent(meet)), grid);
+            }
+            collectStats(forward, startNanos, foundNanos);
+            return path;
+        } finally {
+            backward.setStats(null);
+        }
+    }
+
+    /**
+     * @return the cell index of the best meeting point, or -1 if there is no path.
+     */
+    private int search(SearchContext forward, SearchContext backward, int startX, int startY, int endX, int endY) {
+        int startNode = forward.indexOf(startX, startY);
+        int endNode = backward.indexOf(endX, endY);
+        Meeting meeting = new Meeting();
+        forward.setEnd(endX, endY);
+        backward.setEnd(startX, startY);
+        forward.setAttachment(meeting);
+        backward.setAttachment(meeting);
+        open(forward, startNode);
+        open(backward, endNode);
+
+        if (startNode == endNode) {
+            meeting.update(startNode, 0);
+        }
+        OpenList forwardOpenList = forward.getOpenList();
+        OpenList backwardOpenList = backward.getOpenList();
+        while (!forwardOpenList.isEmpty() && !backwardOpenList.isEmpty()) {
+            if (Math.max(forwardOpenList.peekFScore(), backwardOpenList.peekFScore()) >= meeting.cost) {
+                break;
+            }
+            // advance the smaller frontier, which lets a search enclosed in a pocket run out of nodes early.
+            boolean fromStart = forwardOpenList.size() <= backwardOpenList.size();
+            SearchContext context = fromStart ? forward : backward;
+            int node = context.getOpenList().poll();
+            context.setClosed(node, true);
+            forward.countExpandedNode();
+            identifySuccessors(context, node);
+        }
+        return meeting.node;
+    }
+
+    private static void open(SearchContext context, int node) {
+        context.setGScore(node, 0);
+        context.setFScore(node, 0);
+        context.getOpenList().add(node, 0);
+        context.setOpened(node, true);
+        SearchStats stats = context.getStats();
+        if (stats != null) {
+            stats.push(context.getOpenList().size());
+        }
+    }
+
+    /**
+     * Record the jump points which the opposite search has opened as meeting points.
+     */
+    @Override
+    protected void onOpened(SearchContext context, int node, double g) {
+        SearchContext opposite = context.getReverse();
+        if (opposite.isOpened(node)) {
+            ((Meeting) context.getAttachment()).update(node, g + opposite.getGScore(node));
+        }
+    }
+
+    /**
+     * Let the jumps stop at the nodes opened by the opposite search as well, so that the two searches meet.
+     */
+    private static boolean isOpenedOrEnd(SearchContext context, int x, int y) {
+        return context.isEnd(x, y) || context.getReverse().isOpened(context.indexOf(x, y));
+    }
+
+    @Override
+    protected int findNeighbors(SearchContext context, int x, int y) {
+        return pruning.findNeighbors(context, x, y);
+    }
+
+    @Override
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        return pruning.jump(context, x0, y0, x1, y1);
+    }
+
+    /**
+     * The best meeting point found so far.
+     */
+    private static final class Meeting {
+        private int node = -1;
+        private double cost = Double.POSITIVE_INFINITY;
+
+        void update(int node, double cost) {
+            if (cost < this.cost) {
+                this.node = node;
+                this.cost = cost;
+            }
+        }
+    }
+}
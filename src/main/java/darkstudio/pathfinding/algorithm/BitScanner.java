@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.BitGrid;
+
+/**
+ * Straight jump scans over the bitmaps of a {@link BitGrid}, examining 64 cells per step. A scan stops at the first
+ * cell which is either blocked or has a forced neighbor, which is found with a single
+ * {@link Long#numberOfTrailingZeros(long)} (or {@link Long#numberOfLeadingZeros(long)}) per word.
+ */
+final class BitScanner {
+    private BitScanner() {
+    }
+
+    /**
+     * Search in the straight direction (dx, dy) from (x0, y0), same as the straight scans of the cell-by-cell finders.
+     *
+     * @param context the state of the query, providing the end node.
+     * @param grid the grid to scan.
+     * @param x0 x coordinate of the first node to examine.
+     * @param y0 y coordinate of the first node to examine.
+     * @param dx the horizontal direction, -1, 0 or 1.
+     * @param dy the vertical direction, -1, 0 or 1, must be 0 when dx is not.
+     * @param forcedAhead {@code true} to detect forced neighbors as {@link JPFAlwaysMoveDiagonally} does (the side
+     * node ahead is walkable while the one beside is blocked), {@code false} to detect them as
+     * {@link JPFNeverMoveDiagonally} does (the side node beside is walkable while the one behind is blocked).
+     * @return the cell index of the found jump point, or -1 if the scan runs into a blocked node first.
+     */
+    static int jump(SearchContext context, BitGrid grid, int x0, int y0, int dx, int dy, boolean forcedAhead) {
+        SearchStats stats = context.getStats();
+        if (stats != null) {
+            stats.jumpCalls++;
+        }
+        if (!grid.isWalkableAt(x0, y0)) {
+            return -1;
+        }
+
+        boolean vertical = dx == 0;
+        int line = vertical ? x0 : y0;
+        int from = vertical ? y0 : x0;
+        int step = vertical ? dy : dx;
+        int length = vertical ? grid.getHeight() : grid.getWidth();
+        int stop = step > 0
+                ? scanForward(grid, vertical, line, from, length, forcedAhead)
+                : scanBackward(grid, vertical, line, from, forcedAhead);
+
+        // the end node is a jump point as well, which wins if it is met before the stop.
+        int endLine = vertical ? context.getEndX() : context.getEndY();
+        int endPos = vertical ? context.getEndY() : context.getEndX();
+        if (endLine == line && (endPos - from) * step >= 0 && (stop - endPos) * step > 0) {
+            if (stats != null) {
+                stats.scannedCells += (endPos - from) * step + 1;
+            }
+            return context.getEnd();
+        }
+
+        boolean jumpPoint = stop >= 0 && stop < length
+                && (word(grid, vertical, line, stop >> 6) & 1L << (stop & 63)) != 0;
+        if (stats != null) {
+            // the walkable nodes from the first one to the stop, which is the last one if it is a jump point.
+            int last = jumpPoint ? stop : stop < 0 ? 0 : stop >= length ? length - 1 : stop - step;
+            stats.scannedCells += (last - from) * step + 1;
+        }
+        if (jumpPoint) {
+            return vertical ? context.indexOf(line, stop) : context.indexOf(stop, line);
+        }
+        return -1;
+    }
+
+    /**
+     * @return position of the first blocked or forced node at or after {@code from}, {@code length} or beyond if none.
+     */
+    private static int scanForward(BitGrid grid, boolean vertical, int line, int from, int length,
+                                   boolean forcedAhead) {
+        int words = (length + 63) >>> 6;
+        long mask = -1L << (from & 63);
+        for (int w = from >> 6; w < words; w++, mask = -1L) {
+            long stops = (~word(grid, vertical, line, w) | forced(grid, vertical, line, w, 1, forcedAhead)) & mask;
+            if (stops != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(stops);
+            }
+        }
+        return words << 6;
+    }
+
+    /**
+     * @return position of the first blocked or forced node at or before {@code from}, -1 if none.
+     */
+    private static int scanBackward(BitGrid grid, boolean vertical, int line, int from, boolean forcedAhead) {
+        long mask = -1L >>> (63 - (from & 63));
+        for (int w = from >> 6; w >= 0; w--, mask = -1L) {
+            long stops = (~word(grid, vertical, line, w) | forced(grid, vertical, line, w, -1, forcedAhead)) & mask;
+            if (stops != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(stops);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return bits of the nodes in word {@code w} of the line which have a forced neighbor on either side when moving
+     * by {@code step}.
+     */
+    private static long forced(BitGrid grid, boolean vertical, int line, int w, int step, boolean forcedAhead) {
+        long forced = 0L;
+        for (int side = line - 1; side <= line + 1; side += 2) {
+            long beside = word(grid, vertical, side, w);
+            if (forcedAhead) {
+                forced |= shifted(grid, vertical, side, w, step) & ~beside;
+            } else {
+                forced |= beside & ~shifted(grid, vertical, side, w, -step);
+            }
+        }
+        return forced;
+    }
+
+    /**
+     * @return word {@code w} of the line shifted so that bit {@code p} holds the walkability of position
+     * {@code p + step}.
+     */
+    private static long shifted(BitGrid grid, boolean vertical, int line, int w, int step) {
+        if (step > 0) {
+            return word(grid, vertical, line, w) >>> 1 | word(grid, vertical, line, w + 1) << 63;
+        }
+        return word(grid, vertical, line, w) << 1 | word(grid, vertical, line, w - 1) >>> 63;
+    }
+
+    private static long word(BitGrid grid, boolean vertical, int line, int w) {
+        return vertical ? grid.getColumnWord(line, w) : grid.getRowWord(line, w);
+    }
+}
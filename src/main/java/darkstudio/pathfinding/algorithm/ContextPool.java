@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * The idle {@link SearchContext}s of a {@link FinderPool} or of a finder, handed out and taken back by many threads at
+ * the same time. At most a bounded number of idle contexts is kept, the others are dropped when given back.
+ */
+final class ContextPool {
+    private final int maxIdle;
+    private final Deque<SearchContext> idleContexts = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param maxIdle the largest number of idle contexts to keep.
+     */
+    ContextPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Take an idle context out of the pool, or create a new one if there is none.
+     *
+     * @param grid the grid to search with the context.
+     * @return the context ready for searching the grid, which should be given back by {@link #release(SearchContext)}.
+     */
+    SearchContext acquire(Grid grid) {
+        // the most recently released context is the warmest one.
+        SearchContext context = idleContexts.pollFirst();
+        return context != null ? context.reset(grid) : new SearchContext(grid);
+    }
+
+    /**
+     * Give back a context taken by {@link #acquire(Grid)}. The context must NOT be used any more by the caller.
+     *
+     * @param context the context to give back.
+     */
+    void release(SearchContext context) {
+        // the size is counted by walking the deque, which holds few contexts.
+        if (idleContexts.size() < maxIdle) {
+            idleContexts.offerFirst(context);
+        }
+    }
+
+    /**
+     * Drop the idle contexts, with the grids and the arrays they hold.
+     */
+    void clear() {
+        idleContexts.clear();
+    }
+
+    int idleCount() {
+        return idleContexts.size();
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental replanning with D* Lite (Koenig and Likhachev, the optimized version). The planner searches from the
+ * goal towards the start node, node by node, and keeps its search tree between the calls of
+ * {@link #plan(int, int, int, int)}: after the walkability or the teleporters of some nodes changed, and
+ * {@link #update(Collection)} was told about them, the next plan only repairs the part of the tree which depends on
+ * them. While an agent follows the path, the start node may move along it without losing the tree either.
+ * <p/>
+ * The moves follow {@link Grid#getNeighborDirections(int, int, DiagonalMovement)}, at the cost of 1 or sqrt(2). With
+ * {@link DiagonalMovement#TeleportNever}, or {@link Options#checkTeleporter()}, stepping on a teleporter node moves on
+ * from its final end, for free, as {@link JPFTeleportMoveOrthogonally} does. The heuristic of the options must be
+ * consistent for the moves, e.g. {@link Heuristic#octile(int, int)}; it is not used while the grid holds teleporters,
+ * which no distance based heuristic underestimates.
+ * <p/>
+ * A planner serves a single grid and a single agent: it keeps the state of its searches, so unlike the finders it must
+ * not be shared by threads.
+ */
+public class DStarLitePlanner {
+    // the tolerance of the keys, which add up moves of sqrt(2) in different orders.
+    private static final double EPSILON = 1e-9;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final DiagonalMovement diagonalMovement;
+    private final boolean checkTeleporter;
+    private final Heuristic.HeuristicMethod heuristic;
+    private final double[] gScores;
+    private final double[] rhsScores;
+    private final KeyHeap openList;
+    private final TeleporterIndex teleporters;
+    private int start = -1;
+    private int goal = -1;
+    private int last;
+    private double km;
+    private int expandedNodes;
+
+    /**
+     * @param grid the grid to plan on.
+     * @param diagonalMovement the allowed diagonal movement, {@link DiagonalMovement#TeleportNever} for 4 directions
+     * and teleporters.
+     * @param options the options of the search.
+     */
+    public DStarLitePlanner(Grid grid, DiagonalMovement diagonalMovement, Options options) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        checkTeleporter = diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter();
+        this.diagonalMovement = diagonalMovement == DiagonalMovement.TeleportNever
+                ? DiagonalMovement.Never : diagonalMovement;
+        heuristic = options.heuristic();
+        gScores = new double[width * height];
+        rhsScores = new double[width * height];
+        openList = new KeyHeap(width * height);
+        teleporters = new TeleporterIndex(grid);
+        teleporters.rebuild(checkTeleporter);
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return number of nodes expanded by the last plan.
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Plan the path from the start node to the goal node. If the goal node is the same as in the last plan, the search
+     * tree of the last plan is reused, otherwise a new search starts.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param goalX goal x coordinate
+     * @param goalY goal y coordinate
+     * @return the path, including both start and goal positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path plan(int startX, int startY, int goalX, int goalY) {
+        int newStart = startY * width + startX;
+        int newGoal = goalY * width + goalX;
+        expandedNodes = 0;
+        if (newGoal != goal) {
+            initialize(newStart, newGoal);
+        } else if (newStart != start) {
+            // the keys in the open list were computed for the old start node, and the new one is closer to them.
+            start = newStart;
+            km += heuristic(last, start);
+            last = start;
+        }
+        if (start == goal) {
+            return Path.EMPTY;
+        }
+        computeShortestPath();
+        return extractPath();
+    }
+
+    /**
+     * Tell the planner that the walkability or the teleporters of some nodes changed. The next plan repairs the search
+     * tree around them.
+     *
+     * @param cells the positions of the changed nodes.
+     */
+    public void update(Collection<Point> cells) {
+        Set<Integer> affected = new HashSet<>();
+        boolean teleporterChanged = false;
+        for (Point cell : cells) {
+            if (!grid.isInside(cell.x, cell.y)) {
+                continue;
+            }
+            int node = cell.y * width + cell.x;
+            teleporterChanged |= teleporters.getFinalEnd(node) != -1 || grid.isTeleporterAt(cell.x, cell.y);
+            // the moves from and around the node, also from the teleporters ending next to it.
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (grid.isInside(cell.x + dx, cell.y + dy)) {
+                        int neighbor = node + dy * width + dx;
+                        affected.add(neighbor);
+                        affected.addAll(teleporters.getTeleportersTo(neighbor));
+                    }
+                }
+            }
+        }
+        if (teleporterChanged && checkTeleporter) {
+            // a change of a tunnel may move the final ends of the others of its link.
+            boolean hadTeleporters = !teleporters.isEmpty();
+            affected.addAll(teleporters.getNodes());
+            teleporters.rebuild(true);
+            affected.addAll(teleporters.getNodes());
+            if (hadTeleporters == teleporters.isEmpty()) {
+                // the heuristic was switched on or off, so that the keys of the open list are wrong.
+                goal = -1;
+            }
+        }
+        if (goal != -1) {
+            for (int node : affected) {
+                updateVertex(node);
+            }
+        }
+    }
+
+    private void initialize(int newStart, int newGoal) {
+        start = newStart;
+        goal = newGoal;
+        last = newStart;
+        km = 0;
+        Arrays.fill(gScores, Double.POSITIVE_INFINITY);
+        Arrays.fill(rhsScores, Double.POSITIVE_INFINITY);
+        openList.clear();
+        rhsScores[goal] = 0;
+        openList.add(goal, heuristic(start, goal), 0);
+    }
+
+    private double heuristic(int a, int b) {
+        if (!teleporters.isEmpty()) {
+            return 0;
+        }
+        return heuristic.apply(Math.abs(a % width - b % width), Math.abs(a / width - b / width));
+    }
+
+    private void computeShortestPath() {
+        while (!openList.isEmpty()) {
+            // unlike the paper, the nodes tying with the start node are expanded too: an inconsistent successor of it
+            // may have the same key and a stale `g`, which would lead the extracted path astray.
+            double startKey1 = Math.min(gScores[start], rhsScores[start]) + km;
+            if (openList.peekKey1() > startKey1 + EPSILON && rhsScores[start] <= gScores[start]) {
+                break;
+            }
+            int node = openList.peek();
+            double oldKey1 = openList.peekKey1(), oldKey2 = openList.peekKey2();
+            double min = Math.min(gScores[node], rhsScores[node]);
+            double newKey1 = min + heuristic(start, node) + km;
+            if (KeyHeap.compare(oldKey1, oldKey2, newKey1, min) < 0) {
+                openList.update(node, newKey1, min);
+            } else if (gScores[node] > rhsScores[node]) {
+                gScores[node] = rhsScores[node];
+                openList.poll();
+                expandedNodes++;
+                for (int predecessor : predecessors(node)) {
+                    if (predecessor != goal) {
+                        double cost = cost(predecessor, node) + gScores[node];
+                        if (cost < rhsScores[predecessor]) {
+                            rhsScores[predecessor] = cost;
+                            updateOpenList(predecessor);
+                        }
+                    }
+                }
+            } else {
+                gScores[node] = Double.POSITIVE_INFINITY;
+                expandedNodes++;
+                updateVertex(node);
+                for (int predecessor : predecessors(node)) {
+                    updateVertex(predecessor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the `rhs` value of a node from its successors, and put it into the open list if it is inconsistent.
+     */
+    private void updateVertex(int node) {
+        if (node != goal) {
+            double rhs = Double.POSITIVE_INFINITY;
+            if (grid.isWalkableAt(node % width, node / width)) {
+                int from = position(node);
+                int fromX = from % width, fromY = from / width;
+                if (from == goal) { // a teleporter node ending at the goal node.
+                    rhs = gScores[goal];
+                } else {
+                    for (int directions = grid.getNeighborDirections(fromX, fromY, diagonalMovement); directions != 0;
+                         directions &= directions - 1) {
+                        int direction = Integer.numberOfTrailingZeros(directions);
+                        int successor = from + Direction.dy(direction) * width + Direction.dx(direction);
+                        rhs = Math.min(rhs, TeleporterIndex.step(direction) + gScores[successor]);
+                    }
+                }
+            }
+            rhsScores[node] = rhs;
+        }
+        updateOpenList(node);
+    }
+
+    private void updateOpenList(int node) {
+        if (gScores[node] != rhsScores[node]) {
+            double min = Math.min(gScores[node], rhsScores[node]);
+            double key1 = min + heuristic(start, node) + km;
+            if (openList.contains(node)) {
+                openList.update(node, key1, min);
+            } else {
+                openList.add(node, key1, min);
+            }
+        } else if (openList.contains(node)) {
+            openList.remove(node);
+        }
+    }
+
+    /**
+     * @return the node from which the moves of a node start: the final end of a teleporter node, the node itself
+     * otherwise.
+     */
+    private int position(int node) {
+        int end = teleporters.getFinalEnd(node);
+        return end != -1 ? end : node;
+    }
+
+    /**
+     * @return the nodes which can move to a node, and the teleporter nodes ending at it if it is the goal node.
+     */
+    private List<Integer> predecessors(int node) {
+        List<Integer> predecessors = new ArrayList<>(8);
+        if (node == goal) {
+            for (int teleporter : teleporters.getTeleportersTo(node)) {
+                if (grid.isWalkableAt(teleporter % width, teleporter / width)) {
+                    predecessors.add(teleporter);
+                }
+            }
+        }
+        int x = node % width, y = node / width;
+        for (int direction = 0; direction < 8; direction++) {
+            int fromX = x - Direction.dx(direction), fromY = y - Direction.dy(direction);
+            if (!grid.isInside(fromX, fromY)
+                    || (grid.getNeighborDirections(fromX, fromY, diagonalMovement) & 1 << direction) == 0) {
+                continue;
+            }
+            int from = fromY * width + fromX;
+            if (teleporters.getFinalEnd(from) == -1 && grid.isWalkableAt(fromX, fromY)) {
+                predecessors.add(from);
+            }
+            for (int teleporter : teleporters.getTeleportersTo(from)) {
+                if (grid.isWalkableAt(teleporter % width, teleporter / width)) {
+                    predecessors.add(teleporter);
+                }
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * @return the cost of the move from a node to its successor, 0 from a teleporter node ending at the goal node.
+     */
+    private double cost(int from, int to) {
+        from = position(from);
+        if (from == to) {
+            return 0;
+        }
+        return TeleporterIndex.step(Direction.of(to % width - from % width, to / width - from / width));
+    }
+
+    private Path extractPath() {
+        // the search may stop with `g` of the start node still to be lowered, but `rhs` is right.
+        if (rhsScores[start] == Double.POSITIVE_INFINITY) {
+            return Path.EMPTY;
+        }
+        Path.Builder builder = new Path.Builder();
+        int node = start;
+        builder.add(node % width, node / width);
+        for (int moves = 0; node != goal && moves < teleporters.getMaxMoves(); moves++) {
+            int from = position(node);
+            int fromX = from % width, fromY = from / width;
+            if (from == goal) { // a teleporter node ending at the goal node.
+                builder.add(fromX, fromY);
+                node = from;
+                break;
+            }
+            int next = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int directions = grid.getNeighborDirections(fromX, fromY, diagonalMovement); directions != 0;
+                 directions &= directions - 1) {
+                int direction = Integer.numberOfTrailingZeros(directions);
+                int successor = from + Direction.dy(direction) * width + Direction.dx(direction);
+                double cost = TeleporterIndex.step(direction) + gScores[successor];
+                if (cost < best) {
+                    best = cost;
+                    next = successor;
+                }
+            }
+            if (next == -1 || best == Double.POSITIVE_INFINITY) {
+                return Path.EMPTY;
+            }
+            if (from != node) {
+                builder.add(fromX, fromY);
+            }
+            builder.add(next % width, next / width);
+            node = next;
+        }
+        return node == goal ? builder.build() : Path.EMPTY;
+    }
+}
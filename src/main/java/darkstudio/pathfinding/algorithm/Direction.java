@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+/**
+ * The directions from a node to its neighbors. Each direction is a bit of the direction masks returned by
+ * {@link JumpPointFinderBase#findNeighbors(SearchContext, int, int)}, so that pruning the neighbors of a node
+ * allocates nothing. The straight and diagonal directions are numbered in the order in which
+ * {@link darkstudio.pathfinding.model.Grid#getNeighbors} lists the neighbors.
+ */
+public final class Direction {
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+    public static final int UP_LEFT = 4;
+    public static final int UP_RIGHT = 5;
+    public static final int DOWN_RIGHT = 6;
+    public static final int DOWN_LEFT = 7;
+    /**
+     * Not a direction on the grid, but the move from a teleporter node to its final end.
+     */
+    public static final int TELEPORT = 8;
+
+    private static final int[] DX = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] DY = {-1, 0, 1, 0, -1, -1, 1, 1};
+    private static final int[] OF = {UP_LEFT, UP, UP_RIGHT, LEFT, -1, RIGHT, DOWN_LEFT, DOWN, DOWN_RIGHT};
+
+    private Direction() {
+    }
+
+    /**
+     * @param direction a straight or diagonal direction.
+     * @return the horizontal step of the direction, -1, 0 or 1.
+     */
+    public static int dx(int direction) {
+        return DX[direction];
+    }
+
+    /**
+     * @param direction a straight or diagonal direction.
+     * @return the vertical step of the direction, -1, 0 or 1.
+     */
+    public static int dy(int direction) {
+        return DY[direction];
+    }
+
+    /**
+     * @param dx the horizontal step, -1, 0 or 1.
+     * @param dy the vertical step, -1, 0 or 1, not 0 if dx is.
+     * @return the direction of the step.
+     */
+    public static int of(int dx, int dy) {
+        return OF[(dy + 1) * 3 + dx + 1];
+    }
+
+    /**
+     * @param dx the horizontal step, -1, 0 or 1.
+     * @param dy the vertical step, -1, 0 or 1, not 0 if dx is.
+     * @return the bit of the direction of the step in a direction mask.
+     */
+    public static int bit(int dx, int dy) {
+        return 1 << of(dx, dy);
+    }
+}
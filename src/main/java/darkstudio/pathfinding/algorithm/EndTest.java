@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+/**
+ * Where the jumps of {@link JPFAlwaysMoveDiagonally} and {@link JPFNeverMoveDiagonally} stop as at the end node, e.g.
+ * also at the goal nodes of {@link MultiGoalFinder}.
+ */
+@FunctionalInterface
+interface EndTest {
+    /**
+     * Stop at the end node of the search only.
+     */
+    EndTest END = SearchContext::isEnd;
+
+    /**
+     * @param context the state of the search.
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @return {@code true} if the jumps stop at the node, {@code false} otherwise.
+     */
+    boolean isEnd(SearchContext context, int x, int y);
+}
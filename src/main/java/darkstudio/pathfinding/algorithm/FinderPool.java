@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of warm finders which can be used by many threads at the same time.
+ * <p/>
+ * The finder itself keeps no state of a search, so a single instance is shared by all the threads, while the scratch
+ * buffers of the searches, i.e. the {@link SearchContext}s, are handed out and taken back by the pool. Thus a thread
+ * searching with the pool does not allocate the buffers again, as long as there is an idle context which has already
+ * been used for a grid as large as the searched one.
+ */
+public class FinderPool {
+    private final JumpPointFinderBase finder;
+    private final ContextPool contexts = new ContextPool(Integer.MAX_VALUE);
+
+    /**
+     * Create a pool of the finders for specific diagonal movement.
+     *
+     * @param diagonalMovement the diagonal movement of the finders.
+     * @param options the options of the finders, which must NOT be modified any more.
+     */
+    public FinderPool(DiagonalMovement diagonalMovement, Options options) {
+        this(Util.jumpPointFinder(diagonalMovement, options));
+    }
+
+    /**
+     * Create a pool of specific finder.
+     *
+     * @param finder the finder to share.
+     */
+    public FinderPool(JumpPointFinderBase finder) {
+        this.finder = finder;
+    }
+
+    public JumpPointFinderBase getFinder() {
+        return finder;
+    }
+
+    /**
+     * Find and return the path with a pooled context.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param grid the grid to search
+     * @return the path, including both start and end positions.
+     */
+    public List<Point> findPath(int startX, int startY, int endX, int endY, Grid grid) {
+        SearchContext context = acquire(grid);
+        try {
+            return finder.findPath(startX, startY, endX, endY, context);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Find and return the path as a compact {@link Path} with a pooled context.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param grid the grid to search
+     * @return the path, including both start and end positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path findCompactPath(int startX, int startY, int endX, int endY, Grid grid) {
+        SearchContext context = acquire(grid);
+        try {
+            return finder.findCompactPath(startX, startY, endX, endY, context);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Find the paths of a batch of queries on the common {@link ForkJoinPool}.
+     *
+     * @param queries the queries to search.
+     * @param grid the grid to search
+     * @return the paths in the same order as the queries, each including both start and end positions, or empty if
+     * there is no path.
+     * @see #findPaths(List, Grid, ForkJoinPool)
+     */
+    public List<List<Point>> findPaths(List<PathQuery> queries, Grid grid) {
+        return findPaths(queries, grid, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Find the paths of a batch of queries on the specific {@link ForkJoinPool}. The queries are split recursively into
+     * ranges, and each range is searched by one worker with one pooled context, so the workers share nothing but the
+     * grid.
+     *
+     * @param queries the queries to search.
+     * @param grid the grid to search
+     * @param pool the pool to run the searches.
+     * @return the paths in the same order as the queries, each including both start and end positions, or empty if
+     * there is no path.
+     */
+    public List<List<Point>> findPaths(List<PathQuery> queries, Grid grid, ForkJoinPool pool) {
+        List<List<Point>> paths = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        if (!queries.isEmpty()) {
+            int threshold = Math.max(1, queries.size() / (pool.getParallelism() * 4));
+            pool.invoke(new BatchTask(queries, 0, queries.size(), threshold, grid, paths));
+        }
+        return paths;
+    }
+
+    /**
+     * Find the paths of a batch of queries with the specific executor. The queries are split into several ranges per
+     * available processor, and as many tasks as the processors take the ranges one after another, each with one pooled
+     * context, so that a task which ran into slow queries is helped by the others.
+     *
+     * @param queries the queries to search.
+     * @param grid the grid to search
+     * @param executor the executor to run the searches.
+     * @return the paths in the same order as the queries, each including both start and end positions, or empty if
+     * there is no path.
+     */
+    public List<List<Point>> findPaths(List<PathQuery> queries, Grid grid, Executor executor) {
+        List<List<Point>> paths = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        int workers = Math.min(queries.size(), Runtime.getRuntime().availableProcessors());
+        int chunks = Math.min(queries.size(), workers * 4);
+        AtomicInteger nextChunk = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                SearchContext context = acquire(grid);
+                try {
+                    for (int chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                        int from = (int) ((long) queries.size() * chunk / chunks);
+                        int to = (int) ((long) queries.size() * (chunk + 1) / chunks);
+                        findPaths(queries, from, to, context, paths);
+                    }
+                } finally {
+                    release(context);
+                }
+            }, executor);
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return paths;
+    }
+
+    private void findPaths(List<PathQuery> queries, int from, int to, SearchContext context, List<List<Point>> paths) {
+        for (int i = from; i < to; i++) {
+            PathQuery query = queries.get(i);
+            paths.set(i, finder.findPath(query.getStartX(), query.getStartY(), query.getEndX(), query.getEndY(),
+                    context));
+        }
+    }
+
+    /**
+     * Take an idle context out of the pool, or create a new one if there is none.
+     *
+     * @param grid the grid to search with the context.
+     * @return the context ready for searching the grid, which should be given back by {@link #release(SearchContext)}.
+     */
+    public SearchContext acquire(Grid grid) {
+        return contexts.acquire(grid);
+    }
+
+    /**
+     * Give back a context taken by {@link #acquire(Grid)}. The context must NOT be used any more by the caller.
+     *
+     * @param context the context to give back.
+     */
+    public void release(SearchContext context) {
+        contexts.release(context);
+    }
+
+    /**
+     * @return number of the idle contexts in the pool.
+     */
+    public int idleCount() {
+        return contexts.idleCount();
+    }
+
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<PathQuery> queries;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Grid grid;
+        private final List<List<Point>> paths;
+
+        BatchTask(List<PathQuery> queries, int from, int to, int threshold, Grid grid, List<List<Point>> paths) {
+            this.queries = queries;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.grid = grid;
+            this.paths = paths;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                SearchContext context = acquire(grid);
+                try {
+                    findPaths(queries, from, to, context, paths);
+                } finally {
+                    release(context);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(queries, from, middle, threshold, grid, paths),
+                    new BatchTask(queries, middle, to, threshold, grid, paths));
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The distances of all the nodes to a single goal node, and the direction of the first step of a shortest path from
+ * every node, so that any number of units heading to the goal read their next steps in O(1) instead of searching.
+ * <p/>
+ * The moves follow {@link Grid#getNeighborDirections(int, int, DiagonalMovement)}, at the cost of 1 or sqrt(2). With
+ * {@link DiagonalMovement#TeleportNever}, or {@link Options#checkTeleporter()}, stepping on a teleporter node other
+ * than the goal node moves on from its final end, for free; a unit standing on a teleporter node is taken to have
+ * arrived there, so that it walks off the other end of a wormhole.
+ * <p/>
+ * The grid is split into square tiles of {@value #TILE_SIZE} nodes, and the field is relaxed in rounds: in every round,
+ * the tiles whose inputs changed run a Dijkstra search over their own nodes in parallel, reading the distances of the
+ * other tiles as they were at the start of the round, then the changed distances are written back and mark the tiles
+ * depending on them for the next round. After {@link #update(Collection)} was told about changed nodes, only the
+ * nodes whose shortest paths went through them are reset and relaxed again.
+ * <p/>
+ * Like {@link HPAFinder}, a field only serves the grid passed to the constructor. It may be read by many threads, but
+ * not while it is updated.
+ */
+public class FlowField {
+    static final int TILE_SIZE = 32;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int goal;
+    private final DiagonalMovement diagonalMovement;
+    private final boolean checkTeleporter;
+    private final int tilesX;
+    private final int tilesY;
+    private final double[] distances;
+    private final byte[] directions;
+    // the moves of every node, as a direction mask which is empty for the unwalkable nodes.
+    private final byte[] moves;
+    // the nodes to relax from the distances around them, the next time their tiles are relaxed.
+    private final boolean[] seeds;
+    private final TeleporterIndex teleporters;
+
+    /**
+     * Build the field of a goal node.
+     *
+     * @param grid the grid of the field.
+     * @param goalX goal x coordinate
+     * @param goalY goal y coordinate
+     * @param diagonalMovement the allowed diagonal movement, {@link DiagonalMovement#TeleportNever} for 4 directions
+     * and teleporters.
+     * @param options the options of the field, whose heuristic is not used.
+     */
+    public FlowField(Grid grid, int goalX, int goalY, DiagonalMovement diagonalMovement, Options options) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        goal = goalY * width + goalX;
+        checkTeleporter = diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter();
+        this.diagonalMovement = diagonalMovement == DiagonalMovement.TeleportNever
+                ? DiagonalMovement.Never : diagonalMovement;
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        distances = new double[width * height];
+        directions = new byte[width * height];
+        moves = new byte[width * height];
+        seeds = new boolean[width * height];
+        teleporters = new TeleporterIndex(grid);
+        teleporters.rebuild(checkTeleporter);
+        build();
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public int getGoalX() {
+        return goal % width;
+    }
+
+    public int getGoalY() {
+        return goal / width;
+    }
+
+    /**
+     * @param x x coordinate of a node
+     * @param y y coordinate of a node
+     * @return the length of a shortest path from the node to the goal node, {@link Double#POSITIVE_INFINITY} if there
+     * is none.
+     */
+    public double getDistance(int x, int y) {
+        return grid.isInside(x, y) ? distances[y * width + x] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param x x coordinate of a node
+     * @param y y coordinate of a node
+     * @return the {@link Direction} of the first step of a shortest path from the node to the goal node, or -1 at the
+     * goal node and where there is no path.
+     */
+    public int getDirection(int x, int y) {
+        return grid.isInside(x, y) ? directions[y * width + x] : -1;
+    }
+
+    /**
+     * Follow the directions from a node to the goal node. Stepping on a teleporter node is followed by its final end,
+     * as in {@link darkstudio.pathfinding.utility.Util#expandTeleportPath(List, Grid)}.
+     *
+     * @param x start x coordinate
+     * @param y start y coordinate
+     * @return the path, including both start and goal positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path getPath(int x, int y) {
+        if (getDirection(x, y) == -1) {
+            return Path.EMPTY;
+        }
+        Path.Builder builder = new Path.Builder();
+        int node = y * width + x;
+        builder.add(x, y);
+        for (int steps = 0; node != goal && steps < teleporters.getMaxMoves(); steps++) {
+            int direction = directions[node];
+            if (direction == -1) {
+                return Path.EMPTY;
+            }
+            node += Direction.dy(direction) * width + Direction.dx(direction);
+            builder.add(node % width, node / width);
+            if (node != goal && teleporters.getFinalEnd(node) != -1) {
+                node = teleporters.getFinalEnd(node);
+                builder.add(node % width, node / width);
+            }
+        }
+        return node == goal ? builder.build() : Path.EMPTY;
+    }
+
+    /**
+     * Tell the field that the walkability or the teleporters of some nodes changed, and repair it.
+     *
+     * @param cells the positions of the changed nodes.
+     */
+    public void update(Collection<Point> cells) {
+        List<Integer> changed = new ArrayList<>();
+        boolean teleporterChanged = false;
+        for (Point cell : cells) {
+            if (grid.isInside(cell.x, cell.y)) {
+                int node = cell.y * width + cell.x;
+                changed.add(node);
+                teleporterChanged |= teleporters.getFinalEnd(node) != -1 || grid.isTeleporterAt(cell.x, cell.y);
+            }
+        }
+        teleporterChanged &= checkTeleporter;
+        if (changed.contains(goal)) {
+            if (teleporterChanged) {
+                teleporters.rebuild(true);
+            }
+            build();
+            return;
+        }
+        if (teleporterChanged) {
+            // a change of a tunnel may move the final ends of the others of its link.
+            changed.addAll(teleporters.getNodes());
+        }
+
+        // reset the nodes around the changed ones, and the nodes whose shortest paths go through them.
+        boolean[] reset = new boolean[distances.length];
+        List<Integer> resetNodes = new ArrayList<>();
+        for (int node : changed) {
+            for (int neighbor : neighborhood(node)) {
+                if (!reset[neighbor] && neighbor != goal) {
+                    reset[neighbor] = true;
+                    resetNodes.add(neighbor);
+                }
+            }
+        }
+        for (int i = 0; i < resetNodes.size(); i++) {
+            int node = resetNodes.get(i);
+            for (int target : targetsOf(node)) {
+                for (int neighbor : neighborhood(target)) {
+                    int direction = directions[neighbor];
+                    if (!reset[neighbor] && direction != -1 && neighbor != goal
+                            && neighbor + Direction.dy(direction) * width + Direction.dx(direction) == target) {
+                        reset[neighbor] = true;
+                        resetNodes.add(neighbor);
+                    }
+                }
+            }
+        }
+        if (teleporterChanged) {
+            teleporters.rebuild(true);
+        }
+        for (int node : changed) {
+            for (int neighbor : neighborhood(node)) {
+                updateMoves(neighbor);
+            }
+        }
+
+        boolean[] dirty = new boolean[tilesX * tilesY];
+        for (int node : resetNodes) {
+            distances[node] = Double.POSITIVE_INFINITY;
+            directions[node] = -1;
+            seeds[node] = true;
+            dirty[tileOf(node)] = true;
+        }
+        relax(dirty);
+    }
+
+    private void build() {
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int x = 0; x < width; x++) {
+                updateMoves(y * width + x);
+            }
+        });
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(directions, (byte) -1);
+        boolean[] dirty = new boolean[tilesX * tilesY];
+        if (grid.isWalkableAt(goal % width, goal / width)) {
+            distances[goal] = 0;
+            markDependents(goal, -1, dirty);
+        }
+        relax(dirty);
+    }
+
+    private void updateMoves(int node) {
+        int x = node % width, y = node / width;
+        moves[node] = (byte) (grid.isWalkableAt(x, y) ? grid.getNeighborDirections(x, y, diagonalMovement) : 0);
+    }
+
+    /**
+     * Relax the dirty tiles round by round, until no distance changes, then set the directions of the nodes of all the
+     * tiles which were relaxed.
+     */
+    private void relax(boolean[] dirty) {
+        boolean[] relaxed = new boolean[dirty.length];
+        while (true) {
+            int[] tiles = IntStream.range(0, dirty.length).filter(tile -> dirty[tile]).toArray();
+            if (tiles.length == 0) {
+                break;
+            }
+            Arrays.fill(dirty, false);
+            // the tiles only read the shared distances here, and only write their own nodes below.
+            int[][] changes = new int[tiles.length][];
+            double[][] values = new double[tiles.length][];
+            IntStream.range(0, tiles.length).parallel().forEach(i -> {
+                double[] local = relaxTile(tiles[i]);
+                changes[i] = changedNodes(tiles[i], local);
+                values[i] = local;
+            });
+            IntStream.range(0, tiles.length).parallel().forEach(i -> commit(tiles[i], values[i]));
+            for (int i = 0; i < tiles.length; i++) {
+                relaxed[tiles[i]] = true;
+                for (int node : changes[i]) {
+                    markDependents(node, tiles[i], dirty);
+                }
+            }
+        }
+        IntStream.range(0, relaxed.length).parallel().filter(tile -> relaxed[tile]).forEach(this::updateDirections);
+    }
+
+    /**
+     * Run a Dijkstra search over the nodes of a tile, which starts from the seeds improved by the distances around them.
+     *
+     * @return the new distances of the nodes of the tile, row by row.
+     */
+    private double[] relaxTile(int tile) {
+        int x0 = tile % tilesX * TILE_SIZE, y0 = tile / tilesX * TILE_SIZE;
+        int tileWidth = Math.min(TILE_SIZE, width - x0), tileHeight = Math.min(TILE_SIZE, height - y0);
+        double[] local = new double[tileWidth * tileHeight];
+        OpenList openList = new OpenList(local.length);
+        for (int y = 0; y < tileHeight; y++) {
+            System.arraycopy(distances, (y0 + y) * width + x0, local, y * tileWidth, tileWidth);
+        }
+        for (int i = 0; i < local.length; i++) {
+            int node = (y0 + i / tileWidth) * width + x0 + i % tileWidth;
+            if (!seeds[node]) {
+                continue;
+            }
+            double distance = bestMove(node, tile, local);
+            if (distance < local[i]) {
+                local[i] = distance;
+                openList.add(i, distance);
+            }
+        }
+
+        while (!openList.isEmpty()) {
+            int i = openList.poll();
+            int node = (y0 + i / tileWidth) * width + x0 + i % tileWidth;
+            for (int target : targetsOf(node)) {
+                int targetX = target % width, targetY = target / width;
+                // the moves are symmetric, so that the nodes moving to a target are the ones it moves to.
+                for (int directions = moves[target] & 0xff; directions != 0; directions &= directions - 1) {
+                    int direction = Integer.numberOfTrailingZeros(directions);
+                    int x = targetX + Direction.dx(direction) - x0, y = targetY + Direction.dy(direction) - y0;
+                    if (x < 0 || y < 0 || x >= tileWidth || y >= tileHeight
+                            || (y0 + y) * width + x0 + x == goal) {
+                        continue;
+                    }
+                    int j = y * tileWidth + x;
+                    double distance = local[i] + TeleporterIndex.step(direction);
+                    if (distance < local[j]) {
+                        local[j] = distance;
+                        if (openList.contains(j)) {
+                            openList.update(j, distance);
+                        } else {
+                            openList.add(j, distance);
+                        }
+                    }
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @return the shortest distance of a node through its moves, reading the distances of the nodes of the tile from
+     * the local ones.
+     */
+    private double bestMove(int node, int tile, double[] local) {
+        if (node == goal) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int directions = moves[node] & 0xff; directions != 0; directions &= directions - 1) {
+            int direction = Integer.numberOfTrailingZeros(directions);
+            int target = valueOf(node + Direction.dy(direction) * width + Direction.dx(direction));
+            best = Math.min(best, TeleporterIndex.step(direction) + distance(target, tile, local));
+        }
+        return best;
+    }
+
+    private double distance(int node, int tile, double[] local) {
+        if (tileOf(node) != tile) {
+            return distances[node];
+        }
+        int x0 = tile % tilesX * TILE_SIZE, y0 = tile / tilesX * TILE_SIZE;
+        return local[(node / width - y0) * Math.min(TILE_SIZE, width - x0) + node % width - x0];
+    }
+
+    private int[] changedNodes(int tile, double[] local) {
+        int x0 = tile % tilesX * TILE_SIZE, y0 = tile / tilesX * TILE_SIZE;
+        int tileWidth = Math.min(TILE_SIZE, width - x0);
+        int[] changes = new int[local.length];
+        int count = 0;
+        for (int i = 0; i < local.length; i++) {
+            int node = (y0 + i / tileWidth) * width + x0 + i % tileWidth;
+            if (local[i] < distances[node]) {
+                changes[count++] = node;
+            }
+        }
+        return Arrays.copyOf(changes, count);
+    }
+
+    private void commit(int tile, double[] local) {
+        int x0 = tile % tilesX * TILE_SIZE, y0 = tile / tilesX * TILE_SIZE;
+        int tileWidth = Math.min(TILE_SIZE, width - x0);
+        for (int i = 0; i < local.length; i += tileWidth) {
+            int node = (y0 + i / tileWidth) * width + x0;
+            System.arraycopy(local, i, distances, node, tileWidth);
+            Arrays.fill(seeds, node, node + tileWidth, false);
+        }
+    }
+
+    /**
+     * Seed the nodes, outside the specific tile, whose moves lead to the changed distance of a node, and mark their
+     * tiles.
+     */
+    private void markDependents(int node, int tile, boolean[] dirty) {
+        int x = node % width % TILE_SIZE, y = node / width % TILE_SIZE;
+        if (x > 0 && y > 0 && x < TILE_SIZE - 1 && y < TILE_SIZE - 1 && !teleporters.isFinalEnd(node)
+                && tileOf(node) == tile) {
+            // the neighbors of a node inside the tile, the only nodes moving to it, are in the tile as well.
+            return;
+        }
+        for (int target : targetsOf(node)) {
+            for (int neighbor : neighborhood(target)) {
+                int neighborTile = tileOf(neighbor);
+                if (neighborTile != tile) {
+                    seeds[neighbor] = true;
+                    dirty[neighborTile] = true;
+                }
+            }
+        }
+    }
+
+    private void updateDirections(int tile) {
+        int x0 = tile % tilesX * TILE_SIZE, y0 = tile / tilesX * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, width), y1 = Math.min(y0 + TILE_SIZE, height);
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int node = y * width + x;
+                int best = -1;
+                if (node != goal && distances[node] != Double.POSITIVE_INFINITY) {
+                    double bestDistance = Double.POSITIVE_INFINITY;
+                    for (int moves = this.moves[node] & 0xff; moves != 0; moves &= moves - 1) {
+                        int direction = Integer.numberOfTrailingZeros(moves);
+                        int target = valueOf(node + Direction.dy(direction) * width + Direction.dx(direction));
+                        double distance = TeleporterIndex.step(direction) + distances[target];
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = direction;
+                        }
+                    }
+                }
+                directions[node] = (byte) best;
+            }
+        }
+    }
+
+    /**
+     * @return the node whose distance a step on the specific node takes: the final end of a teleporter node other than
+     * the goal node, the node itself otherwise.
+     */
+    private int valueOf(int node) {
+        return node == goal || teleporters.getFinalEnd(node) == -1 ? node : teleporters.getFinalEnd(node);
+    }
+
+    /**
+     * @return the nodes a step on which takes the distance of the specific node, see {@link #valueOf(int)}.
+     */
+    private List<Integer> targetsOf(int node) {
+        List<Integer> ends = teleporters.getTeleportersTo(node);
+        if (ends.isEmpty()) {
+            return valueOf(node) == node ? Collections.singletonList(node) : Collections.emptyList();
+        }
+        List<Integer> targets = new ArrayList<>(ends.size() + 1);
+        if (valueOf(node) == node) {
+            targets.add(node);
+        }
+        for (int teleporter : ends) {
+            if (teleporter != goal) {
+                targets.add(teleporter);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return the node and its neighbors inside the grid.
+     */
+    private List<Integer> neighborhood(int node) {
+        List<Integer> neighbors = new ArrayList<>(9);
+        int x = node % width, y = node / width;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (grid.isInside(x + dx, y + dy)) {
+                    neighbors.add(node + dy * width + dx);
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    private int tileOf(int node) {
+        return node / width / TILE_SIZE * tilesX + node % width / TILE_SIZE;
+    }
+}
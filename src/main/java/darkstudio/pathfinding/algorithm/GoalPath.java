@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Path;
+
+/**
+ * The goal chosen by a {@link MultiGoalFinder} among several ones, and the path to it.
+ */
+public class GoalPath {
+    public static final GoalPath NONE = new GoalPath(-1, Path.EMPTY);
+
+    private final int goal;
+    private final Path path;
+
+    /**
+     * @param goal the position of the chosen goal in the list of goals, or -1 if no goal is reachable.
+     * @param path the path to the chosen goal, including both start and goal positions.
+     */
+    public GoalPath(int goal, Path path) {
+        this.goal = goal;
+        this.path = path;
+    }
+
+    /**
+     * @return the position of the chosen goal in the list of goals, or -1 if no goal is reachable.
+     */
+    public int getGoal() {
+        return goal;
+    }
+
+    /**
+     * @return the path to the chosen goal, including both start and goal positions, or {@link Path#EMPTY} if no goal is
+     * reachable, or the start node is the chosen goal.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return "GoalPath(" + goal + ")" + path;
+    }
+}
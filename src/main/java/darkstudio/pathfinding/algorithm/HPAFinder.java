@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.CompactGrid;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Hierarchical path-finding A* (HPA*). The grid is split into square clusters, and the walkable pairs of nodes across
+ * the borders of two clusters form entrances. Each maximal run of such pairs along a border is crossed by a single
+ * transition in its middle, or by one at each end if it is longer than {@value #SINGLE_TRANSITION_RUN} nodes. With
+ * diagonal movement, the diagonal steps across a border or a corner of the clusters, which no run covers, are
+ * transitions as well. The nodes of the transitions are the nodes of an abstract graph, whose edges are the
+ * transitions themselves and the shortest paths between the nodes of a cluster, found within the cluster by
+ * {@link JPFAlwaysMoveDiagonally} or {@link JPFNeverMoveDiagonally}.
+ * <p/>
+ * A query connects its start and end nodes to the nodes of their clusters, searches the abstract graph with A*, and
+ * refines each edge of the abstract path into nodes by a search within a single cluster. The abstract graph keeps the
+ * connectivity of the grid, so that a query fails only if there is no path at all, while the found paths are usually
+ * a few percent longer than the optimal ones. The expanded nodes of the search context count the abstract nodes.
+ * <p/>
+ * Like {@link JPSPlusFinder}, the finder only serves the grid passed to the constructor. After changing the walkability
+ * of a node, {@link #update(int, int)} rebuilds the cluster of the node, plus the neighbor clusters whose borders with
+ * it changed. Teleporters are not supported. Searches may run in parallel, but not while the finder is updated.
+ */
+public class HPAFinder extends JumpPointFinderBase {
+    static final int SINGLE_TRANSITION_RUN = 6;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+    private final boolean diagonal;
+    private final JumpPointFinderBase pruning;
+    // the transitions across the right border, the bottom border and the bottom-right corner of each cluster, as
+    // pairs of cell indices.
+    private final int[][] verticalTransitions;
+    private final int[][] horizontalTransitions;
+    private final int[][] cornerTransitions;
+    private final Cluster[] clusters;
+    private final ThreadLocal<Local> locals = ThreadLocal.withInitial(Local::new);
+    private volatile int version;
+
+    /**
+     * Build the abstract graph of a grid.
+     *
+     * @param grid the grid to search.
+     * @param clusterSize the width and height of the clusters, in nodes, at least 2.
+     * @param diagonalMovement {@link DiagonalMovement#Never} for 4 directions, {@link DiagonalMovement#TeleportNever}
+     * is not supported, any other value for 8 directions as in {@link JPFAlwaysMoveDiagonally}.
+     * @param options the options of the search.
+     */
+    public HPAFinder(Grid grid, int clusterSize, DiagonalMovement diagonalMovement, Options options) {
+        super(options);
+        if (diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter()) {
+            throw new IllegalArgumentException("Teleporters are not supported by HPA*");
+        }
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Cluster size must be at least 2");
+        }
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        clustersX = (width + clusterSize - 1) / clusterSize;
+        clustersY = (height + clusterSize - 1) / clusterSize;
+        diagonal = diagonalMovement != DiagonalMovement.Never;
+        pruning = diagonal ? new JPFAlwaysMoveDiagonally(options) : new JPFNeverMoveDiagonally(options);
+
+        int count = clustersX * clustersY;
+        verticalTransitions = new int[count][];
+        horizontalTransitions = new int[count][];
+        cornerTransitions = new int[count][];
+        clusters = new Cluster[count];
+        IntStream.range(0, count).parallel().forEach(this::buildTransitions);
+        IntStream.range(0, count).parallel().forEach(cluster -> clusters[cluster] = buildCluster(cluster));
+    }
+
+    /**
+     * @return the grid the abstract graph was built for.
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * @return number of nodes of the abstract graph.
+     */
+    public int getAbstractNodeCount() {
+        return Arrays.stream(clusters).mapToInt(cluster -> cluster.entrances.length).sum();
+    }
+
+    /**
+     * Rebuild the parts of the abstract graph which depend on the walkability of a node, after it changed.
+     *
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @return number of rebuilt clusters.
+     */
+    public int update(int x, int y) {
+        if (!grid.isInside(x, y)) {
+            return 0;
+        }
+        int cx = x / clusterSize, cy = y / clusterSize;
+        int cluster = cy * clustersX + cx;
+        Set<Integer> dirty = new HashSet<>();
+        dirty.add(cluster);
+        // only the borders and corners next to the node may change.
+        boolean left = x % clusterSize == 0 && cx > 0;
+        boolean right = (x + 1) % clusterSize == 0 && cx < clustersX - 1;
+        boolean top = y % clusterSize == 0 && cy > 0;
+        boolean bottom = (y + 1) % clusterSize == 0 && cy < clustersY - 1;
+        if (left) {
+            updateTransitions(verticalTransitions, cluster - 1, dirty, cluster - 1);
+        }
+        if (right) {
+            updateTransitions(verticalTransitions, cluster, dirty, cluster + 1);
+        }
+        if (top) {
+            updateTransitions(horizontalTransitions, cluster - clustersX, dirty, cluster - clustersX);
+        }
+        if (bottom) {
+            updateTransitions(horizontalTransitions, cluster, dirty, cluster + clustersX);
+        }
+        if (diagonal) {
+            if (left && top) {
+                updateTransitions(cornerTransitions, cluster - clustersX - 1, dirty, cluster - clustersX - 1);
+            }
+            if (right && top) {
+                updateTransitions(cornerTransitions, cluster - clustersX, dirty, cluster - clustersX + 1);
+            }
+            if (left && bottom) {
+                updateTransitions(cornerTransitions, cluster - 1, dirty, cluster + clustersX - 1);
+            }
+            if (right && bottom) {
+                updateTransitions(cornerTransitions, cluster, dirty, cluster + clustersX + 1);
+            }
+        }
+        version++;
+        for (int c : dirty) {
+            clusters[c] = buildCluster(c);
+        }
+        return dirty.size();
+    }
+
+    private void updateTransitions(int[][] transitions, int index, Set<Integer> dirty, int neighbor) {
+        int[] old = transitions[index];
+        if (transitions == verticalTransitions) {
+            transitions[index] = buildVerticalTransitions(index);
+        } else if (transitions == horizontalTransitions) {
+            transitions[index] = buildHorizontalTransitions(index);
+        } else {
+            transitions[index] = buildCornerTransitions(index);
+        }
+        if (!Arrays.equals(old, transitions[index])) {
+            dirty.add(neighbor);
+        }
+    }
+
+    @Override
+    public Path findCompactPath(int startX, int startY, int endX, int endY, SearchContext context) {
+        if (context.getGrid() != grid) {
+            throw new IllegalArgumentException("The abstract graph was built for another grid");
+        }
+        context.reset().setEnd(endX, endY);
+        SearchStats stats = context.getStats();
+        long startNanos = stats != null ? System.nanoTime() : 0;
+        int start = startY * width + startX;
+        int end = endY * width + endX;
+        Path path = Path.EMPTY;
+        if (start != end && grid.isWalkableAt(startX, startY) && grid.isWalkableAt(endX, endY)) {
+            Query query = new Query(context, start, end);
+            List<Integer> nodes = query.search();
+            long foundNanos = stats != null ? System.nanoTime() : 0;
+            if (nodes != null) {
+                path = query.refine(nodes);
+            }
+            collectStats(context, startNanos, foundNanos);
+            return path;
+        }
+        collectStats(context, startNanos, stats != null ? System.nanoTime() : 0);
+        return path;
+    }
+
+    @Override
+    protected int findNeighbors(SearchContext context, int x, int y) {
+        return pruning.findNeighbors(context, x, y);
+    }
+
+    @Override
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        return pruning.jump(context, x0, y0, x1, y1);
+    }
+
+    private int clusterOf(int cell) {
+        return (cell / width / clusterSize) * clustersX + cell % width / clusterSize;
+    }
+
+    private void buildTransitions(int cluster) {
+        int cx = cluster % clustersX, cy = cluster / clustersX;
+        if (cx < clustersX - 1) {
+            verticalTransitions[cluster] = buildVerticalTransitions(cluster);
+        }
+        if (cy < clustersY - 1) {
+            horizontalTransitions[cluster] = buildHorizontalTransitions(cluster);
+        }
+        if (diagonal && cx < clustersX - 1 && cy < clustersY - 1) {
+            cornerTransitions[cluster] = buildCornerTransitions(cluster);
+        }
+    }
+
+    private int[] buildVerticalTransitions(int cluster) {
+        int x = (cluster % clustersX + 1) * clusterSize - 1;
+        int y = cluster / clustersX * clusterSize;
+        return buildBorderTransitions(x, y, 0, 1, 1, 0, Math.min(clusterSize, height - y));
+    }
+
+    private int[] buildHorizontalTransitions(int cluster) {
+        int x = cluster % clustersX * clusterSize;
+        int y = (cluster / clustersX + 1) * clusterSize - 1;
+        return buildBorderTransitions(x, y, 1, 0, 0, 1, Math.min(clusterSize, width - x));
+    }
+
+    /**
+     * @param x the x coordinate of the first node of the border, inside the cluster.
+     * @param y the y coordinate of the first node of the border, inside the cluster.
+     * @param stepX the x step along the border.
+     * @param stepY the y step along the border.
+     * @param crossX the x step across the border.
+     * @param crossY the y step across the border.
+     * @param length number of nodes of the border.
+     */
+    private int[] buildBorderTransitions(int x, int y, int stepX, int stepY, int crossX, int crossY, int length) {
+        IntStream.Builder pairs = IntStream.builder();
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && grid.isWalkableAt(x + i * stepX, y + i * stepY)
+                    && grid.isWalkableAt(x + i * stepX + crossX, y + i * stepY + crossY);
+            if (open && runStart == -1) {
+                runStart = i;
+            } else if (!open && runStart != -1) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 > SINGLE_TRANSITION_RUN) {
+                    addPair(pairs, x, y, stepX, stepY, crossX, crossY, runStart, runStart);
+                    addPair(pairs, x, y, stepX, stepY, crossX, crossY, runEnd, runEnd);
+                } else {
+                    int middle = (runStart + runEnd) / 2;
+                    addPair(pairs, x, y, stepX, stepY, crossX, crossY, middle, middle);
+                }
+                runStart = -1;
+            }
+        }
+        if (diagonal) {
+            // a diagonal step across the border is only needed if no run connects its nodes.
+            for (int i = 0; i < length - 1; i++) {
+                boolean inner0 = grid.isWalkableAt(x + i * stepX, y + i * stepY);
+                boolean inner1 = grid.isWalkableAt(x + (i + 1) * stepX, y + (i + 1) * stepY);
+                boolean outer0 = grid.isWalkableAt(x + i * stepX + crossX, y + i * stepY + crossY);
+                boolean outer1 = grid.isWalkableAt(x + (i + 1) * stepX + crossX, y + (i + 1) * stepY + crossY);
+                if (inner0 && outer1 && !outer0 && !inner1) {
+                    addPair(pairs, x, y, stepX, stepY, crossX, crossY, i, i + 1);
+                }
+                if (inner1 && outer0 && !outer1 && !inner0) {
+                    addPair(pairs, x, y, stepX, stepY, crossX, crossY, i + 1, i);
+                }
+            }
+        }
+        return pairs.build().toArray();
+    }
+
+    private void addPair(IntStream.Builder pairs, int x, int y, int stepX, int stepY, int crossX, int crossY,
+                         int inner, int outer) {
+        pairs.add((y + inner * stepY) * width + x + inner * stepX);
+        pairs.add((y + outer * stepY + crossY) * width + x + outer * stepX + crossX);
+    }
+
+    /**
+     * The diagonal steps across the bottom-right corner of a cluster, from the cluster and from its right neighbor.
+     */
+    private int[] buildCornerTransitions(int cluster) {
+        int x = (cluster % clustersX + 1) * clusterSize;
+        int y = (cluster / clustersX + 1) * clusterSize;
+        IntStream.Builder pairs = IntStream.builder();
+        if (grid.isWalkableAt(x - 1, y - 1) && grid.isWalkableAt(x, y)) {
+            pairs.add((y - 1) * width + x - 1);
+            pairs.add(y * width + x);
+        }
+        if (grid.isWalkableAt(x, y - 1) && grid.isWalkableAt(x - 1, y)) {
+            pairs.add((y - 1) * width + x);
+            pairs.add(y * width + x - 1);
+        }
+        return pairs.build().toArray();
+    }
+
+    private Cluster buildCluster(int cluster) {
+        int cx = cluster % clustersX, cy = cluster / clustersX;
+        TreeMap<Integer, List<Integer>> partners = new TreeMap<>();
+        for (int[] pairs : new int[][]{
+                verticalTransitions[cluster], horizontalTransitions[cluster], cornerTransitions[cluster],
+                cx > 0 ? verticalTransitions[cluster - 1] : null,
+                cy > 0 ? horizontalTransitions[cluster - clustersX] : null,
+                cx > 0 ? cornerTransitions[cluster - 1] : null,
+                cy > 0 ? cornerTransitions[cluster - clustersX] : null,
+                cx > 0 && cy > 0 ? cornerTransitions[cluster - clustersX - 1] : null}) {
+            if (pairs == null) {
+                continue;
+            }
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (clusterOf(pairs[i]) == cluster) {
+                    partners.computeIfAbsent(pairs[i], cell -> new ArrayList<>()).add(pairs[i + 1]);
+                }
+                if (clusterOf(pairs[i + 1]) == cluster) {
+                    partners.computeIfAbsent(pairs[i + 1], cell -> new ArrayList<>()).add(pairs[i]);
+                }
+            }
+        }
+
+        int n = partners.size();
+        int[] entrances = new int[n];
+        int[][] entrancePartners = new int[n][];
+        int i = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : partners.entrySet()) {
+            entrances[i] = entry.getKey();
+            entrancePartners[i++] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+        }
+        double[] distances = new double[n * n];
+        Local local = locals.get();
+        for (i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                Path path = local.findPath(cluster, entrances[i], entrances[j]);
+                distances[i * n + j] = distances[j * n + i] = path.isEmpty()
+                        ? Double.POSITIVE_INFINITY : Util.pathLength(path);
+            }
+        }
+        return new Cluster(entrances, entrancePartners, distances);
+    }
+
+    /**
+     * The nodes of the abstract graph within a cluster, sorted by cell index, with the nodes of the other clusters
+     * which they are linked to by transitions, and the lengths of the shortest paths between them.
+     */
+    private static final class Cluster {
+        private final int[] entrances;
+        private final int[][] partners;
+        private final double[] distances;
+
+        Cluster(int[] entrances, int[][] partners, double[] distances) {
+            this.entrances = entrances;
+            this.partners = partners;
+            this.distances = distances;
+        }
+    }
+
+    /**
+     * A grid of the size of a cluster, holding a copy of the nodes of one cluster, to search within the cluster.
+     */
+    private final class Local {
+        private final CompactGrid localGrid = new CompactGrid(clusterSize, clusterSize);
+        private final SearchContext context = new SearchContext(localGrid);
+        private int cluster = -1;
+        private int localVersion;
+
+        /**
+         * @return the path between two nodes of a cluster, which stays within the cluster, or {@link Path#EMPTY}.
+         */
+        Path findPath(int cluster, int from, int to) {
+            int x0 = cluster % clustersX * clusterSize;
+            int y0 = cluster / clustersX * clusterSize;
+            if (cluster != this.cluster || localVersion != version) {
+                for (int y = 0; y < clusterSize; y++) {
+                    for (int x = 0; x < clusterSize; x++) {
+                        localGrid.setWalkableAt(x, y, grid.isWalkableAt(x0 + x, y0 + y));
+                    }
+                }
+                this.cluster = cluster;
+                localVersion = version;
+            }
+            Path path = pruning.findCompactPath(from % width - x0, from / width - y0, to % width - x0,
+                    to / width - y0, context);
+            Path.Builder builder = new Path.Builder(path.size());
+            for (int i = 0; i < path.size(); i++) {
+                builder.add(path.getX(i) + x0, path.getY(i) + y0);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * The state of a query: the abstract graph plus the start and end nodes.
+     */
+    private final class Query {
+        private static final int END = -1;
+
+        private final SearchContext context;
+        private final int start;
+        private final int end;
+        private final int startCluster;
+        private final int endCluster;
+        private final Local local = locals.get();
+        private final Map<Long, Path> paths = new HashMap<>();
+
+        Query(SearchContext context, int start, int end) {
+            this.context = context;
+            this.start = start;
+            this.end = end;
+            startCluster = clusterOf(start);
+            endCluster = clusterOf(end);
+        }
+
+        /**
+         * @return the nodes of the abstract path from the start node to the end node, or {@code null}.
+         */
+        List<Integer> search() {
+            Map<Integer, Double> gScores = new HashMap<>();
+            Map<Integer, Integer> parents = new HashMap<>();
+            Set<Integer> closed = new HashSet<>();
+            PriorityQueue<double[]> openList = new PriorityQueue<>((a, b) -> Double.compare(a[1], b[1]));
+            gScores.put(start, 0.0);
+            openList.add(new double[]{start, 0});
+
+            while (!openList.isEmpty()) {
+                int node = (int) openList.poll()[0];
+                if (!closed.add(node)) {
+                    continue;
+                }
+                context.countExpandedNode();
+                if (node == END) {
+                    List<Integer> nodes = new ArrayList<>();
+                    for (Integer n = END; n != null; n = parents.get(n)) {
+                        nodes.add(n == END ? end : n);
+                    }
+                    Collections.reverse(nodes);
+                    return nodes;
+                }
+
+                double g = gScores.get(node);
+                if (node == start) {
+                    int[] entrances = clusters[startCluster].entrances;
+                    for (int entrance : entrances) {
+                        relax(node, entrance, g + cost(startCluster, start, entrance), gScores, parents, openList);
+                    }
+                    if (startCluster == endCluster) {
+                        relax(node, END, g + cost(startCluster, start, end), gScores, parents, openList);
+                    }
+                }
+                int cluster = clusterOf(node);
+                Cluster abstractCluster = clusters[cluster];
+                int i = Arrays.binarySearch(abstractCluster.entrances, node);
+                if (i < 0) {
+                    continue;
+                }
+                int n = abstractCluster.entrances.length;
+                for (int j = 0; j < n; j++) {
+                    if (j != i) {
+                        relax(node, abstractCluster.entrances[j], g + abstractCluster.distances[i * n + j], gScores,
+                                parents, openList);
+                    }
+                }
+                for (int partner : abstractCluster.partners[i]) {
+                    relax(node, partner, g + Heuristic.octile(Math.abs(partner % width - node % width),
+                            Math.abs(partner / width - node / width)), gScores, parents, openList);
+                }
+                if (cluster == endCluster) {
+                    relax(node, END, g + cost(endCluster, node, end), gScores, parents, openList);
+                }
+            }
+            return null;
+        }
+
+        private void relax(int parent, int node, double g, Map<Integer, Double> gScores, Map<Integer, Integer> parents,
+                           PriorityQueue<double[]> openList) {
+            if (g == Double.POSITIVE_INFINITY) {
+                return;
+            }
+            Double old = gScores.get(node);
+            if (old == null || g < old) {
+                gScores.put(node, g);
+                parents.put(node, parent);
+                double h = node == END ? 0 : options.heuristic().apply(Math.abs(node % width - context.getEndX()),
+                        Math.abs(node / width - context.getEndY()));
+                openList.add(new double[]{node, g + h});
+            }
+        }
+
+        /**
+         * @return the length of the path between two nodes within a cluster.
+         */
+        private double cost(int cluster, int from, int to) {
+            if (from == to) {
+                return 0;
+            }
+            Path path = path(cluster, from, to);
+            return path.isEmpty() ? Double.POSITIVE_INFINITY : Util.pathLength(path);
+        }
+
+        private Path path(int cluster, int from, int to) {
+            return paths.computeIfAbsent((long) from << 32 | to, key -> local.findPath(cluster, from, to));
+        }
+
+        /**
+         * @return the nodes of the abstract path, joined by the transitions and the paths within the clusters.
+         */
+        Path refine(List<Integer> nodes) {
+            Path.Builder builder = new Path.Builder();
+            builder.add(start % width, start / width);
+            for (int k = 1; k < nodes.size(); k++) {
+                int from = nodes.get(k - 1), to = nodes.get(k);
+                int cluster = clusterOf(from);
+                if (from == to) {
+                    continue;
+                }
+                if (cluster != clusterOf(to)) { // a transition
+                    builder.add(to % width, to / width);
+                    continue;
+                }
+                Path path = path(cluster, from, to);
+                for (int i = 1; i < path.size(); i++) {
+                    builder.add(path.getX(i), path.getY(i));
+                }
+            }
+            return builder.build();
+        }
+    }
+}
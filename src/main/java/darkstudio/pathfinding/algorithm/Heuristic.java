@@ -58,8 +58,11 @@ public class Heuristic {
         return Math.max(dx, dy);
     }
 
+    /**
+     * A heuristic function of the differences in x and y, e.g. {@code Heuristic::octile}.
+     */
     @FunctionalInterface
-    interface HeuristicMethod {
+    public interface HeuristicMethod {
         double apply(int dx, int dy);
     }
 }
@@ -9,29 +9,35 @@
 
 package darkstudio.pathfinding.algorithm;
 
-import darkstudio.pathfinding.model.Node;
-
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import darkstudio.pathfinding.model.Grid;
 
 public class JPFAlwaysMoveDiagonally extends JumpPointFinderBase {
+    private final EndTest endTest;
+
     public JPFAlwaysMoveDiagonally(Options options) {
+        this(options, EndTest.END);
+    }
+
+    /**
+     * @param options the options of the search.
+     * @param endTest where the jumps stop as at the end node.
+     */
+    JPFAlwaysMoveDiagonally(Options options, EndTest endTest) {
         super(options);
+        this.endTest = endTest;
     }
 
     @Override
-    protected List<Point> findNeighbors(Node node) {
-        Node parent = node.getParent();
-        int x = node.getX(), y = node.getY();
+    protected int findNeighbors(SearchContext context, int x, int y) {
+        Grid grid = context.getGrid();
+        int parent = context.getParent(context.indexOf(x, y));
         int px, py, dx, dy;
-        List<Point> neighbors = new ArrayList<>();
+        int neighbors = 0;
 
         // Directed pruning: can ignore most neighbors, unless forced.
-        if (parent != null) {
-            px = parent.getX();
-            py = parent.getY();
+        if (parent != -1) {
+            px = context.getX(parent);
+            py = context.getY(parent);
             // get the normalized direction of travel
             dx = (x - px) / Math.max(Math.abs(x - px), 1);
             dy = (y - py) / Math.max(Math.abs(y - py), 1);
@@ -39,90 +45,99 @@ public class JPFAlwaysMoveDiagonally extends JumpPointFinderBase {
             // search diagonally
             if (dx != 0 && dy != 0) {
                 if (grid.isWalkableAt(x, y + dy)) {
-                    neighbors.add(new Point(x, y + dy));
+                    neighbors |= Direction.bit(0, dy);
                 }
                 if (grid.isWalkableAt(x + dx, y)) {
-                    neighbors.add(new Point(x + dx, y));
+                    neighbors |= Direction.bit(dx, 0);
                 }
                 if (grid.isWalkableAt(x + dx, y + dy)) {
-                    neighbors.add(new Point(x + dx, y + dy));
+                    neighbors |= Direction.bit(dx, dy);
                 }
                 if (!grid.isWalkableAt(x - dx, y)) {
-                    neighbors.add(new Point(x - dx, y + dy));
+                    neighbors |= Direction.bit(-dx, dy);
                 }
                 if (!grid.isWalkableAt(x, y - dy)) {
-                    neighbors.add(new Point(x + dx, y - dy));
+                    neighbors |= Direction.bit(dx, -dy);
                 }
             } else if (dx == 0) { // search horizontally
                 if (grid.isWalkableAt(x, y + dy)) {
-                    neighbors.add(new Point(x, y + dy));
+                    neighbors |= Direction.bit(0, dy);
                 }
                 if (!grid.isWalkableAt(x + 1, y)) {
-                    neighbors.add(new Point(x + 1, y + dy));
+                    neighbors |= Direction.bit(1, dy);
                 }
                 if (!grid.isWalkableAt(x - 1, y)) {
-                    neighbors.add(new Point(x - 1, y + dy));
+                    neighbors |= Direction.bit(-1, dy);
                 }
             } else {  // search vertically
                 if (grid.isWalkableAt(x + dx, y)) {
-                    neighbors.add(new Point(x + dx, y));
+                    neighbors |= Direction.bit(dx, 0);
                 }
                 if (!grid.isWalkableAt(x, y + 1)) {
-                    neighbors.add(new Point(x + dx, y + 1));
+                    neighbors |= Direction.bit(dx, 1);
                 }
                 if (!grid.isWalkableAt(x, y - 1)) {
-                    neighbors.add(new Point(x + dx, y - 1));
+                    neighbors |= Direction.bit(dx, -1);
                 }
             }
         } else { // return all neighbors
-            Set<Node> neighborNodes = grid.getNeighbors(node, DiagonalMovement.Always);
-            for (Node neighborNode : neighborNodes) {
-                neighbors.add(new Point(neighborNode.getX(), neighborNode.getY()));
-            }
+            neighbors = grid.getNeighborDirections(x, y, DiagonalMovement.Always);
         }
 
         return neighbors;
     }
 
     @Override
-    protected Point jump(int x0, int y0, int x1, int y1) {
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        Grid grid = context.getGrid();
+        SearchStats stats = context.getStats();
         int dx = x0 - x1, dy = y0 - y1;
-
-        if (!grid.isWalkableAt(x0, y0)) {
-            return null;
-        }
-
-        if (options.trackJumpRecursion()) {
-            grid.getNodeAt(x0, y0).setTested(true);
-        }
-
-        if (grid.getNodeAt(x0, y0) == endNode) {
-            return new Point(x0, y0);
+        if (stats != null) {
+            stats.jumpCalls++;
         }
 
-        // check for forced neighbors
-        // along the diagonal
-        if (dx != 0 && dy != 0) {
-            if ((grid.isWalkableAt(x1, y0 + dy) && !grid.isWalkableAt(x1, y0)) ||
-                    (grid.isWalkableAt(x0 + dx, y1) && !grid.isWalkableAt(x0, y1))) {
-                return new Point(x0, y0);
+        while (grid.isWalkableAt(x0, y0)) {
+            if (stats != null) {
+                stats.scannedCells++;
             }
-            // when moving diagonally, must check for vertical/horizontal jump points
-            if (jump(x0 + dx, y0, x0, y0) != null || jump(x0, y0 + dy, x0, y0) != null) {
-                return new Point(x0, y0);
+            if (options.trackJumpRecursion()) {
+                context.setTested(context.indexOf(x0, y0), true);
             }
-        } else if (dx != 0) { // horizontally
-            if ((grid.isWalkableAt(x0 + dx, y0 + 1) && !grid.isWalkableAt(x0, y0 + 1)) ||
-                    (grid.isWalkableAt(x0 + dx, y0 - 1) && !grid.isWalkableAt(x0, y0 - 1))) {
-                return new Point(x0, y0);
+
+            if (endTest.isEnd(context, x0, y0)) {
+                return context.indexOf(x0, y0);
             }
-        } else { // vertically
-            if ((grid.isWalkableAt(x0 + 1, y0 + dy) && !grid.isWalkableAt(x0 + 1, y0)) ||
-                    (grid.isWalkableAt(x0 - 1, y0 + dy) && !grid.isWalkableAt(x0 - 1, y0))) {
-                return new Point(x0, y0);
+
+            // check for forced neighbors
+            // along the diagonal
+            if (dx != 0 && dy != 0) {
+                if ((grid.isWalkableAt(x1, y0 + dy) && !grid.isWalkableAt(x1, y0)) ||
+                        (grid.isWalkableAt(x0 + dx, y1) && !grid.isWalkableAt(x0, y1))) {
+                    return context.indexOf(x0, y0);
+                }
+                // when moving diagonally, must check for vertical/horizontal jump points. These scans are straight ones,
+                // which never nest any further.
+                if (jump(context, x0 + dx, y0, x0, y0) != -1 || jump(context, x0, y0 + dy, x0, y0) != -1) {
+                    return context.indexOf(x0, y0);
+                }
+            } else if (dx != 0) { // horizontally
+                if ((grid.isWalkableAt(x0 + dx, y0 + 1) && !grid.isWalkableAt(x0, y0 + 1)) ||
+                        (grid.isWalkableAt(x0 + dx, y0 - 1) && !grid.isWalkableAt(x0, y0 - 1))) {
+                    return context.indexOf(x0, y0);
+                }
+            } else { // vertically
+                if ((grid.isWalkableAt(x0 + 1, y0 + dy) && !grid.isWalkableAt(x0 + 1, y0)) ||
+                        (grid.isWalkableAt(x0 - 1, y0 + dy) && !grid.isWalkableAt(x0 - 1, y0))) {
+                    return context.indexOf(x0, y0);
+                }
             }
+
+            x1 = x0;
+            y1 = y0;
+            x0 += dx;
+            y0 += dy;
         }
 
-        return jump(x0 + dx, y0 + dy, x0, y0);
+        return -1;
     }
 }
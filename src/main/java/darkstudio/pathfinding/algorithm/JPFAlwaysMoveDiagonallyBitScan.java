@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.BitGrid;
+import darkstudio.pathfinding.model.Grid;
+
+/**
+ * Same as {@link JPFAlwaysMoveDiagonally}, but scans horizontally and vertically 64 nodes at a time when the grid is a
+ * {@link BitGrid}. Falls back to the cell-by-cell scans on other grids, or when jump recursion is tracked.
+ */
+public class JPFAlwaysMoveDiagonallyBitScan extends JPFAlwaysMoveDiagonally {
+    public JPFAlwaysMoveDiagonallyBitScan(Options options) {
+        super(options);
+    }
+
+    @Override
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        Grid grid = context.getGrid();
+        int dx = x0 - x1, dy = y0 - y1;
+        if ((dx == 0 || dy == 0) && grid instanceof BitGrid && !options.trackJumpRecursion()) {
+            return BitScanner.jump(context, (BitGrid) grid, x0, y0, dx, dy, true);
+        }
+        return super.jump(context, x0, y0, x1, y1);
+    }
+}
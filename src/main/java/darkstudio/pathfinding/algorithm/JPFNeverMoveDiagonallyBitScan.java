@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.BitGrid;
+import darkstudio.pathfinding.model.Grid;
+
+/**
+ * Same as {@link JPFNeverMoveDiagonally}, but scans horizontally 64 nodes at a time when the grid is a
+ * {@link BitGrid}, which also speeds up the horizontal checks made on every step of a vertical scan. Falls back to the
+ * cell-by-cell scans on other grids, or when jump recursion is tracked.
+ */
+public class JPFNeverMoveDiagonallyBitScan extends JPFNeverMoveDiagonally {
+    public JPFNeverMoveDiagonallyBitScan(Options options) {
+        super(options);
+    }
+
+    @Override
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        Grid grid = context.getGrid();
+        if (y0 == y1 && grid instanceof BitGrid && !options.trackJumpRecursion()) {
+            return BitScanner.jump(context, (BitGrid) grid, x0, y0, x0 - x1, 0, false);
+        }
+        return super.jump(context, x0, y0, x1, y1);
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+
+import java.util.stream.IntStream;
+
+/**
+ * Jump Point Search with preprocessing (JPS+). For every node and every direction of movement, a table holds how far
+ * the jump in that direction goes: a positive entry is the distance to the next jump point, an entry {@code <= 0} is
+ * the negated number of walkable nodes before a blocked one. The jumps of a query thus become table lookups, plus a
+ * check whether the end node lies on the way, and the found paths are the same as {@link JPFAlwaysMoveDiagonally} or
+ * {@link JPFNeverMoveDiagonally} would find.
+ * <p/>
+ * The tables are built once, in parallel, for the grid passed to the constructor, and reflect the walkability of the
+ * grid at that time: the finder only serves that grid and must be rebuilt when the grid changes. Teleporters are not
+ * supported. The finder keeps no state of a search, so it can be shared by many threads like the other finders.
+ */
+public class JPSPlusFinder extends JumpPointFinderBase {
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final boolean diagonal;
+    private final JumpPointFinderBase pruning;
+    private final int[][] distances;
+    private final long buildNanos;
+
+    /**
+     * Build the jump tables of a grid.
+     *
+     * @param grid the grid to search.
+     * @param diagonalMovement {@link DiagonalMovement#Never} for 4 directions, {@link DiagonalMovement#TeleportNever}
+     * is not supported, any other value for 8 directions as in {@link JPFAlwaysMoveDiagonally}.
+     * @param options the options of the search.
+     */
+    public JPSPlusFinder(Grid grid, DiagonalMovement diagonalMovement, Options options) {
+        this(grid, diagonalMovement, options, null);
+    }
+
+    /**
+     * Use jump tables built before for the same walkability of the grid, e.g. restored from a snapshot of the grid,
+     * instead of building them.
+     *
+     * @param grid the grid to search.
+     * @param diagonalMovement {@link DiagonalMovement#Never} for 4 directions, {@link DiagonalMovement#TeleportNever}
+     * is not supported, any other value for 8 directions as in {@link JPFAlwaysMoveDiagonally}.
+     * @param options the options of the search.
+     * @param tables the jump tables as returned by {@link #getTables()}, {@code null} to build them.
+     * @throws IllegalArgumentException if the tables do not fit the grid and the diagonal movement.
+     */
+    public JPSPlusFinder(Grid grid, DiagonalMovement diagonalMovement, Options options, int[][] tables) {
+        super(options);
+        if (diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter()) {
+            throw new IllegalArgumentException("Teleporters are not supported by JPS+");
+        }
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        diagonal = diagonalMovement != DiagonalMovement.Never;
+        pruning = diagonal ? new JPFAlwaysMoveDiagonally(options) : new JPFNeverMoveDiagonally(options);
+        if (tables != null) {
+            if (tables.length != (diagonal ? 8 : 4)) {
+                throw new IllegalArgumentException("The jump tables do not fit the grid");
+            }
+            for (int[] table : tables) {
+                if (table == null || table.length != width * height) {
+                    throw new IllegalArgumentException("The jump tables do not fit the grid");
+                }
+            }
+            distances = tables;
+            buildNanos = 0;
+            return;
+        }
+        distances = new int[diagonal ? 8 : 4][width * height];
+
+        long start = System.nanoTime();
+        build();
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * @return the grid the tables were built for.
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return the jump tables, one per direction of movement, indexed by {@code y * width + x}. They are not copied,
+     * and must not be modified.
+     */
+    public int[][] getTables() {
+        return distances;
+    }
+
+    /**
+     * @return how long building the tables took, in nanoseconds, 0 if they were not built by this finder.
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * @return the memory used by the tables, in bytes, without the headers of the arrays.
+     */
+    public long getTableBytes() {
+        return (long) distances.length * width * height * Integer.BYTES;
+    }
+
+    @Override
+    public Path findCompactPath(int startX, int startY, int endX, int endY, SearchContext context) {
+        if (context.getGrid() != grid) {
+            throw new IllegalArgumentException("The jump tables were built for another grid");
+        }
+        return super.findCompactPath(startX, startY, endX, endY, context);
+    }
+
+    @Override
+    protected int findNeighbors(SearchContext context, int x, int y) {
+        return pruning.findNeighbors(context, x, y);
+    }
+
+    @Override
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        int dx = x0 - x1, dy = y0 - y1;
+        SearchStats stats = context.getStats();
+        if (stats != null) {
+            stats.jumpCalls++;
+        }
+        int entry = distances[Direction.of(dx, dy)][y1 * width + x1];
+        int reach = Math.abs(entry);
+        int endX = context.getEndX(), endY = context.getEndY();
+
+        if (dy == 0 || dx == 0 && diagonal) { // straight, the end node is a jump point if it lies within reach
+            int k = dy == 0 ? (endY == y1 ? (endX - x1) * dx : 0) : (endX == x1 ? (endY - y1) * dy : 0);
+            if (k > 0 && k <= reach) {
+                return context.getEnd();
+            }
+        } else { // diagonally, or vertically without diagonal movement
+            // a node on the way is a jump point as well if the end node can be reached straight from it.
+            int k = dy != 0 ? (endY - y1) * dy : 0;
+            if (k <= 0 || k > reach || !reachesEnd(x1 + dx * k, y1 + dy * k, endX, dx != 0 ? dx : endX - x1, true)) {
+                k = Integer.MAX_VALUE;
+            }
+            if (dx != 0) {
+                int kx = (endX - x1) * dx;
+                if (kx > 0 && kx < k && kx <= reach && reachesEnd(x1 + dx * kx, y1 + dy * kx, endY, dy, false)) {
+                    k = kx;
+                }
+            }
+            if (k != Integer.MAX_VALUE) {
+                return context.indexOf(x1 + dx * k, y1 + dy * k);
+            }
+        }
+
+        return entry > 0 ? context.indexOf(x1 + dx * entry, y1 + dy * entry) : -1;
+    }
+
+    /**
+     * Whether a straight scan from (x, y), which lies in the row (or column) of the end node, reaches the end node.
+     *
+     * @param x x coordinate of the node to scan from.
+     * @param y y coordinate of the node to scan from.
+     * @param end the x (or y) coordinate of the end node.
+     * @param towards the direction of the scan, only its sign is used.
+     * @param horizontally {@code true} to scan horizontally, {@code false} vertically.
+     */
+    private boolean reachesEnd(int x, int y, int end, int towards, boolean horizontally) {
+        int delta = end - (horizontally ? x : y);
+        if (delta == 0) {
+            return true;
+        } else if ((delta > 0) != (towards > 0)) {
+            return false;
+        }
+        int step = Integer.signum(towards);
+        int entry = distances[horizontally ? Direction.of(step, 0) : Direction.of(0, step)][y * width + x];
+        // a jump point before the end node makes (x, y) a jump point anyway
+        return entry > 0 || -entry >= Math.abs(delta);
+    }
+
+    private void build() {
+        // rows and columns are independent of each other, and the tables of the directions crossing them only depend
+        // on the straight tables, so every stage is built in parallel.
+        IntStream.range(0, height).parallel().forEach(y -> {
+            buildStraight(Direction.RIGHT, 0, y);
+            buildStraight(Direction.LEFT, width - 1, y);
+        });
+        if (diagonal) {
+            IntStream.range(0, width).parallel().forEach(x -> {
+                buildStraight(Direction.DOWN, x, 0);
+                buildStraight(Direction.UP, x, height - 1);
+            });
+            IntStream.of(Direction.UP_LEFT, Direction.UP_RIGHT, Direction.DOWN_RIGHT, Direction.DOWN_LEFT).parallel()
+                    .forEach(this::buildCrossing);
+        } else {
+            IntStream.of(Direction.UP, Direction.DOWN).parallel().forEach(this::buildCrossing);
+        }
+    }
+
+    /**
+     * Fill the table of a straight direction along one row (or column), starting from the far end of the scan.
+     *
+     * @param dir the direction of the scans.
+     * @param x x coordinate of the first node of the line, in the direction of the scans.
+     * @param y y coordinate of the first node of the line, in the direction of the scans.
+     */
+    private void buildStraight(int dir, int x, int y) {
+        int dx = Direction.dx(dir);
+        int dy = Direction.dy(dir);
+        int[] table = distances[dir];
+        int length = dx != 0 ? width : height;
+        int x0 = x + dx * (length - 1), y0 = y + dy * (length - 1);
+        for (int i = 0; i < length; i++, x0 -= dx, y0 -= dy) {
+            int x1 = x0 + dx, y1 = y0 + dy;
+            int entry;
+            if (!grid.isWalkableAt(x1, y1)) {
+                entry = 0;
+            } else if (isForced(x1, y1, dx, dy)) {
+                entry = 1;
+            } else {
+                entry = next(table[y1 * width + x1]);
+            }
+            table[y0 * width + x0] = entry;
+        }
+    }
+
+    /**
+     * Fill the table of a diagonal direction, or of a vertical direction without diagonal movement, which both depend
+     * on the straight tables of the nodes on the way.
+     *
+     * @param dir the direction of the scans.
+     */
+    private void buildCrossing(int dir) {
+        int dx = Direction.dx(dir);
+        int dy = Direction.dy(dir);
+        int[] table = distances[dir];
+        for (int i = 0; i < height; i++) {
+            int y0 = dy > 0 ? height - 1 - i : i;
+            for (int j = 0; j < width; j++) {
+                int x0 = dx > 0 ? width - 1 - j : j;
+                int x1 = x0 + dx, y1 = y0 + dy;
+                int entry;
+                if (!grid.isWalkableAt(x1, y1)) {
+                    entry = 0;
+                } else if (isForced(x1, y1, dx, dy) || hasStraightJumpPoint(x1, y1, dx, dy)) {
+                    entry = 1;
+                } else {
+                    entry = next(table[y1 * width + x1]);
+                }
+                table[y0 * width + x0] = entry;
+            }
+        }
+    }
+
+    /**
+     * @return whether one of the straight scans, which a diagonal (or vertical without diagonal movement) jump makes
+     * on every node, finds a jump point from (x, y).
+     */
+    private boolean hasStraightJumpPoint(int x, int y, int dx, int dy) {
+        int index = y * width + x;
+        if (dx == 0) {
+            return distances[Direction.RIGHT][index] > 0 || distances[Direction.LEFT][index] > 0;
+        }
+        return distances[Direction.of(dx, 0)][index] > 0 || distances[Direction.of(0, dy)][index] > 0;
+    }
+
+    /**
+     * Whether the walkable node (x, y), reached by moving (dx, dy), has a forced neighbor. Same as the checks of the
+     * jumps of {@link JPFAlwaysMoveDiagonally} and {@link JPFNeverMoveDiagonally}.
+     */
+    private boolean isForced(int x, int y, int dx, int dy) {
+        if (dx != 0 && dy != 0) {
+            return (grid.isWalkableAt(x - dx, y + dy) && !grid.isWalkableAt(x - dx, y)) ||
+                    (grid.isWalkableAt(x + dx, y - dy) && !grid.isWalkableAt(x, y - dy));
+        }
+        if (diagonal) {
+            if (dx != 0) {
+                return (grid.isWalkableAt(x + dx, y + 1) && !grid.isWalkableAt(x, y + 1)) ||
+                        (grid.isWalkableAt(x + dx, y - 1) && !grid.isWalkableAt(x, y - 1));
+            }
+            return (grid.isWalkableAt(x + 1, y + dy) && !grid.isWalkableAt(x + 1, y)) ||
+                    (grid.isWalkableAt(x - 1, y + dy) && !grid.isWalkableAt(x - 1, y));
+        }
+        if (dx != 0) {
+            return (grid.isWalkableAt(x, y - 1) && !grid.isWalkableAt(x - dx, y - 1)) ||
+                    (grid.isWalkableAt(x, y + 1) && !grid.isWalkableAt(x - dx, y + 1));
+        }
+        return (grid.isWalkableAt(x - 1, y) && !grid.isWalkableAt(x - 1, y - dy)) ||
+                (grid.isWalkableAt(x + 1, y) && !grid.isWalkableAt(x + 1, y - dy));
+    }
+
+    /**
+     * @return the entry of a node, given the entry of the next node on the way which is walkable but not a jump point.
+     */
+    private static int next(int entry) {
+        return entry > 0 ? entry + 1 : entry - 1;
+    }
+}
@@ -11,21 +11,27 @@ package darkstudio.pathfinding.algorithm;
 
 import darkstudio.pathfinding.model.Grid;
 import darkstudio.pathfinding.model.Node;
+import darkstudio.pathfinding.model.Path;
 import darkstudio.pathfinding.utility.Util;
 
 import java.awt.Point;
-import java.util.Collections;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /**
- * Base class for the Jump Point Search algorithm
+ * Base class for the Jump Point Search algorithm.
+ * <p/>
+ * The search state is kept in a {@link SearchContext}, so that the searched grid is only read and can be shared by
+ * several searches running at the same time. A finder keeps no state of a search either, so one finder can be called
+ * by many threads at the same time, each with its own context, e.g. through a {@link FinderPool}.
+ * <p/>
+ * The overloads taking a {@link Grid} search with the idle contexts kept by the finder, at most one per processor, so
+ * that a query does not allocate the state of every cell of the grid. The idle contexts hold the last searched grids
+ * until {@link #clearContexts()}.
  */
 public abstract class JumpPointFinderBase {
-    protected Options options;
-    private PriorityQueue<Node> openList;
-    protected Grid grid;
-    protected Node endNode;
+    private final ContextPool contexts = new ContextPool(Runtime.getRuntime().availableProcessors());
+
+    protected final Options options;
 
     public JumpPointFinderBase(Options options) {
         this.options = options;
@@ -42,53 +48,216 @@ public abstract class JumpPointFinderBase {
      * @return the path, including both start and end positions.
      */
     public List<Point> findPath(int startX, int startY, int endX, int endY, Grid grid) {
-        Node startNode = grid.getNodeAt(startX, startY);
-        endNode = grid.getNodeAt(endX, endY);
-        Node node;
+        SearchContext context = acquireContext(grid);
+        try {
+            return findPath(startX, startY, endX, endY, context);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Find and return the path as a compact {@link Path}, which does not create an object per point.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param grid the grid to search
+     * @return the path, including both start and end positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path findCompactPath(int startX, int startY, int endX, int endY, Grid grid) {
+        SearchContext context = acquireContext(grid);
+        try {
+            return findCompactPath(startX, startY, endX, endY, context);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Find and return the path, and collect the statistics of the search.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param grid the grid to search
+     * @param stats the statistics to fill, which are reset first.
+     * @return the path, including both start and end positions.
+     */
+    public List<Point> findPath(int startX, int startY, int endX, int endY, Grid grid, SearchStats stats) {
+        SearchContext context = acquireContext(grid);
+        try {
+            return findCompactPath(startX, startY, endX, endY, context, stats).toList();
+        } finally {
+            releaseContext(context);
+        }
+    }
 
-        openList = new PriorityQueue<>();
-        this.grid = grid;
+    /**
+     * Find and return the path, keeping the search state in the specific context, e.g. to reuse the context for the
+     * following searches, or to inspect the tested nodes after the search. The state of the previous search kept in the
+     * context is forgotten.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param context the context of the grid to search.
+     * @return the path, including both start and end positions.
+     */
+    public List<Point> findPath(int startX, int startY, int endX, int endY, SearchContext context) {
+        return findCompactPath(startX, startY, endX, endY, context).toList();
+    }
+
+    /**
+     * Find and return the path as a compact {@link Path}, keeping the search state in the specific context, see
+     * {@link #findPath(int, int, int, int, SearchContext)}.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param context the context of the grid to search.
+     * @return the path, including both start and end positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path findCompactPath(int startX, int startY, int endX, int endY, SearchContext context) {
+        Grid grid = context.reset().getGrid();
+        OpenList openList = context.getOpenList();
+        SearchStats stats = context.getStats();
+        long startNanos = stats != null ? System.nanoTime() : 0;
+        int startNode = context.indexOf(startX, startY);
+        int endNode = context.indexOf(endX, endY);
+        int node;
+        Path path;
+
+        context.setEnd(endX, endY);
 
         // set the `g` and `f` value of the start node to be 0
-        startNode.setGScore(0);
-        startNode.setFScore(0);
+        context.setGScore(startNode, 0);
+        context.setFScore(startNode, 0);
 
         // push the start node into the open list
-        openList.add(startNode);
-        startNode.setOpened(true);
+        openList.add(startNode, 0);
+        context.setOpened(startNode, true);
+        if (stats != null) {
+            stats.push(openList.size());
+        }
 
         if (options.checkTeleporter()) {
             // while the open list is not empty
             while (!openList.isEmpty()) {
                 // pop the position of node which has the minimum `f` value.
                 node = openList.poll();
-                node.setClosed(true);
+                context.setClosed(node, true);
+                context.countExpandedNode();
 
                 if (node == endNode) {
-                    return Util.expandTeleportPath(Util.backtrace(endNode), grid);
+                    long foundNanos = stats != null ? System.nanoTime() : 0;
+                    path = Util.expandTeleportPath(Util.backtrace(context, endNode), grid);
+                    collectStats(context, startNanos, foundNanos);
+                    return path;
                 }
-                identifyTeleportSuccessors(node);
+                identifyTeleportSuccessors(context, node);
             }
         } else {
             // while the open list is not empty
             while (!openList.isEmpty()) {
                 // pop the position of node which has the minimum `f` value.
                 node = openList.poll();
-                node.setClosed(true);
+                context.setClosed(node, true);
+                context.countExpandedNode();
 
                 if (node == endNode) {
-                    return Util.expandPath(Util.backtrace(endNode), grid);
+                    long foundNanos = stats != null ? System.nanoTime() : 0;
+                    path = Util.expandPath(Util.backtrace(context, endNode), grid);
+                    collectStats(context, startNanos, foundNanos);
+                    return path;
                 }
 
-                identifySuccessors(node);
+                identifySuccessors(context, node);
             }
         }
 
         // fail to find the path
-        return Collections.emptyList();
+        collectStats(context, startNanos, stats != null ? System.nanoTime() : 0);
+        return Path.EMPTY;
     }
 
-    private double getJumpNodeGScore(Node node, Node jumpNode, int teleportType, Grid grid) {
+    /**
+     * Find and return the path as a compact {@link Path}, keeping the search state in the specific context, and collect
+     * the statistics of the search, see {@link SearchStats}.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param context the context of the grid to search.
+     * @param stats the statistics to fill, which are reset first.
+     * @return the path, including both start and end positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path findCompactPath(int startX, int startY, int endX, int endY, SearchContext context,
+                                SearchStats stats) {
+        context.setStats(stats.reset());
+        try {
+            return findCompactPath(startX, startY, endX, endY, context);
+        } finally {
+            context.setStats(null);
+        }
+    }
+
+    /**
+     * Take an idle context of the finder for the overloads taking a {@link Grid}, or create a new one if there is none.
+     *
+     * @param grid the grid to search.
+     * @return the context ready for searching the grid, which must be given back by
+     * {@link #releaseContext(SearchContext)}.
+     */
+    protected SearchContext acquireContext(Grid grid) {
+        return contexts.acquire(grid);
+    }
+
+    /**
+     * Give back a context taken by {@link #acquireContext(Grid)}.
+     *
+     * @param context the context to give back.
+     */
+    protected void releaseContext(SearchContext context) {
+        contexts.release(context);
+    }
+
+    /**
+     * Drop the idle contexts kept for the overloads taking a {@link Grid}, with the grids and the arrays they hold.
+     */
+    public void clearContexts() {
+        contexts.clear();
+    }
+
+    /**
+     * @return number of the idle contexts kept for the overloads taking a {@link Grid}.
+     */
+    public int idleContextCount() {
+        return contexts.idleCount();
+    }
+
+    /**
+     * Record the totals of the search, if it collects statistics.
+     *
+     * @param context the state of the search.
+     * @param startNanos when the search started.
+     * @param foundNanos when the search ended, i.e. before the path is built.
+     */
+    protected static void collectStats(SearchContext context, long startNanos, long foundNanos) {
+        SearchStats stats = context.getStats();
+        if (stats != null) {
+            stats.expandedNodes = context.getExpandedNodes();
+            stats.searchNanos = foundNanos - startNanos;
+            stats.expansionNanos = System.nanoTime() - foundNanos;
+        }
+    }
+
+    private double getJumpNodeGScore(SearchContext context, int node, int jumpNode, int teleportType) {
         int dx, dy;
         Node jumpEnd;
         switch (teleportType) {
@@ -96,7 +265,7 @@ public abstract class JumpPointFinderBase {
             case Grid.TELEPORT_TUNNEL_TO_TUNNEL:
             case Grid.TELEPORT_TUNNEL_TO_WORMHOLE:
             case Grid.TELEPORT_WORMHOLE_TO_WORMHOLE:
-                return node.getGScore();
+                return context.getGScore(node);
             case Grid.TELEPORT_TUNNEL_NORMAL:
             case Grid.TELEPORT_TUNNEL_TUNNEL:
             case Grid.TELEPORT_TUNNEL_OT_TUNNEL:
@@ -105,32 +274,33 @@ public abstract class JumpPointFinderBase {
             case Grid.TELEPORT_WORMHOLE_TUNNEL:
             case Grid.TELEPORT_WORMHOLE_OT_TUNNEL:
             case Grid.TELEPORT_WORMHOLE_WORMHOLE:
-                jumpEnd = grid.getFinalEnd(node);
-                dx = Math.abs(jumpNode.getX() - jumpEnd.getX());
-                dy = Math.abs(jumpNode.getY() - jumpEnd.getY());
-                return node.getGScore() + Heuristic.octile(dx, dy);
+                jumpEnd = context.getGrid().getFinalEnd(context.getX(node), context.getY(node));
+                dx = Math.abs(context.getX(jumpNode) - jumpEnd.getX());
+                dy = Math.abs(context.getY(jumpNode) - jumpEnd.getY());
+                return context.getGScore(node) + Heuristic.octile(dx, dy);
             case Grid.TELEPORT_NORMAL_NORMAL:
             case Grid.TELEPORT_NORMAL_TUNNEL:
             case Grid.TELEPORT_NORMAL_OT_TUNNEL:
             case Grid.TELEPORT_NORMAL_WORMHOLE:
             default:
-                dx = Math.abs(jumpNode.getX() - node.getX());
-                dy = Math.abs(jumpNode.getY() - node.getY());
-                return node.getGScore() + Heuristic.octile(dx, dy);
+                dx = Math.abs(context.getX(jumpNode) - context.getX(node));
+                dy = Math.abs(context.getY(jumpNode) - context.getY(node));
+                return context.getGScore(node) + Heuristic.octile(dx, dy);
         }
     }
 
-    private void setJumpNodeHScore(Node node, Node jumpNode, int teleportType, Grid grid) {
+    private void setJumpNodeHScore(SearchContext context, int node, int jumpNode, int teleportType) {
         int dx, dy;
-        Node jumpEnd;
+        int jumpEnd;
+        Node jumpEndNode;
         switch (teleportType) {
             case Grid.TELEPORT_NORMAL_NORMAL:
             case Grid.TELEPORT_TUNNEL_NORMAL:
             case Grid.TELEPORT_TUNNEL_TO_NORMAL:
             case Grid.TELEPORT_WORMHOLE_NORMAL:
-                dx = Math.abs(jumpNode.getX() - endNode.getX());
-                dy = Math.abs(jumpNode.getY() - endNode.getY());
-                jumpNode.setHScore(options.heuristic().apply(dx, dy));
+                dx = Math.abs(context.getX(jumpNode) - context.getEndX());
+                dy = Math.abs(context.getY(jumpNode) - context.getEndY());
+                context.setHScore(jumpNode, options.heuristic().apply(dx, dy));
                 break;
             case Grid.TELEPORT_NORMAL_TUNNEL:
             case Grid.TELEPORT_NORMAL_WORMHOLE:
@@ -138,30 +308,32 @@ public abstract class JumpPointFinderBase {
             case Grid.TELEPORT_TUNNEL_WORMHOLE:
             case Grid.TELEPORT_WORMHOLE_TUNNEL:
             case Grid.TELEPORT_WORMHOLE_WORMHOLE:
-                jumpEnd = grid.getFinalEnd(jumpNode);
-                if (jumpEnd.getHScore() == null) {
-                    dx = Math.abs(jumpEnd.getX() - endNode.getX());
-                    dy = Math.abs(jumpEnd.getY() - endNode.getY());
-                    jumpEnd.setHScore(options.heuristic().apply(dx, dy));
+                jumpEndNode = context.getGrid().getFinalEnd(context.getX(jumpNode), context.getY(jumpNode));
+                jumpEnd = context.indexOf(jumpEndNode.getX(), jumpEndNode.getY());
+                if (!context.hasHScore(jumpEnd)) {
+                    dx = Math.abs(jumpEndNode.getX() - context.getEndX());
+                    dy = Math.abs(jumpEndNode.getY() - context.getEndY());
+                    context.setHScore(jumpEnd, options.heuristic().apply(dx, dy));
                 }
-                jumpNode.setHScore(jumpEnd.getHScore());
+                context.setHScore(jumpNode, context.getHScore(jumpEnd));
                 break;
             case Grid.TELEPORT_NORMAL_OT_TUNNEL:
             case Grid.TELEPORT_TUNNEL_OT_TUNNEL:
             case Grid.TELEPORT_TUNNEL_TO_TUNNEL:
             case Grid.TELEPORT_TUNNEL_TO_WORMHOLE:
             case Grid.TELEPORT_WORMHOLE_OT_TUNNEL:
-                jumpNode.setHScore(node.getHScore());
+                context.setHScore(jumpNode, context.getHScore(node));
                 break;
             case Grid.TELEPORT_WORMHOLE_TO_WORMHOLE:
-                dx = Math.abs(node.getX() - endNode.getX());
-                dy = Math.abs(node.getY() - endNode.getY());
-                jumpNode.setHScore(options.heuristic().apply(dx, dy));
+                dx = Math.abs(context.getX(node) - context.getEndX());
+                dy = Math.abs(context.getY(node) - context.getEndY());
+                context.setHScore(jumpNode, options.heuristic().apply(dx, dy));
                 break;
         }
     }
 
-    private void setJumpNodeParent(Node node, Node jumpNode, int teleportType, Grid grid) {
+    private void setJumpNodeParent(SearchContext context, int node, int jumpNode, int teleportType) {
+        Node jumpEnd;
         switch (teleportType) {
             case Grid.TELEPORT_NORMAL_NORMAL:
             case Grid.TELEPORT_NORMAL_TUNNEL:
@@ -171,7 +343,7 @@ public abstract class JumpPointFinderBase {
             case Grid.TELEPORT_TUNNEL_TO_TUNNEL:
             case Grid.TELEPORT_TUNNEL_TO_WORMHOLE:
             case Grid.TELEPORT_WORMHOLE_TO_WORMHOLE:
-                jumpNode.setParent(node);
+                context.setParent(jumpNode, node);
                 break;
             case Grid.TELEPORT_TUNNEL_NORMAL:
             case Grid.TELEPORT_TUNNEL_TUNNEL:
@@ -181,7 +353,8 @@ public abstract class JumpPointFinderBase {
             case Grid.TELEPORT_WORMHOLE_OT_TUNNEL:
             case Grid.TELEPORT_WORMHOLE_TUNNEL:
             case Grid.TELEPORT_WORMHOLE_WORMHOLE:
-                jumpNode.setParent(grid.getFinalEnd(node));
+                jumpEnd = context.getGrid().getFinalEnd(context.getX(node), context.getY(node));
+                context.setParent(jumpNode, context.indexOf(jumpEnd.getX(), jumpEnd.getY()));
                 break;
         }
     }
@@ -190,43 +363,63 @@ public abstract class JumpPointFinderBase {
      * Identify successors for the given node. Runs a jump point search in the direction of each available neighbor,
      * adding any points found to the open list.
      *
-     * @param node the node to check.
+     * @param context the state of the search.
+     * @param node the cell index of the node to check.
      */
-    private void identifyTeleportSuccessors(Node node) {
-        Node jumpNode;
-        Point jumpPoint;
-        double ng;
+    private void identifyTeleportSuccessors(SearchContext context, int node) {
+        Grid grid = context.getGrid();
+        OpenList openList = context.getOpenList();
+        SearchStats stats = context.getStats();
+        int x = context.getX(node);
+        int y = context.getY(node);
+        int jumpNode;
+        int direction, neighborX, neighborY;
+        Node finalEnd;
+        double ng, f;
         int teleportType;
 
-        List<Point> neighbors = findNeighbors(node);
-        for (Point neighbor : neighbors) {
-            jumpPoint = jump(neighbor.x, neighbor.y, node.getX(), node.getY());
+        for (int directions = findNeighbors(context, x, y); directions != 0; directions &= directions - 1) {
+            direction = Integer.numberOfTrailingZeros(directions);
+            if (direction == Direction.TELEPORT) {
+                finalEnd = grid.getFinalEnd(x, y);
+                neighborX = finalEnd.getX();
+                neighborY = finalEnd.getY();
+            } else {
+                neighborX = x + Direction.dx(direction);
+                neighborY = y + Direction.dy(direction);
+            }
+            jumpNode = jump(context, neighborX, neighborY, x, y);
 
-            if (jumpPoint != null) {
-                jumpNode = grid.getNodeAt(jumpPoint.x, jumpPoint.y);
-                if (jumpNode.isClosed()) {
+            if (jumpNode != -1) {
+                if (context.isClosed(jumpNode)) {
                     continue;
                 }
 
-                teleportType = grid.getTeleporterType(node, jumpNode);
-                ng = getJumpNodeGScore(node, jumpNode, teleportType, grid);
+                teleportType = grid.getTeleporterType(x, y, context.getX(jumpNode), context.getY(jumpNode));
+                ng = getJumpNodeGScore(context, node, jumpNode, teleportType);
 
-                if (!jumpNode.isOpened() || ng < jumpNode.getGScore() || ng == node.getGScore()) {
-                    jumpNode.setGScore(ng);
-                    if (jumpNode.getHScore() == null) {
-                        setJumpNodeHScore(node, jumpNode, teleportType, grid);
+                if (!context.isOpened(jumpNode) || ng < context.getGScore(jumpNode) || ng == context.getGScore(node)) {
+                    f = context.getFScore(jumpNode);
+                    context.setGScore(jumpNode, ng);
+                    if (!context.hasHScore(jumpNode)) {
+                        setJumpNodeHScore(context, node, jumpNode, teleportType);
                     }
 
-                    jumpNode.setFScore(jumpNode.getGScore() + jumpNode.getHScore());
-                    setJumpNodeParent(node, jumpNode, teleportType, grid);
+                    context.setFScore(jumpNode, context.getGScore(jumpNode) + context.getHScore(jumpNode));
+                    setJumpNodeParent(context, node, jumpNode, teleportType);
 
-                    if (!jumpNode.isOpened()) {
-                        openList.add(jumpNode);
-                        jumpNode.setOpened(true);
+                    if (!context.isOpened(jumpNode)) {
+                        openList.add(jumpNode, context.getFScore(jumpNode));
+                        context.setOpened(jumpNode, true);
+                        if (stats != null) {
+                            stats.push(openList.size());
+                        }
                     } else {
-                        // update the position of jump node
-                        openList.remove(jumpNode);
-                        openList.add(jumpNode);
+                        // update the position of jump node, whose `f` value may also be raised.
+                        openList.update(jumpNode, context.getFScore(jumpNode));
+                        if (stats != null && context.getFScore(jumpNode) < f) {
+                            stats.decreaseKeys++;
+                        }
                     }
                 }
             }
@@ -237,72 +430,125 @@ public abstract class JumpPointFinderBase {
      * Identify successors for the given node. Runs a jump point search in the direction of each available neighbor,
      * adding any points found to the open list.
      *
-     * @param node the node to check.
+     * @param context the state of the search.
+     * @param node the cell index of the node to check.
      */
-    private void identifySuccessors(Node node) {
-        int endX = endNode.getX();
-        int endY = endNode.getY();
-        Node jumpNode;
-        Point jumpPoint;
-        double d, ng, h;
+    protected final void identifySuccessors(SearchContext context, int node) {
+        OpenList openList = context.getOpenList();
+        SearchStats stats = context.getStats();
+        int x = context.getX(node);
+        int y = context.getY(node);
+        int jumpNode, jumpX, jumpY;
+        int direction;
+        double d, ng;
         int dx, dy;
 
-        List<Point> neighbors = findNeighbors(node);
-        for (Point neighbor : neighbors) {
-            jumpPoint = jump(neighbor.x, neighbor.y, node.getX(), node.getY());
-            if (jumpPoint != null) {
-                jumpNode = grid.getNodeAt(jumpPoint.x, jumpPoint.y);
-                if (jumpNode.isClosed()) {
+        for (int directions = findNeighbors(context, x, y); directions != 0; directions &= directions - 1) {
+            direction = Integer.numberOfTrailingZeros(directions);
+            jumpNode = jump(context, x + Direction.dx(direction), y + Direction.dy(direction), x, y);
+            if (jumpNode != -1) {
+                if (context.isClosed(jumpNode)) {
                     continue;
                 }
+                jumpX = context.getX(jumpNode);
+                jumpY = context.getY(jumpNode);
 
                 // include distance, as parent may not be immediately adjacent:
-                dx = Math.abs(jumpPoint.x - node.getX());
-                dy = Math.abs(jumpPoint.y - node.getY());
+                dx = Math.abs(jumpX - x);
+                dy = Math.abs(jumpY - y);
                 d = Heuristic.octile(dx, dy);
-                ng = node.getGScore() + d; // next `g` value
-
-                if (!jumpNode.isOpened() || ng < jumpNode.getGScore()) {
-                    jumpNode.setGScore(ng);
-                    if (jumpNode.getHScore() == null) {
-                        dx = Math.abs(jumpPoint.x - endX);
-                        dy = Math.abs(jumpPoint.y - endY);
-                        h = options.heuristic().apply(dx, dy);
-                        jumpNode.setHScore(h);
+                ng = context.getGScore(node) + d; // next `g` value
+
+                if (!context.isOpened(jumpNode) || ng < context.getGScore(jumpNode)) {
+                    context.setGScore(jumpNode, ng);
+                    if (!context.hasHScore(jumpNode)) {
+                        context.setHScore(jumpNode, heuristic(context, jumpX, jumpY));
                     }
-                    jumpNode.setFScore(jumpNode.getGScore() + jumpNode.getHScore());
-                    jumpNode.setParent(node);
+                    context.setFScore(jumpNode, context.getGScore(jumpNode) + context.getHScore(jumpNode));
+                    context.setParent(jumpNode, node);
 
-                    if (!jumpNode.isOpened()) {
-                        openList.add(jumpNode);
-                        jumpNode.setOpened(true);
+                    if (!context.isOpened(jumpNode)) {
+                        openList.add(jumpNode, context.getFScore(jumpNode));
+                        context.setOpened(jumpNode, true);
+                        if (stats != null) {
+                            stats.push(openList.size());
+                        }
                     } else {
                         // update the position of jump node
-                        openList.remove(jumpNode);
-                        openList.add(jumpNode);
+                        openList.update(jumpNode, context.getFScore(jumpNode));
+                        if (stats != null) {
+                            stats.decreaseKeys++;
+                        }
                     }
+                    onOpened(context, jumpNode, ng);
                 }
             }
         }
     }
 
+    /**
+     * Estimate the distance from a node to the end of the search, for the `h` value of a jump point found by
+     * {@link #identifySuccessors(SearchContext, int)}.
+     *
+     * @param context the state of the search.
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @return the heuristic of the options from the node to the end node.
+     */
+    protected double heuristic(SearchContext context, int x, int y) {
+        return options.heuristic().apply(Math.abs(x - context.getEndX()), Math.abs(y - context.getEndY()));
+    }
+
+    /**
+     * Called by {@link #identifySuccessors(SearchContext, int)} after a jump point was opened, or its `g` value lowered.
+     *
+     * @param context the state of the search.
+     * @param node the cell index of the jump point.
+     * @param g the new `g` value of the jump point.
+     */
+    protected void onOpened(SearchContext context, int node, double g) {
+    }
+
+    /**
+     * Create a finder pruning the neighbors and jumping like {@link JPFAlwaysMoveDiagonally}, or like
+     * {@link JPFNeverMoveDiagonally}, whose jumps stop where a specific test tells, for the finders extending the search
+     * of either.
+     *
+     * @param diagonalMovement {@link DiagonalMovement#Never} for 4 directions, any other value for 8 directions.
+     * @param options the options of the search.
+     * @param endTest where the jumps stop as at the end node.
+     * @return the finder to delegate {@link #findNeighbors(SearchContext, int, int)} and
+     * {@link #jump(SearchContext, int, int, int, int)} to.
+     */
+    static JumpPointFinderBase pruning(DiagonalMovement diagonalMovement, Options options, EndTest endTest) {
+        return diagonalMovement == DiagonalMovement.Never ? new JPFNeverMoveDiagonally(options, endTest)
+                : new JPFAlwaysMoveDiagonally(options, endTest);
+    }
+
     /**
      * Find the neighbors for the given node. If the node has a parent, prune the neighbors based on the jump point
      * search algorithm, otherwise return all available neighbors.
      *
-     * @param node the node to check.
-     * @return the found neighbors or an empty list, must NOT be {@code null}.
+     * @param context the state of the search.
+     * @param x the x coordinate of the node to check.
+     * @param y the y coordinate of the node to check.
+     * @return the directions of the found neighbors, as a mask of {@link Direction} bits, 0 if none.
      */
-    protected abstract List<Point> findNeighbors(Node node);
+    protected abstract int findNeighbors(SearchContext context, int x, int y);
 
     /**
-     * Search recursively in the direction (parent -> child), stopping only when a jump point is found.
+     * Search in the direction (parent -> child), stopping only when a jump point is found.
+     * <p/>
+     * The implementations walk along the direction cell by cell in a loop, instead of recursing once per cell, so that
+     * the depth of the stack does not grow with the length of the scan. Only the straight scans branching off another
+     * scan are nested calls, which never nest any further.
      *
+     * @param context the state of the search.
      * @param x0 child x coordinate
      * @param y0 child y coordinate
      * @param x1 parent x coordinate
      * @param y1 parent y coordinate
-     * @return The x, y coordinate of the jump point found, or {@code null} if not found.
+     * @return the cell index of the jump point found, or -1 if not found.
      */
-    protected abstract Point jump(int x0, int y0, int x1, int y1);
+    protected abstract int jump(SearchContext context, int x0, int y0, int x1, int y1);
 }
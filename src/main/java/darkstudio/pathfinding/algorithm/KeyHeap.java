@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of cell indexes ordered lexicographically by a pair of keys, e.g. the keys of
+ * {@link DStarLitePlanner}, or `f` with ties broken by `g` in {@link MovingTargetPlanner}. It remembers the slot of
+ * every cell, like {@link OpenList}.
+ */
+final class KeyHeap {
+    private int[] heap = new int[64];
+    private double[] keys1 = new double[64];
+    private double[] keys2 = new double[64];
+    private final int[] slots;
+    private int size;
+
+    KeyHeap(int cellCount) {
+        slots = new int[cellCount];
+        Arrays.fill(slots, -1);
+    }
+
+    static int compare(double a1, double a2, double b1, double b2) {
+        int result = Double.compare(a1, b1);
+        return result != 0 ? result : Double.compare(a2, b2);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int index) {
+        return slots[index] >= 0;
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    double peekKey1() {
+        return keys1[0];
+    }
+
+    double peekKey2() {
+        return keys2[0];
+    }
+
+    void add(int index, double key1, double key2) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size << 1);
+            keys1 = Arrays.copyOf(keys1, size << 1);
+            keys2 = Arrays.copyOf(keys2, size << 1);
+        }
+        siftUp(size++, index, key1, key2);
+    }
+
+    int poll() {
+        int result = heap[0];
+        remove(result);
+        return result;
+    }
+
+    void update(int index, double key1, double key2) {
+        remove(index);
+        add(index, key1, key2);
+    }
+
+    void remove(int index) {
+        int k = slots[index];
+        slots[index] = -1;
+        int last = --size;
+        if (last != k) {
+            int moved = heap[last];
+            double moved1 = keys1[last], moved2 = keys2[last];
+            siftDown(k, moved, moved1, moved2);
+            if (heap[k] == moved) {
+                siftUp(k, moved, moved1, moved2);
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int k, int index, double key1, double key2) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (compare(key1, key2, keys1[parent], keys2[parent]) >= 0) {
+                break;
+            }
+            place(k, heap[parent], keys1[parent], keys2[parent]);
+            k = parent;
+        }
+        place(k, index, key1, key2);
+    }
+
+    private void siftDown(int k, int index, double key1, double key2) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int right = child + 1;
+            if (right < size && compare(keys1[child], keys2[child], keys1[right], keys2[right]) > 0) {
+                child = right;
+            }
+            if (compare(key1, key2, keys1[child], keys2[child]) <= 0) {
+                break;
+            }
+            place(k, heap[child], keys1[child], keys2[child]);
+            k = child;
+        }
+        place(k, index, key1, key2);
+    }
+
+    private void place(int k, int index, double key1, double key2) {
+        heap[k] = index;
+        keys1[k] = key1;
+        keys2[k] = key2;
+        slots[index] = k;
+    }
+}
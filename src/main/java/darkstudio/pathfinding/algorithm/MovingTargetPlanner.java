@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+
+import java.util.Arrays;
+
+/**
+ * Moving-target search with Generalized Adaptive A* (Sun, Koenig and Yeoh). Every plan is an A* from the start node,
+ * node by node, but the planner keeps the `g` values of its searches and learns from them: a node expanded by a search
+ * gets the heuristic {@code pathcost - g}, which is more informed than the distance and still consistent, and when the
+ * goal moves, the learned heuristics are lowered by the heuristic of the new goal, so that they stay consistent. The
+ * values are corrected lazily, when a later search reaches the node, so that a plan costs no more than the nodes it
+ * touches. Repeated plans toward a goal drifting over the same area then expand far fewer nodes than independent
+ * searches.
+ * <p/>
+ * The moves follow {@link Grid#getNeighborDirections(int, int, DiagonalMovement)}, at the cost of 1 or sqrt(2), and the
+ * heuristic of the options must be consistent for them, e.g. {@link Heuristic#octile(int, int)}. Teleporters are not
+ * supported. Whenever the {@link Grid#getVersion() version} of the grid changed, the learned heuristics are forgotten,
+ * since they hold only as long as no move gets cheaper.
+ * <p/>
+ * A planner serves a single grid and a single agent: it keeps the state of its searches, so unlike the finders it must
+ * not be shared by threads.
+ */
+public class MovingTargetPlanner {
+    // the learned heuristics are forgotten after so many searches, which bounds the memory of the searches.
+    private static final int MAX_SEARCHES = 1 << 16;
+
+    private final Grid grid;
+    private final int width;
+    private final DiagonalMovement diagonalMovement;
+    private final Heuristic.HeuristicMethod heuristic;
+    private final double[] gScores;
+    private final double[] hScores;
+    private final int[] parents;
+    // the search which last touched every node, 0 for none.
+    private final int[] searches;
+    private final KeyHeap openList;
+    // the cost of the path found by every search, and the sum of the heuristic corrections up to every search.
+    private double[] pathCosts = new double[64];
+    private double[] deltaHs = new double[64];
+    private int counter;
+    private int goal = -1;
+    private long version;
+    private int expandedNodes;
+
+    /**
+     * @param grid the grid to plan on.
+     * @param diagonalMovement the allowed diagonal movement, {@link DiagonalMovement#TeleportNever} is not supported.
+     * @param options the options of the search.
+     */
+    public MovingTargetPlanner(Grid grid, DiagonalMovement diagonalMovement, Options options) {
+        if (diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter()) {
+            throw new IllegalArgumentException("Teleporters are not supported by moving-target search");
+        }
+        this.grid = grid;
+        width = grid.getWidth();
+        this.diagonalMovement = diagonalMovement;
+        heuristic = options.heuristic();
+        int cellCount = width * grid.getHeight();
+        gScores = new double[cellCount];
+        hScores = new double[cellCount];
+        parents = new int[cellCount];
+        searches = new int[cellCount];
+        openList = new KeyHeap(cellCount);
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return number of nodes expanded by the last plan.
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Plan the path from the start node to the goal node, using what the earlier plans learned about the grid, as long
+     * as the grid was not changed since.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param goalX goal x coordinate
+     * @param goalY goal y coordinate
+     * @return the path, including both start and goal positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path plan(int startX, int startY, int goalX, int goalY) {
+        int start = startY * width + startX;
+        int newGoal = goalY * width + goalX;
+        expandedNodes = 0;
+        if (start == newGoal) {
+            return Path.EMPTY;
+        }
+        if (goal == -1 || version != grid.getVersion() || counter == MAX_SEARCHES - 1) {
+            reset(newGoal);
+        } else {
+            moveGoal(newGoal);
+        }
+
+        initializeState(start);
+        initializeState(goal);
+        gScores[start] = 0;
+        parents[start] = -1;
+        openList.clear();
+        openList.add(start, hScores[start], 0);
+        computePath();
+        pathCosts[counter] = gScores[goal];
+        if (gScores[goal] == Double.POSITIVE_INFINITY) {
+            // the learned heuristics would be infinite, which the next goal could not correct.
+            goal = -1;
+            return Path.EMPTY;
+        }
+        return backtrace();
+    }
+
+    private void reset(int newGoal) {
+        Arrays.fill(searches, 0);
+        counter = 1;
+        deltaHs[1] = 0;
+        goal = newGoal;
+        version = grid.getVersion();
+    }
+
+    /**
+     * Start the next search, correcting the learned heuristics by the heuristic of the new goal node, which is a lower
+     * bound of the distance from the old goal node to the new one.
+     */
+    private void moveGoal(int newGoal) {
+        double deltaH = 0;
+        if (newGoal != goal) {
+            initializeState(newGoal);
+            if (gScores[newGoal] + hScores[newGoal] < pathCosts[counter]) {
+                hScores[newGoal] = pathCosts[counter] - gScores[newGoal];
+            }
+            deltaH = hScores[newGoal];
+            goal = newGoal;
+        }
+        if (++counter == deltaHs.length) {
+            pathCosts = Arrays.copyOf(pathCosts, counter << 1);
+            deltaHs = Arrays.copyOf(deltaHs, counter << 1);
+        }
+        deltaHs[counter] = deltaHs[counter - 1] + deltaH;
+    }
+
+    /**
+     * Bring the `g` and `h` values of a node up to the current search, the first time the search touches the node.
+     */
+    private void initializeState(int node) {
+        int search = searches[node];
+        if (search == counter) {
+            return;
+        }
+        double h = heuristic.apply(Math.abs(node % width - goal % width), Math.abs(node / width - goal / width));
+        if (search != 0) {
+            double learned = hScores[node];
+            if (gScores[node] + learned < pathCosts[search]) { // expanded by that search
+                learned = pathCosts[search] - gScores[node];
+            }
+            h = Math.max(h, learned - (deltaHs[counter] - deltaHs[search]));
+        }
+        gScores[node] = Double.POSITIVE_INFINITY;
+        hScores[node] = h;
+        searches[node] = counter;
+    }
+
+    /**
+     * Expand the nodes by their `f` values, the one of larger `g` first among equal ones, which lets a search follow
+     * the learned heuristics straight to the goal node instead of expanding all the nodes as far from it.
+     */
+    private void computePath() {
+        while (!openList.isEmpty()
+                && KeyHeap.compare(openList.peekKey1(), openList.peekKey2(), gScores[goal], -gScores[goal]) < 0) {
+            int node = openList.poll();
+            expandedNodes++;
+            int x = node % width, y = node / width;
+            for (int directions = grid.getNeighborDirections(x, y, diagonalMovement); directions != 0;
+                 directions &= directions - 1) {
+                int direction = Integer.numberOfTrailingZeros(directions);
+                int successor = node + Direction.dy(direction) * width + Direction.dx(direction);
+                initializeState(successor);
+                double ng = gScores[node] + (direction < 4 ? 1 : Math.sqrt(2));
+                if (ng < gScores[successor]) {
+                    gScores[successor] = ng;
+                    parents[successor] = node;
+                    if (openList.contains(successor)) {
+                        openList.update(successor, ng + hScores[successor], -ng);
+                    } else {
+                        openList.add(successor, ng + hScores[successor], -ng);
+                    }
+                }
+            }
+        }
+    }
+
+    private Path backtrace() {
+        Path.Builder builder = new Path.Builder();
+        for (int node = goal; node != -1; node = parents[node]) {
+            builder.add(node % width, node / width);
+        }
+        return builder.reverse().build();
+    }
+}
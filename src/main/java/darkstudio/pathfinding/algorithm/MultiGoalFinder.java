@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * One-to-many Jump Point Search, which finds the path to the nearest of several goal nodes in a single search instead
+ * of one search per goal. The jumps of {@link JPFAlwaysMoveDiagonally} or {@link JPFNeverMoveDiagonally} stop at every
+ * goal node, marked by {@link SearchContext#setGoal(int)}, and the search stops at the first goal node it closes.
+ * <p/>
+ * The `h` value of a node is the smallest heuristic over the goal nodes, or, for more than {@link #MAX_EXACT_GOALS}
+ * goal nodes, the heuristic to the bounding box of the goal nodes, which costs the same for any number of them. Both
+ * are consistent as long as the heuristic of the options is, e.g. {@link Heuristic#octile(int, int)}, or
+ * {@link Heuristic#manhattan(int, int)} without diagonal movement, so that the chosen goal node is a nearest one.
+ * <p/>
+ * Teleporters and bit scans are not supported. A single goal node can be searched by
+ * {@link #findCompactPath(int, int, int, int, SearchContext)} as well, like by the underlying finder.
+ */
+public class MultiGoalFinder extends JumpPointFinderBase {
+    /**
+     * The largest number of goal nodes for which the `h` value is the smallest heuristic over them.
+     */
+    public static final int MAX_EXACT_GOALS = 16;
+
+    private final JumpPointFinderBase pruning;
+
+    /**
+     * @param diagonalMovement {@link DiagonalMovement#Never} for 4 directions, {@link DiagonalMovement#TeleportNever}
+     * is not supported, any other value for 8 directions as in {@link JPFAlwaysMoveDiagonally}.
+     * @param options the options of the search, checking neither teleporters nor bit scans.
+     */
+    public MultiGoalFinder(DiagonalMovement diagonalMovement, Options options) {
+        super(options);
+        if (diagonalMovement == DiagonalMovement.TeleportNever || options.checkTeleporter()) {
+            throw new IllegalArgumentException("Teleporters are not supported by multi-goal search");
+        }
+        if (options.bitScan()) {
+            throw new IllegalArgumentException("Bit scans are not supported by multi-goal search");
+        }
+        pruning = pruning(diagonalMovement, options, MultiGoalFinder::isGoalOrEnd);
+    }
+
+    /**
+     * Find the path to the nearest of the goal nodes.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param goals the goal nodes, of which the unwalkable ones are ignored.
+     * @param grid the grid to search
+     * @return the chosen goal and the path to it, or {@link GoalPath#NONE} if no goal node is reachable.
+     */
+    public GoalPath findNearestPath(int startX, int startY, List<Point> goals, Grid grid) {
+        SearchContext context = acquireContext(grid);
+        try {
+            return findNearestPath(startX, startY, goals, context);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Find the path to the nearest of the goal nodes, keeping the search state in the specific context, see
+     * {@link #findPath(int, int, int, int, SearchContext)}.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param goals the goal nodes, of which the unwalkable ones are ignored.
+     * @param context the context of the grid to search.
+     * @return the chosen goal and the path to it, or {@link GoalPath#NONE} if no goal node is reachable.
+     */
+    public GoalPath findNearestPath(int startX, int startY, List<Point> goals, SearchContext context) {
+        Grid grid = context.reset().getGrid();
+        OpenList openList = context.getOpenList();
+        SearchStats stats = context.getStats();
+        long startNanos = stats != null ? System.nanoTime() : 0;
+        int startNode = context.indexOf(startX, startY);
+        int node;
+
+        // mark the goal nodes, and find the bounding box of them.
+        int[] targets = new int[goals.size()];
+        int count = 0;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Point goal : goals) {
+            if (!grid.isWalkableAt(goal.x, goal.y)) {
+                continue;
+            }
+            int target = context.indexOf(goal.x, goal.y);
+            if (!context.isGoal(target)) {
+                context.setGoal(target);
+                targets[count++] = target;
+                minX = Math.min(minX, goal.x);
+                minY = Math.min(minY, goal.y);
+                maxX = Math.max(maxX, goal.x);
+                maxY = Math.max(maxY, goal.y);
+            }
+        }
+        if (count == 0) {
+            collectStats(context, startNanos, stats != null ? System.nanoTime() : 0);
+            return GoalPath.NONE;
+        }
+        context.setAttachment(count <= MAX_EXACT_GOALS ? new Goals(context, targets, count)
+                : new Box(minX, minY, maxX, maxY));
+
+        // set the `g` and `f` value of the start node to be 0
+        context.setGScore(startNode, 0);
+        context.setFScore(startNode, 0);
+
+        // push the start node into the open list
+        openList.add(startNode, 0);
+        context.setOpened(startNode, true);
+        if (stats != null) {
+            stats.push(openList.size());
+        }
+
+        // while the open list is not empty
+        while (!openList.isEmpty()) {
+            // pop the position of node which has the minimum `f` value.
+            node = openList.poll();
+            context.setClosed(node, true);
+            context.countExpandedNode();
+
+            if (context.isGoal(node)) {
+                long foundNanos = stats != null ? System.nanoTime() : 0;
+                Path path = Util.expandPath(Util.backtrace(context, node), grid);
+                collectStats(context, startNanos, foundNanos);
+                return new GoalPath(indexOf(goals, context.getX(node), context.getY(node)), path);
+            }
+
+            identifySuccessors(context, node);
+        }
+
+        // fail to find the path
+        collectStats(context, startNanos, stats != null ? System.nanoTime() : 0);
+        return GoalPath.NONE;
+    }
+
+    private static int indexOf(List<Point> goals, int x, int y) {
+        for (int i = 0; i < goals.size(); i++) {
+            Point goal = goals.get(i);
+            if (goal.x == x && goal.y == y) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the bound of the goal nodes, or the heuristic to the end node when searching a single goal node.
+     */
+    @Override
+    protected double heuristic(SearchContext context, int x, int y) {
+        Bound bound = (Bound) context.getAttachment();
+        return bound != null ? bound.apply(x, y) : super.heuristic(context, x, y);
+    }
+
+    /**
+     * Let the jumps stop at the goal nodes as well as at the end node.
+     */
+    private static boolean isGoalOrEnd(SearchContext context, int x, int y) {
+        return context.isEnd(x, y) || context.isGoal(context.indexOf(x, y));
+    }
+
+    @Override
+    protected int findNeighbors(SearchContext context, int x, int y) {
+        return pruning.findNeighbors(context, x, y);
+    }
+
+    @Override
+    protected int jump(SearchContext context, int x0, int y0, int x1, int y1) {
+        return pruning.jump(context, x0, y0, x1, y1);
+    }
+
+    /**
+     * A lower bound of the distance from a node to the nearest goal node.
+     */
+    private interface Bound {
+        double apply(int x, int y);
+    }
+
+    /**
+     * The smallest heuristic over the goal nodes.
+     */
+    private final class Goals implements Bound {
+        private final int[] xs;
+        private final int[] ys;
+
+        Goals(SearchContext context, int[] targets, int count) {
+            xs = new int[count];
+            ys = new int[count];
+            for (int i = 0; i < count; i++) {
+                xs[i] = context.getX(targets[i]);
+                ys[i] = context.getY(targets[i]);
+            }
+        }
+
+        @Override
+        public double apply(int x, int y) {
+            double h = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < xs.length; i++) {
+                h = Math.min(h, options.heuristic().apply(Math.abs(x - xs[i]), Math.abs(y - ys[i])));
+            }
+            return h;
+        }
+    }
+
+    /**
+     * The heuristic to the nearest node of the bounding box of the goal nodes.
+     */
+    private final class Box implements Bound {
+        private final int minX;
+        private final int minY;
+        private final int maxX;
+        private final int maxY;
+
+        Box(int minX, int minY, int maxX, int maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        @Override
+        public double apply(int x, int y) {
+            return options.heuristic().apply(Math.max(0, Math.max(minX - x, x - maxX)),
+                    Math.max(0, Math.max(minY - y, y - maxY)));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The open list of the Jump Point Search, i.e. a binary min-heap of cell indexes ordered by their `f` value.
+ * <p/>
+ * Unlike {@link java.util.PriorityQueue}, the slot of every cell in the heap is remembered, so that a cell whose `f`
+ * value has been changed is repositioned in O(log n) instead of being removed by a linear scan and added again. Ties
+ * are broken exactly as {@link java.util.PriorityQueue} does, so the search visits the cells in the same order.
+ */
+public class OpenList {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] heap;
+    private double[] keys;
+    private final int[] slots;
+    private int size;
+
+    /**
+     * Create an open list for the cells of a grid.
+     *
+     * @param cellCount number of cells of the grid, i.e. width x height.
+     */
+    public OpenList(int cellCount) {
+        int capacity = Math.max(Math.min(cellCount, DEFAULT_CAPACITY), 1);
+        heap = new int[capacity];
+        keys = new double[capacity];
+        slots = new int[cellCount];
+        Arrays.fill(slots, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determine whether the specific cell is in this open list.
+     *
+     * @param index the cell index to check.
+     * @return {@code true} if the cell is in this open list, {@code false} otherwise.
+     */
+    public boolean contains(int index) {
+        return slots[index] >= 0;
+    }
+
+    /**
+     * Push the specific cell into the open list.
+     *
+     * @param index the cell index to push, which must NOT be in the open list already.
+     * @param fScore the `f` value of the cell.
+     */
+    public void add(int index, double fScore) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size << 1);
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        siftUp(size++, index, fScore);
+    }
+
+    /**
+     * @return the minimum `f` value of the cells, {@link Double#POSITIVE_INFINITY} if the open list is empty.
+     */
+    public double peekFScore() {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[0];
+    }
+
+    /**
+     * Pop the cell which has the minimum `f` value.
+     *
+     * @return the popped cell index, or -1 if the open list is empty.
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int result = heap[0];
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, heap[last], keys[last]);
+        }
+        slots[result] = -1;
+        return result;
+    }
+
+    /**
+     * Restore the heap order after the `f` value of the specific cell has been changed, which is usually a decrease-key
+     * but may also be an increase when teleporters are checked. The cell is taken out of its slot and pushed again,
+     * exactly as {@link java.util.PriorityQueue#remove(Object)} followed by {@link java.util.PriorityQueue#add(Object)}
+     * would do, but in O(log n) since the slot is known.
+     *
+     * @param index the cell index whose `f` value has been changed, which must be in the open list.
+     * @param fScore the new `f` value of the cell.
+     * @throws IllegalArgumentException if the cell is not in the open list.
+     */
+    public void update(int index, double fScore) {
+        if (!contains(index)) {
+            throw new IllegalArgumentException("Cell is not in the open list: " + index);
+        }
+        removeAt(slots[index]);
+        add(index, fScore);
+    }
+
+    /**
+     * Remove all the cells from the open list.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void removeAt(int k) {
+        slots[heap[k]] = -1;
+        int last = --size;
+        if (last != k) {
+            int moved = heap[last];
+            double movedKey = keys[last];
+            siftDown(k, moved, movedKey);
+            if (heap[k] == moved) {
+                siftUp(k, moved, movedKey);
+            }
+        }
+    }
+
+    private void siftUp(int k, int index, double key) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (Double.compare(key, keys[parent]) >= 0) {
+                break;
+            }
+            place(k, heap[parent], keys[parent]);
+            k = parent;
+        }
+        place(k, index, key);
+    }
+
+    private void siftDown(int k, int index, double key) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int right = child + 1;
+            if (right < size && Double.compare(keys[child], keys[right]) > 0) {
+                child = right;
+            }
+            if (Double.compare(key, keys[child]) <= 0) {
+                break;
+            }
+            place(k, heap[child], keys[child]);
+            k = child;
+        }
+        place(k, index, key);
+    }
+
+    private void place(int k, int index, double key) {
+        heap[k] = index;
+        keys[k] = key;
+        slots[index] = k;
+    }
+}
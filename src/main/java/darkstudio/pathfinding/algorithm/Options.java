@@ -14,6 +14,7 @@ public class Options {
     private HeuristicMethod heuristic = Heuristic::manhattan;
     private boolean trackJumpRecursion;
     private boolean checkTeleporter;
+    private boolean bitScan;
 
     public Options heuristic(HeuristicMethod heuristic) {
         this.heuristic = heuristic;
@@ -30,6 +31,15 @@ public class Options {
         return this;
     }
 
+    /**
+     * Whether {@link darkstudio.pathfinding.utility.Util#jumpPointFinder(DiagonalMovement, Options)} should create a
+     * finder which scans a {@link darkstudio.pathfinding.model.BitGrid} 64 nodes at a time. It finds the same paths.
+     */
+    public Options bitScan(boolean bitScan) {
+        this.bitScan = bitScan;
+        return this;
+    }
+
     public HeuristicMethod heuristic() {
         return heuristic;
     }
@@ -41,4 +51,8 @@ public class Options {
     public boolean checkTeleporter() {
         return checkTeleporter;
     }
+
+    public boolean bitScan() {
+        return bitScan;
+    }
 }
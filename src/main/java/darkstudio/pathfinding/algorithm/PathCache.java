@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+import darkstudio.pathfinding.utility.Util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of found paths, including failed searches, in front of the finders of
+ * {@link Util#jumpPointFinder(DiagonalMovement, Options)}. A path is keyed by the grid, the {@link Grid#getVersion()
+ * version} of the grid, the start and end nodes, the diagonal movement, the heuristic and whether teleporters are
+ * checked, so that a path found before the grid was changed through its methods is never returned. When the cache is
+ * full, the least recently used path is evicted.
+ * <p/>
+ * The heuristic is compared by identity, so queries should share the same {@link Options} or heuristic object to hit the
+ * same paths. The cache holds its grids until their paths are evicted or {@link #clear()}ed, and up to one idle search
+ * context per processor for the missed paths. It may be shared by many threads, the searches of missed paths run
+ * outside its lock.
+ */
+public class PathCache {
+    private final int capacity;
+    private final LinkedHashMap<Key, Path> paths;
+    private final ContextPool contexts = new ContextPool(Runtime.getRuntime().availableProcessors());
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity the largest number of paths to keep, at least 1.
+     */
+    public PathCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        paths = new LinkedHashMap<Key, Path>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Path> eldest) {
+                if (size() > PathCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the cached path, or find and cache it.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param grid the grid to search
+     * @param diagonalMovement the diagonal movement of the finder.
+     * @param options the options of the finder.
+     * @return the path, including both start and end positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path findCompactPath(int startX, int startY, int endX, int endY, Grid grid,
+                                DiagonalMovement diagonalMovement, Options options) {
+        return findCompactPath(startX, startY, endX, endY, grid, null, diagonalMovement, options);
+    }
+
+    /**
+     * Return the cached path, or find and cache it keeping the search state in the specific context, see
+     * {@link JumpPointFinderBase#findPath(int, int, int, int, SearchContext)}.
+     *
+     * @param startX start x coordinate
+     * @param startY start y coordinate
+     * @param endX end x coordinate
+     * @param endY end y coordinate
+     * @param context the context of the grid to search.
+     * @param diagonalMovement the diagonal movement of the finder.
+     * @param options the options of the finder.
+     * @return the path, including both start and end positions, or {@link Path#EMPTY} if there is no path.
+     */
+    public Path findCompactPath(int startX, int startY, int endX, int endY, SearchContext context,
+                                DiagonalMovement diagonalMovement, Options options) {
+        return findCompactPath(startX, startY, endX, endY, context.getGrid(), context, diagonalMovement, options);
+    }
+
+    private Path findCompactPath(int startX, int startY, int endX, int endY, Grid grid, SearchContext context,
+                                 DiagonalMovement diagonalMovement, Options options) {
+        Key key = new Key(grid, grid.getVersion(), startX, startY, endX, endY, diagonalMovement, options);
+        synchronized (this) {
+            Path path = paths.get(key);
+            if (path != null) {
+                hits++;
+                return path;
+            }
+            misses++;
+        }
+
+        JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+        Path path;
+        if (context != null) {
+            path = finder.findCompactPath(startX, startY, endX, endY, context);
+        } else {
+            // the finder is created per search, so the idle contexts are kept by the cache instead.
+            SearchContext pooled = contexts.acquire(grid);
+            try {
+                path = finder.findCompactPath(startX, startY, endX, endY, pooled);
+            } finally {
+                contexts.release(pooled);
+            }
+        }
+        synchronized (this) {
+            // the grid may have changed during the search, then the path is stale already.
+            if (grid.getVersion() == key.version) {
+                paths.put(key, path);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Forget all the paths, and drop the idle search contexts. The counters are kept.
+     */
+    public synchronized void clear() {
+        paths.clear();
+        contexts.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of cached paths, including the stale ones which were not evicted yet.
+     */
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * @return number of queries answered from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of queries which had to search.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of paths evicted to keep the cache within its capacity.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PathCache{size:" + paths.size() + ", capacity:" + capacity + ", hits:" + hits + ", misses:" + misses
+                + ", evictions:" + evictions + "}";
+    }
+
+    private static final class Key {
+        private final Grid grid;
+        private final long version;
+        private final int startX;
+        private final int startY;
+        private final int endX;
+        private final int endY;
+        private final DiagonalMovement diagonalMovement;
+        private final Heuristic.HeuristicMethod heuristic;
+        private final boolean checkTeleporter;
+
+        Key(Grid grid, long version, int startX, int startY, int endX, int endY, DiagonalMovement diagonalMovement,
+            Options options) {
+            this.grid = grid;
+            this.version = version;
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.diagonalMovement = diagonalMovement;
+            heuristic = options.heuristic();
+            checkTeleporter = options.checkTeleporter();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return grid == other.grid && version == other.version && startX == other.startX
+                    && startY == other.startY && endX == other.endX && endY == other.endY
+                    && diagonalMovement == other.diagonalMovement && heuristic == other.heuristic
+                    && checkTeleporter == other.checkTeleporter;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(grid), version, startX, startY, endX, endY, diagonalMovement,
+                    System.identityHashCode(heuristic), checkTeleporter);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+
+import java.util.Arrays;
+
+/**
+ * The state of a path search over a {@link Grid}.
+ * <p/>
+ * The parent, scores and flags of the nodes are kept in primitive arrays indexed by cell, i.e. {@code y * width + x},
+ * instead of on the {@link darkstudio.pathfinding.model.Node}s, so that the grid is only read during the search and
+ * can be shared by several searches running at the same time, each with its own context.
+ * <p/>
+ * A context can be reused by the following searches. Every cell is stamped with the generation of the search which
+ * touched it last, and a cell whose stamp does not match the current generation counts as unvisited. Thus starting a
+ * new search does not sweep the arrays, and its cost scales with the cells the previous search actually touched.
+ */
+public class SearchContext {
+    private static final byte OPENED = 1;
+    private static final byte CLOSED = 2;
+    private static final byte TESTED = 4;
+    private static final byte GOAL = 8;
+
+    private Grid grid;
+    private int width;
+    private int[] stamps;
+    private int[] parents;
+    private double[] gScores;
+    private double[] fScores;
+    private double[] hScores;
+    private byte[] flags;
+    private OpenList openList;
+    private int generation;
+    private int endX = -1;
+    private int endY = -1;
+    private int expandedNodes;
+    private SearchStats stats;
+    private SearchContext reverse;
+    private Object attachment;
+
+    /**
+     * Create a context for searching the specific grid.
+     *
+     * @param grid the grid to search.
+     */
+    public SearchContext(Grid grid) {
+        reset(grid);
+    }
+
+    /**
+     * Prepare this context for a new search over the same grid, forgetting the state of the previous search.
+     *
+     * @return this context.
+     */
+    public SearchContext reset() {
+        return reset(grid);
+    }
+
+    /**
+     * Prepare this context for a new search over the specific grid, forgetting the state of the previous search. The
+     * arrays are only reallocated when the grid has more cells than any grid searched before.
+     *
+     * @param grid the grid to search.
+     * @return this context.
+     */
+    public SearchContext reset(Grid grid) {
+        int size = grid.getWidth() * grid.getHeight();
+        this.grid = grid;
+        width = grid.getWidth();
+        endX = -1;
+        endY = -1;
+        expandedNodes = 0;
+        attachment = null;
+
+        if (stamps == null || stamps.length < size) {
+            stamps = new int[size];
+            parents = new int[size];
+            gScores = new double[size];
+            fScores = new double[size];
+            hScores = new double[size];
+            flags = new byte[size];
+            openList = new OpenList(size);
+            generation = 1;
+            return this;
+        }
+
+        openList.clear();
+        if (++generation == 0) {
+            // the stamps wrapped around, so that a stale stamp could match again.
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        return this;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public OpenList getOpenList() {
+        return openList;
+    }
+
+    /**
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @return the cell index of the node.
+     */
+    public int indexOf(int x, int y) {
+        return y * width + x;
+    }
+
+    public int getX(int index) {
+        return index % width;
+    }
+
+    public int getY(int index) {
+        return index / width;
+    }
+
+    public void setEnd(int x, int y) {
+        endX = x;
+        endY = y;
+    }
+
+    public int getEndX() {
+        return endX;
+    }
+
+    public int getEndY() {
+        return endY;
+    }
+
+    /**
+     * @return the cell index of the end node.
+     */
+    public int getEnd() {
+        return indexOf(endX, endY);
+    }
+
+    public boolean isEnd(int x, int y) {
+        return x == endX && y == endY;
+    }
+
+    /**
+     * @return a context for searching the same grid from the other end, e.g. by a {@link BiJPSFinder}, which is
+     * created on the first call and kept for the following searches. The reverse of the returned context is this one.
+     */
+    public SearchContext getReverse() {
+        if (reverse == null) {
+            reverse = new SearchContext(grid);
+            reverse.reverse = this;
+        }
+        return reverse;
+    }
+
+    /**
+     * @return the state which the finder of the current search keeps besides the state of the nodes, or {@code null}.
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Keep the state of the current search which is specific to its finder, e.g. the goal nodes of a
+     * {@link MultiGoalFinder}, so that the finder itself keeps no state of a search. Forgotten by {@link #reset(Grid)}.
+     *
+     * @param attachment the state to keep, {@code null} for none.
+     */
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    /**
+     * @return number of nodes expanded by the current search, i.e. polled from the open list.
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public void countExpandedNode() {
+        expandedNodes++;
+    }
+
+    /**
+     * @return the statistics collected by the current search, or {@code null} if it collects none.
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Collect the statistics of the following searches into the specific object, see
+     * {@link JumpPointFinderBase#findCompactPath(int, int, int, int, SearchContext, SearchStats)}.
+     *
+     * @param stats the object to collect into, {@code null} to collect none.
+     */
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * @param index the cell index of the node.
+     * @return {@code true} if the node has been touched by the current search, {@code false} otherwise.
+     */
+    public boolean isVisited(int index) {
+        return stamps[index] == generation;
+    }
+
+    /**
+     * @param index the cell index of the node.
+     * @return the cell index of the parent node, or -1 if the node has no parent.
+     */
+    public int getParent(int index) {
+        return isVisited(index) ? parents[index] : -1;
+    }
+
+    public void setParent(int index, int parent) {
+        touch(index);
+        parents[index] = parent;
+    }
+
+    public double getGScore(int index) {
+        return isVisited(index) ? gScores[index] : 0;
+    }
+
+    public void setGScore(int index, double score) {
+        touch(index);
+        gScores[index] = score;
+    }
+
+    public double getFScore(int index) {
+        return isVisited(index) ? fScores[index] : 0;
+    }
+
+    public void setFScore(int index, double score) {
+        touch(index);
+        fScores[index] = score;
+    }
+
+    /**
+     * @param index the cell index of the node.
+     * @return {@code true} if the `h` value of the node has been computed, {@code false} otherwise.
+     */
+    public boolean hasHScore(int index) {
+        return isVisited(index) && !Double.isNaN(hScores[index]);
+    }
+
+    public double getHScore(int index) {
+        return isVisited(index) ? hScores[index] : Double.NaN;
+    }
+
+    public void setHScore(int index, double score) {
+        touch(index);
+        hScores[index] = score;
+    }
+
+    public boolean isOpened(int index) {
+        return hasFlag(index, OPENED);
+    }
+
+    public void setOpened(int index, boolean opened) {
+        setFlag(index, OPENED, opened);
+    }
+
+    public boolean isClosed(int index) {
+        return hasFlag(index, CLOSED);
+    }
+
+    public void setClosed(int index, boolean closed) {
+        setFlag(index, CLOSED, closed);
+    }
+
+    public boolean isTested(int index) {
+        return hasFlag(index, TESTED);
+    }
+
+    public void setTested(int index, boolean tested) {
+        setFlag(index, TESTED, tested);
+    }
+
+    public boolean isGoal(int index) {
+        return hasFlag(index, GOAL);
+    }
+
+    /**
+     * Mark the node as one of the goal nodes of the current search, e.g. by a {@link MultiGoalFinder}, whose jumps
+     * stop at it like at the end node. Forgotten by {@link #reset(Grid)}.
+     *
+     * @param index the cell index of the node.
+     */
+    public void setGoal(int index) {
+        setFlag(index, GOAL, true);
+    }
+
+    private boolean hasFlag(int index, byte flag) {
+        return isVisited(index) && (flags[index] & flag) != 0;
+    }
+
+    private void setFlag(int index, byte flag, boolean value) {
+        touch(index);
+        if (value) {
+            flags[index] |= flag;
+        } else {
+            flags[index] &= ~flag;
+        }
+    }
+
+    /**
+     * Initialize the state of the node if it is touched for the first time by the current search.
+     *
+     * @param index the cell index of the node.
+     */
+    private void touch(int index) {
+        if (stamps[index] != generation) {
+            stamps[index] = generation;
+            parents[index] = -1;
+            gScores[index] = 0;
+            fScores[index] = 0;
+            hScores[index] = Double.NaN;
+            flags[index] = 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+/**
+ * Counters and timings of a path search, filled by
+ * {@link JumpPointFinderBase#findCompactPath(int, int, int, int, SearchContext, SearchStats)}.
+ * <p/>
+ * The finders only collect them while a search runs with stats, i.e. {@link SearchContext#getStats()} is not
+ * {@code null}, so that a search without stats pays a single null check per jump and per scanned cell. Like a
+ * {@link SearchContext}, an object must not be shared by searches running at the same time.
+ */
+public class SearchStats {
+    int expandedNodes;
+    int jumpCalls;
+    long scannedCells;
+    int pushes;
+    int decreaseKeys;
+    int peakOpenSize;
+    long searchNanos;
+    long expansionNanos;
+
+    /**
+     * Clear all the counters and timings.
+     *
+     * @return this object.
+     */
+    public SearchStats reset() {
+        expandedNodes = 0;
+        jumpCalls = 0;
+        scannedCells = 0;
+        pushes = 0;
+        decreaseKeys = 0;
+        peakOpenSize = 0;
+        searchNanos = 0;
+        expansionNanos = 0;
+        return this;
+    }
+
+    /**
+     * @return number of nodes polled from the open list.
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * @return number of calls of {@link JumpPointFinderBase#jump(SearchContext, int, int, int, int)}, including the
+     * straight scans nested in diagonal ones.
+     */
+    public int getJumpCalls() {
+        return jumpCalls;
+    }
+
+    /**
+     * @return number of walkable nodes examined by the jumps. A table lookup of {@link JPSPlusFinder} examines none.
+     */
+    public long getScannedCells() {
+        return scannedCells;
+    }
+
+    /**
+     * @return number of nodes added to the open list.
+     */
+    public int getPushes() {
+        return pushes;
+    }
+
+    /**
+     * @return number of nodes of the open list whose `f` value was lowered.
+     */
+    public int getDecreaseKeys() {
+        return decreaseKeys;
+    }
+
+    /**
+     * @return the largest number of nodes in the open list at the same time.
+     */
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    /**
+     * @return time spent searching, until the end node is polled or the open list runs empty, in nanoseconds.
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * @return time spent building the path from the found jump points, in nanoseconds.
+     */
+    public long getExpansionNanos() {
+        return expansionNanos;
+    }
+
+    void push(int openSize) {
+        pushes++;
+        if (openSize > peakOpenSize) {
+            peakOpenSize = openSize;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SearchStats{expandedNodes:" + expandedNodes + ", jumpCalls:" + jumpCalls + ", scannedCells:"
+                + scannedCells + ", pushes:" + pushes + ", decreaseKeys:" + decreaseKeys + ", peakOpenSize:"
+                + peakOpenSize + ", searchNanos:" + searchNanos + ", expansionNanos:" + expansionNanos + "}";
+    }
+}
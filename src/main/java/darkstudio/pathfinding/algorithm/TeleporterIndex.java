@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.algorithm;
+
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The final end of every teleporter node of a grid, and the teleporter nodes ending at every node, by cell index, for
+ * the planners moving node by node, i.e. {@link DStarLitePlanner} and {@link FlowField}, where stepping on a teleporter
+ * node moves on from its final end, for free.
+ */
+final class TeleporterIndex {
+    private final Grid grid;
+    private final int width;
+    private final int[] finalEnds;
+    private final Map<Integer, List<Integer>> teleporters = new HashMap<>();
+    private final List<Integer> nodes = new ArrayList<>();
+
+    TeleporterIndex(Grid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        finalEnds = new int[width * grid.getHeight()];
+        Arrays.fill(finalEnds, -1);
+    }
+
+    /**
+     * Index the teleporter nodes of the grid again, e.g. after a change of a tunnel, which may move the final ends of
+     * the others of its link.
+     *
+     * @param checkTeleporter {@code false} to index none.
+     */
+    void rebuild(boolean checkTeleporter) {
+        for (int node : nodes) {
+            finalEnds[node] = -1;
+        }
+        teleporters.clear();
+        nodes.clear();
+        if (!checkTeleporter) {
+            return;
+        }
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                if (grid.isTeleporterAt(x, y)) {
+                    Node end = grid.getFinalEnd(x, y);
+                    if (end != null) {
+                        int node = y * width + x;
+                        int endNode = end.getY() * width + end.getX();
+                        finalEnds[node] = endNode;
+                        teleporters.computeIfAbsent(endNode, key -> new ArrayList<>()).add(node);
+                        nodes.add(node);
+                    }
+                }
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * @return the indexed teleporter nodes.
+     */
+    List<Integer> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param node the cell index of a node.
+     * @return the cell index of the final end of the teleporter node, or -1 if the node is not an indexed teleporter.
+     */
+    int getFinalEnd(int node) {
+        return finalEnds[node];
+    }
+
+    /**
+     * @param node the cell index of a node.
+     * @return {@code true} if some teleporter nodes end at the node.
+     */
+    boolean isFinalEnd(int node) {
+        return teleporters.containsKey(node);
+    }
+
+    /**
+     * @param node the cell index of a node.
+     * @return the teleporter nodes ending at the node, empty if none.
+     */
+    List<Integer> getTeleportersTo(int node) {
+        return teleporters.getOrDefault(node, Collections.emptyList());
+    }
+
+    /**
+     * @param direction the {@link Direction} of a move.
+     * @return the cost of the move, 1 or sqrt(2).
+     */
+    static double step(int direction) {
+        return direction < 4 ? 1 : Math.sqrt(2);
+    }
+
+    /**
+     * Every move costs at least 1, so that a shortest path never takes more moves than the nodes of the grid, which
+     * bounds following the moves from node to node even over stale distances.
+     *
+     * @return the largest number of moves of a path over the grid.
+     */
+    int getMaxMoves() {
+        return finalEnds.length;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.model;
+
+/**
+ * A {@link Grid} which additionally keeps the walkability of its nodes as bitmaps: one bit per cell, 64 cells per
+ * {@code long} word, in row-major order and in a transposed (column-major) copy. Scans along a row or a column can thus
+ * examine 64 cells at a time, see {@link #getRowWord(int, int)} and {@link #getColumnWord(int, int)}.
+ * <p>
+ * The bitmaps are kept up to date by {@link #setWalkableAt(int, int, boolean)}, {@link #replaceNode(Node, Node)},
+ * {@link #replaceNode(int, int, Node)} and {@link #setupWormhole(Node, Node)}. Code which changes the walkability of a
+ * node directly through {@link Node#setWalkable(boolean)} must call {@link #refreshWalkableAt(int, int)} afterwards.
+ */
+public class BitGrid extends Grid {
+    private final int rowWords;
+    private final int columnWords;
+    private final long[] rows;
+    private final long[] columns;
+
+    /**
+     * Create grid with all walkable nodes.
+     *
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid.
+     */
+    public BitGrid(int width, int height) {
+        this(width, height, null);
+    }
+
+    /**
+     * Create grid with specific walkable nodes.
+     *
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid.
+     * @param matrix a 0-1 matrix representing the walkable status of the nodes (0 for walkable). {@code null} indicates
+     * all the nodes will be walkable.
+     */
+    public BitGrid(int width, int height, int[][] matrix) {
+        super(width, height, matrix);
+        rowWords = (width + 63) >>> 6;
+        columnWords = (height + 63) >>> 6;
+        rows = new long[height * rowWords];
+        columns = new long[width * columnWords];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                refreshWalkableAt(x, y);
+            }
+        }
+    }
+
+    /**
+     * Create grid with specific walkable nodes.
+     *
+     * @param matrix a 0-1 matrix representing the walkable status of the nodes (0 for walkable).
+     */
+    public BitGrid(int[][] matrix) {
+        this(matrix[0].length, matrix.length, matrix);
+    }
+
+    /**
+     * Gets 64 walkability bits of a row. Bit {@code i} of the result is set if the node at
+     * {@code (word * 64 + i, y)} is inside the grid and walkable.
+     *
+     * @param y the row, any value outside the grid results in 0.
+     * @param word the index of the word within the row, any value outside the row results in 0.
+     * @return the walkability bits.
+     */
+    public long getRowWord(int y, int word) {
+        if (y < 0 || y >= getHeight() || word < 0 || word >= rowWords) {
+            return 0L;
+        }
+        return rows[y * rowWords + word];
+    }
+
+    /**
+     * Gets 64 walkability bits of a column. Bit {@code i} of the result is set if the node at
+     * {@code (x, word * 64 + i)} is inside the grid and walkable.
+     *
+     * @param x the column, any value outside the grid results in 0.
+     * @param word the index of the word within the column, any value outside the column results in 0.
+     * @return the walkability bits.
+     */
+    public long getColumnWord(int x, int word) {
+        if (x < 0 || x >= getWidth() || word < 0 || word >= columnWords) {
+            return 0L;
+        }
+        return columns[x * columnWords + word];
+    }
+
+    /**
+     * Re-read the walkability of the node at the given position into the bitmaps. Do nothing if the coordinate is not
+     * inside the grid.
+     *
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     */
+    public void refreshWalkableAt(int x, int y) {
+        Node node = getNodeAt(x, y);
+        if (node == null) {
+            return;
+        }
+        long rowBit = 1L << (x & 63);
+        long columnBit = 1L << (y & 63);
+        int rowPos = y * rowWords + (x >>> 6);
+        int columnPos = x * columnWords + (y >>> 6);
+        if (node.isWalkable()) {
+            rows[rowPos] |= rowBit;
+            columns[columnPos] |= columnBit;
+        } else {
+            rows[rowPos] &= ~rowBit;
+            columns[columnPos] &= ~columnBit;
+        }
+    }
+
+    @Override
+    public boolean isWalkableAt(int x, int y) {
+        return isInside(x, y) && (rows[y * rowWords + (x >>> 6)] & 1L << (x & 63)) != 0;
+    }
+
+    @Override
+    public void setWalkableAt(int x, int y, boolean walkable) {
+        super.setWalkableAt(x, y, walkable);
+        refreshWalkableAt(x, y);
+    }
+
+    @Override
+    public void replaceNode(Node oldNode, Node newNode) {
+        super.replaceNode(oldNode, newNode);
+        refreshWalkableAt(oldNode.getX(), oldNode.getY());
+    }
+
+    @Override
+    public void replaceNode(int x, int y, Node node) {
+        super.replaceNode(x, y, node);
+        refreshWalkableAt(x, y);
+    }
+
+    @Override
+    public void setupWormhole(Node one, Node theOther) {
+        super.setupWormhole(one, theOther);
+        refreshWalkableAt(one.getX(), one.getY());
+        refreshWalkableAt(theOther.getX(), theOther.getY());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link Grid} for very large maps, which keeps no {@link Node} object for normal nodes. Each cell takes a single
+ * byte of flags in row-major order, telling whether it is walkable and whether it holds a tunnel or wormhole node. Only
+ * the teleporter nodes, which carry links to other nodes, are kept as objects.
+ * <p>
+ * {@link #getNodeAt(int, int)} creates a new view of a normal node on every call. The view reads and writes its
+ * walkability through the grid, so that {@code getNodeAt(x, y).setWalkable(false)} works as on a {@link Grid}, but two
+ * views of the same cell are different objects, which are only {@link Node#equals(Object) equal}. Code reading
+ * walkability should prefer {@link #isWalkableAt(int, int)}, which allocates nothing.
+ */
+public class CompactGrid extends Grid {
+    private static final byte WALKABLE = 1;
+    private static final byte TUNNEL = 2;
+    private static final byte WORMHOLE = 4;
+    private static final byte TELEPORTER = TUNNEL | WORMHOLE;
+
+    private final byte[] cells;
+    private final Map<Integer, Node> teleporters = new HashMap<>();
+
+    /**
+     * Create grid with all walkable nodes.
+     *
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid.
+     */
+    public CompactGrid(int width, int height) {
+        this(width, height, null);
+    }
+
+    /**
+     * Create grid with specific walkable nodes.
+     *
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid.
+     * @param matrix a 0-1 matrix representing the walkable status of the nodes (0 for walkable). {@code null} indicates
+     * all the nodes will be walkable.
+     * @throws IllegalArgumentException if {@code matrix} is specified, while its size is not
+     * {@code height} x {@code width}
+     */
+    public CompactGrid(int width, int height, int[][] matrix) {
+        super(width, height, false);
+        if (matrix != null && (matrix.length != height || matrix[0].length != width)) {
+            throw new IllegalArgumentException("Matrix size does not fit");
+        }
+        cells = new byte[width * height];
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                // 0 will be walkable while others will be un-walkable
+                if (matrix == null || matrix[y][x] == 0) {
+                    cells[i] = WALKABLE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create grid with specific walkable nodes.
+     *
+     * @param matrix a 0-1 matrix representing the walkable status of the nodes (0 for walkable).
+     */
+    public CompactGrid(int[][] matrix) {
+        this(matrix[0].length, matrix.length, matrix);
+    }
+
+    /**
+     * Gets a node at the specified location in the grid. Returns the stored node for teleporters, and a new view of the
+     * cell for normal nodes.
+     *
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @return The {@link Node} at the specific coordinates
+     */
+    @Override
+    public Node getNodeAt(int x, int y) {
+        if (!isInside(x, y)) {
+            return null;
+        }
+        int i = y * getWidth() + x;
+        return (cells[i] & TELEPORTER) != 0 ? teleporters.get(i) : new NodeView(this, x, y);
+    }
+
+    /**
+     * Set specific node to specific place, and replace the one there. Only teleporter nodes are kept as they are, for
+     * any other node only its walkability is kept.
+     *
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @param node the node to replace.
+     */
+    @Override
+    public void replaceNode(int x, int y, Node node) {
+        if (!isInside(x, y)) {
+            return;
+        }
+        int i = y * getWidth() + x;
+        byte kind = node instanceof TunnelNode ? TUNNEL : node instanceof WormholeNode ? WORMHOLE : 0;
+        if (kind != 0) {
+            teleporters.put(i, node);
+        } else {
+            teleporters.remove(i);
+        }
+        cells[i] = (byte) (kind | (node.isWalkable() ? WALKABLE : 0));
+        modified();
+    }
+
+    @Override
+    public boolean isWalkableAt(int x, int y) {
+        if (!isInside(x, y)) {
+            return false;
+        }
+        int i = y * getWidth() + x;
+        // teleporter nodes may be changed directly, so read them instead of their copy of the flag.
+        return (cells[i] & TELEPORTER) != 0 ? teleporters.get(i).isWalkable() : (cells[i] & WALKABLE) != 0;
+    }
+
+    @Override
+    public void setWalkableAt(int x, int y, boolean walkable) {
+        if (!isInside(x, y)) {
+            return;
+        }
+        int i = y * getWidth() + x;
+        if ((cells[i] & TELEPORTER) != 0) {
+            teleporters.get(i).setWalkable(walkable);
+        }
+        cells[i] = (byte) (walkable ? cells[i] | WALKABLE : cells[i] & ~WALKABLE);
+        modified();
+    }
+
+    @Override
+    public int getTeleporterKindAt(int x, int y) {
+        if (!isInside(x, y)) {
+            return TELEPORTER_NONE;
+        }
+        switch (cells[y * getWidth() + x] & TELEPORTER) {
+            case TUNNEL:
+                return TELEPORTER_TUNNEL;
+            case WORMHOLE:
+                return TELEPORTER_WORMHOLE;
+            default:
+                return TELEPORTER_NONE;
+        }
+    }
+
+    /**
+     * @return number of bytes taken by the cell flags, not counting the teleporter nodes.
+     */
+    public long getCellBytes() {
+        return cells.length;
+    }
+
+    /**
+     * A normal node of a {@link CompactGrid}, whose walkability is read from and written to the grid.
+     */
+    private static final class NodeView extends Node {
+        private final CompactGrid grid;
+
+        NodeView(CompactGrid grid, int x, int y) {
+            super(x, y, true);
+            this.grid = grid;
+        }
+
+        @Override
+        public boolean isWalkable() {
+            return grid.isWalkableAt(getX(), getY());
+        }
+
+        @Override
+        public void setWalkable(boolean walkable) {
+            super.setWalkable(walkable);
+            // also called by the constructor of Node, before the grid is assigned.
+            if (grid != null) {
+                grid.setWalkableAt(getX(), getY(), walkable);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Node(" + getX() + "," + getY() + "){walkable:" + isWalkable() + "}";
+        }
+    }
+}
@@ -9,11 +9,17 @@
 package darkstudio.pathfinding.model;
 
 import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Direction;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -37,8 +43,22 @@ public class Grid {
     public static final int TELEPORT_WORMHOLE_WORMHOLE = 14; // both nodes are wormhole ones and they do NOT teleport to each other.
     public static final int TELEPORT_WORMHOLE_TO_WORMHOLE = 15; // both nodes are wormhole ones and they DO teleport to each other.
 
+    public static final int TELEPORTER_NONE = 0; // the node is a normal one.
+    public static final int TELEPORTER_TUNNEL = 1; // the node is a tunnel node.
+    public static final int TELEPORTER_WORMHOLE = 2; // the node is a wormhole node.
+
     private Node[][] nodes;
+    private byte[] teleporterKinds; // one of TELEPORTER_* constants per cell, kept by replaceNode().
+    private int width;
+    private int height;
     private List<List<Node>> tunnels = new ArrayList<>();
+    // per-cell index of the tunnel links, built by setupTunnels(), null if there is no link.
+    private int[] tunnelEnds; // the final end of the links containing the cell, -1 if none.
+    private int[] tunnelOrder; // preorder number of the cell in the forest of links, -1 if not in any link.
+    private int[] tunnelOrderEnd; // largest preorder number in the subtree of the cell.
+    // bumped by every change of the nodes made through the grid, volatile so that the threads reading it, e.g. through a
+    // shared PathCache, see the latest change.
+    private volatile long version;
 
     /**
      * Create grid with all walkable nodes.
@@ -84,6 +104,25 @@ public class Grid {
         buildNodes(width, height, matrix);
     }
 
+    /**
+     * Create grid of specific size without building any node, for subclasses which keep their nodes in some other
+     * form. Such a subclass must override {@link #getNodeAt(int, int)}, {@link #replaceNode(int, int, Node)},
+     * {@link #isWalkableAt(int, int)}, {@link #setWalkableAt(int, int, boolean)} and
+     * {@link #getTeleporterKindAt(int, int)}, and call {@link #modified()} from the methods which change the nodes.
+     *
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid.
+     * @param buildNodes {@code false} to skip building the nodes, {@code true} to build all walkable nodes.
+     */
+    protected Grid(int width, int height, boolean buildNodes) {
+        if (buildNodes) {
+            buildNodes(width, height, null);
+        } else {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
     /**
      * Build the nodes.
      *
@@ -93,7 +132,10 @@ public class Grid {
      * all the nodes will be walkable.
      */
     private void buildNodes(int width, int height, int[][] matrix) {
+        this.width = width;
+        this.height = height;
         nodes = new Node[height][width];
+        teleporterKinds = new byte[width * height];
         boolean hasMatrix = matrix != null;
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
@@ -103,6 +145,41 @@ public class Grid {
         }
     }
 
+    /**
+     * @return number of columns of the grid.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return number of rows of the grid.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The modification counter of the grid, which {@link #setWalkableAt(int, int, boolean)},
+     * {@link #replaceNode(int, int, Node)}, {@link #setupWormhole(Node, Node)},
+     * {@link #breakWormhole(WormholeNode, WormholeNode)}, {@link #setupTunnels(List)} and {@link #setTunnels(List)}
+     * bump, so that anything derived from the nodes can tell whether it is stale. Changes made to the nodes directly,
+     * e.g. {@code getNodeAt(x, y).setWalkable(false)}, are not counted. The counter may be read by any thread, while
+     * the grid is changed by one thread at a time.
+     *
+     * @return the number of changes made through the grid so far.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Bump the modification counter, see {@link #getVersion()}.
+     */
+    protected void modified() {
+        version++;
+    }
+
     /**
      * Gets a node at the specified location in the grid
      *
@@ -121,7 +198,7 @@ public class Grid {
      * @param newNode the node to replace.
      */
     public void replaceNode(Node oldNode, Node newNode) {
-        nodes[oldNode.getY()][oldNode.getX()] = newNode;
+        replaceNode(oldNode.getX(), oldNode.getY(), newNode);
     }
 
     /**
@@ -134,6 +211,8 @@ public class Grid {
     public void replaceNode(int x, int y, Node node) {
         if (isInside(x, y)) {
             nodes[y][x] = node;
+            teleporterKinds[y * width + x] = (byte) getTeleporterKind(node);
+            modified();
         }
     }
 
@@ -158,7 +237,7 @@ public class Grid {
      * @return {@code true} if this node is inside the grid, {@code false} otherwise.
      */
     public boolean isInside(int x, int y) {
-        return y >= 0 && y < nodes.length && x >= 0 && x < nodes[0].length;
+        return y >= 0 && y < height && x >= 0 && x < width;
     }
 
     /**
@@ -170,7 +249,8 @@ public class Grid {
      */
     public void setWalkableAt(int x, int y, boolean walkable) {
         if (isInside(x, y)) {
-            nodes[y][x].setWalkable(walkable);
+            getNodeAt(x, y).setWalkable(walkable);
+            modified();
         }
     }
 
@@ -201,6 +281,7 @@ public class Grid {
         oneWormholeNode.setPeer(theOtherWormholeNode);
         theOtherWormholeNode.setWalkable(true);
         theOtherWormholeNode.setPeer(oneWormholeNode);
+        modified();
     }
 
     /**
@@ -216,6 +297,7 @@ public class Grid {
         one.setPeer(null);
         theOther.setWalkable(true);
         theOther.setPeer(null);
+        modified();
     }
 
     /**
@@ -263,12 +345,130 @@ public class Grid {
                 tunnels.add(newLink);
             }
         }
+        indexTunnels();
+        modified();
+    }
+
+    /**
+     * Build the per-cell index of the tunnel links. Every tunnel node has only one out node, so the links which share
+     * a node also share the rest of the link after it, and all the links form a forest, in which the parent of a node
+     * is the next node in its links. A wormhole node has no parent, its peer is only recorded as the final end.
+     * <p>
+     * Node {@code b} follows node {@code a} in some link iff {@code b} is an ancestor of {@code a}, or the final end of
+     * {@code a}, which {@link #isTunnelLinked(int, int)} tells from the preorder numbers without looking at the links.
+     */
+    private void indexTunnels() {
+        if (tunnels.isEmpty()) {
+            tunnelEnds = null;
+            tunnelOrder = null;
+            tunnelOrderEnd = null;
+            return;
+        }
+
+        Map<Integer, Integer> parents = new HashMap<>();
+        Map<Integer, List<Integer>> children = new LinkedHashMap<>();
+        tunnelEnds = new int[width * height];
+        Arrays.fill(tunnelEnds, -1);
+        for (List<Node> link : tunnels) {
+            int end = cellOf(link.get(link.size() - 1));
+            for (int i = 0; i < link.size(); i++) {
+                int cell = cellOf(link.get(i));
+                children.putIfAbsent(cell, new ArrayList<>());
+                if (i < link.size() - 1) {
+                    tunnelEnds[cell] = end;
+                    int next = cellOf(link.get(i + 1));
+                    if (!(link.get(i) instanceof WormholeNode) && parents.putIfAbsent(cell, next) == null) {
+                        children.computeIfAbsent(next, key -> new ArrayList<>()).add(cell);
+                    }
+                }
+            }
+        }
+
+        tunnelOrder = new int[width * height];
+        tunnelOrderEnd = new int[width * height];
+        Arrays.fill(tunnelOrder, -1);
+        int order = 0;
+        Deque<Integer> stack = new ArrayDeque<>();
+        List<Integer> preorder = new ArrayList<>();
+        for (Integer root : children.keySet()) {
+            if (parents.containsKey(root)) {
+                continue;
+            }
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                int cell = stack.pop();
+                tunnelOrder[cell] = order++;
+                preorder.add(cell);
+                for (int child : children.get(cell)) {
+                    stack.push(child);
+                }
+            }
+        }
+        // a subtree ends where the last of its children's subtrees ends, so fill them from the leaves up.
+        for (int i = preorder.size() - 1; i >= 0; i--) {
+            int cell = preorder.get(i);
+            tunnelOrderEnd[cell] = Math.max(tunnelOrderEnd[cell], tunnelOrder[cell]);
+            Integer parent = parents.get(cell);
+            if (parent != null) {
+                tunnelOrderEnd[parent] = Math.max(tunnelOrderEnd[parent], tunnelOrderEnd[cell]);
+            }
+        }
+    }
+
+    private int cellOf(Node node) {
+        return node.getY() * width + node.getX();
+    }
+
+    /**
+     * Determine whether some tunnel link contains both nodes, with the {@code to} node after the {@code from} one, or
+     * being the same.
+     *
+     * @param from the cell index of the first node.
+     * @param to the cell index of the second node.
+     * @return {@code true} if {@code to} follows {@code from} in some link, {@code false} otherwise.
+     */
+    private boolean isTunnelLinked(int from, int to) {
+        if (tunnelOrder == null || tunnelOrder[from] == -1 || tunnelOrder[to] == -1) {
+            return false;
+        }
+        boolean isAncestor = tunnelOrder[to] <= tunnelOrder[from] && tunnelOrder[from] <= tunnelOrderEnd[to];
+        return isAncestor || tunnelEnds[from] == to;
+    }
+
+    /**
+     * Determine how the specific nodes are linked by tunnels.
+     *
+     * @param start the cell index of the start node, -1 if it is outside the grid.
+     * @param end the cell index of the end node, -1 if it is outside the grid.
+     * @return 1 if some tunnel link goes from the start node to the end node, -1 if some tunnel link goes from the end
+     * node to the start node, 0 if no tunnel link contains both nodes.
+     */
+    private int getTunnelLinkDirection(int start, int end) {
+        if (start == -1 || end == -1) {
+            return 0;
+        }
+        if (isTunnelLinked(start, end)) {
+            return 1;
+        }
+        return isTunnelLinked(end, start) ? -1 : 0;
     }
 
     public List<List<Node>> getTunnels() {
         return tunnels;
     }
 
+    /**
+     * Restore tunnel links which were analyzed by {@link #setupTunnels(List)} before, e.g. from a snapshot of the grid,
+     * without analyzing them again.
+     *
+     * @param tunnels the tunnel links, as returned by {@link #getTunnels()}.
+     */
+    public void setTunnels(List<List<Node>> tunnels) {
+        this.tunnels = new ArrayList<>(tunnels);
+        indexTunnels();
+        modified();
+    }
+
     private int[] indexOfTunnelLink(Node node) {
         for (int i = 0; i < tunnels.size(); i++) {
             int pos = tunnels.get(i).indexOf(node);
@@ -279,20 +479,6 @@ public class Grid {
         return null;
     }
 
-    private int[] indexOfTunnelLink(Node startNode, Node endNode) {
-        List<Node> tunnel;
-        int startPos, endPos;
-        for (int i = 0; i < tunnels.size(); i++) {
-            tunnel = tunnels.get(i);
-            startPos = tunnel.indexOf(startNode);
-            endPos = tunnel.indexOf(endNode);
-            if (startPos != -1 && endPos != -1) {
-                return new int[]{i, startPos, endPos};
-            }
-        }
-        return null;
-    }
-
     /**
      * Get the final target node of specific wormhole/tunnel node.
      * <ul>
@@ -312,15 +498,47 @@ public class Grid {
         if (node instanceof WormholeNode) {
             return ((WormholeNode) node).getPeer();
         }
-        if (node instanceof TunnelNode) {
-            List<Node> tunnelLink = tunnels.stream().filter(link -> link.contains(node)).findFirst().orElse(Collections.emptyList());
-            return tunnelLink.isEmpty() ? null : tunnelLink.get(tunnelLink.size() - 1);
+        if (node instanceof TunnelNode && tunnelEnds != null && isInside(node.getX(), node.getY())) {
+            int end = tunnelEnds[cellOf(node)];
+            return end == -1 ? null : getNodeAt(end % width, end / width);
         }
         return null;
     }
 
     public Node getFinalEnd(int x, int y) {
-        return getFinalEnd(getNodeAt(x, y));
+        switch (getTeleporterKindAt(x, y)) {
+            case TELEPORTER_WORMHOLE:
+                return ((WormholeNode) getNodeAt(x, y)).getPeer();
+            case TELEPORTER_TUNNEL:
+                int end = tunnelEnds == null ? -1 : tunnelEnds[y * width + x];
+                return end == -1 ? null : getNodeAt(end % width, end / width);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the kind of teleporter of the node at the given position, without looking at the node itself.
+     *
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @return one of TELEPORTER_* constants, {@link #TELEPORTER_NONE} if the position is outside the grid.
+     */
+    public int getTeleporterKindAt(int x, int y) {
+        return isInside(x, y) ? teleporterKinds[y * width + x] : TELEPORTER_NONE;
+    }
+
+    /**
+     * Get the kind of teleporter of the specific node.
+     *
+     * @param node the node to check, may be {@code null}.
+     * @return one of TELEPORTER_* constants.
+     */
+    public static int getTeleporterKind(Node node) {
+        if (node instanceof TunnelNode) {
+            return TELEPORTER_TUNNEL;
+        }
+        return node instanceof WormholeNode ? TELEPORTER_WORMHOLE : TELEPORTER_NONE;
     }
 
     /**
@@ -332,7 +550,7 @@ public class Grid {
      * @return {@code true} if this node is a teleporter, {@code false} otherwise.
      */
     public boolean isTeleporterAt(int x, int y) {
-        return isTeleporterNode(getNodeAt(x, y));
+        return getTeleporterKindAt(x, y) != TELEPORTER_NONE;
     }
 
     /**
@@ -356,50 +574,71 @@ public class Grid {
      * @return one of TELEPORT_* constants.
      */
     public int getTeleporterType(int startX, int startY, int endX, int endY) {
-        Node startNode = getNodeAt(startX, startY);
-        Node endNode = getNodeAt(endX, endY);
-        return getTeleporterType(startNode, endNode);
+        int startKind = getTeleporterKindAt(startX, startY);
+        int endKind = getTeleporterKindAt(endX, endY);
+        if ((startKind | endKind) == TELEPORTER_NONE) {
+            return TELEPORT_NORMAL_NORMAL;
+        }
+        int start = isInside(startX, startY) ? startY * width + startX : -1;
+        int end = isInside(endX, endY) ? endY * width + endX : -1;
+        Node startNode = startKind == TELEPORTER_WORMHOLE ? getNodeAt(startX, startY) : null;
+        return getTeleporterType(startKind, start, startNode, endKind, end);
     }
 
     public int getTeleporterType(Node startNode, Node endNode) {
-        if (startNode instanceof WormholeNode) {
-            if (endNode instanceof WormholeNode) {
-                WormholeNode peer = ((WormholeNode) startNode).getPeer();
-                return peer.equals(endNode) ? TELEPORT_WORMHOLE_TO_WORMHOLE : TELEPORT_WORMHOLE_WORMHOLE;
-            }
-            if (endNode instanceof TunnelNode) {
-                int[] idx = indexOfTunnelLink(startNode, endNode);
-                return idx != null ? TELEPORT_WORMHOLE_OT_TUNNEL : TELEPORT_WORMHOLE_TUNNEL;
-            }
-            return TELEPORT_WORMHOLE_NORMAL;
-        }
+        int start = startNode != null && isInside(startNode.getX(), startNode.getY()) ? cellOf(startNode) : -1;
+        int end = endNode != null && isInside(endNode.getX(), endNode.getY()) ? cellOf(endNode) : -1;
+        return getTeleporterType(getTeleporterKind(startNode), start, startNode, getTeleporterKind(endNode), end);
+    }
 
-        if (startNode instanceof TunnelNode) {
-            int[] idx = indexOfTunnelLink(startNode, endNode);
-            if (endNode instanceof WormholeNode) {
-                return idx != null ? TELEPORT_TUNNEL_TO_WORMHOLE : TELEPORT_TUNNEL_WORMHOLE;
-            }
-            if (endNode instanceof TunnelNode) {
-                if (idx != null) {
-                    int startPos = idx[1];
-                    int endPos = idx[2];
-                    return startPos > endPos ? TELEPORT_TUNNEL_OT_TUNNEL : TELEPORT_TUNNEL_TO_TUNNEL;
+    /**
+     * Determine the teleporter type from the kinds of the nodes.
+     *
+     * @param startKind the kind of the start node, one of TELEPORTER_* constants.
+     * @param start the cell index of the start node, -1 if it is outside the grid.
+     * @param startNode the start node, only needed when it is a wormhole node.
+     * @param endKind the kind of the end node, one of TELEPORTER_* constants.
+     * @param end the cell index of the end node, -1 if it is outside the grid.
+     * @return one of TELEPORT_* constants.
+     */
+    private int getTeleporterType(int startKind, int start, Node startNode, int endKind, int end) {
+        switch (startKind) {
+            case TELEPORTER_WORMHOLE:
+                switch (endKind) {
+                    case TELEPORTER_WORMHOLE:
+                        WormholeNode peer = ((WormholeNode) startNode).getPeer();
+                        return peer != null && end != -1 && cellOf(peer) == end ? TELEPORT_WORMHOLE_TO_WORMHOLE
+                                : TELEPORT_WORMHOLE_WORMHOLE;
+                    case TELEPORTER_TUNNEL:
+                        return getTunnelLinkDirection(start, end) != 0 ? TELEPORT_WORMHOLE_OT_TUNNEL
+                                : TELEPORT_WORMHOLE_TUNNEL;
+                    default:
+                        return TELEPORT_WORMHOLE_NORMAL;
+                }
+            case TELEPORTER_TUNNEL:
+                int linkDirection = getTunnelLinkDirection(start, end);
+                switch (endKind) {
+                    case TELEPORTER_WORMHOLE:
+                        return linkDirection != 0 ? TELEPORT_TUNNEL_TO_WORMHOLE : TELEPORT_TUNNEL_WORMHOLE;
+                    case TELEPORTER_TUNNEL:
+                        if (linkDirection != 0) {
+                            return linkDirection < 0 ? TELEPORT_TUNNEL_OT_TUNNEL : TELEPORT_TUNNEL_TO_TUNNEL;
+                        }
+                        return TELEPORT_TUNNEL_TUNNEL;
+                    default:
+                        return linkDirection != 0 ? TELEPORT_TUNNEL_TO_NORMAL : TELEPORT_TUNNEL_NORMAL;
+                }
+            default:
+                switch (endKind) {
+                    case TELEPORTER_WORMHOLE:
+                        return TELEPORT_NORMAL_WORMHOLE;
+                    case TELEPORTER_TUNNEL:
+                        return getTunnelLinkDirection(start, end) != 0 ? TELEPORT_NORMAL_OT_TUNNEL
+                                : TELEPORT_NORMAL_TUNNEL;
+                    default:
+                        return TELEPORT_NORMAL_NORMAL;
                 }
-                return TELEPORT_TUNNEL_TUNNEL;
-            }
-            return idx != null ? TELEPORT_TUNNEL_TO_NORMAL : TELEPORT_TUNNEL_NORMAL;
-        }
-
-        if (endNode instanceof WormholeNode) {
-            return TELEPORT_NORMAL_WORMHOLE;
-        }
-
-        if (endNode instanceof TunnelNode) {
-            int[] idx = indexOfTunnelLink(startNode, endNode);
-            return idx != null ? TELEPORT_NORMAL_OT_TUNNEL : TELEPORT_NORMAL_TUNNEL;
         }
-
-        return TELEPORT_NORMAL_NORMAL;
     }
 
     public Set<Node> getNeighbors(Node node, DiagonalMovement diagonalMovement) {
@@ -428,13 +667,7 @@ public class Grid {
      * @throws IllegalArgumentException if diagonalMovement is invalid.
      */
     public Set<Node> getNeighbors(Node node, DiagonalMovement diagonalMovement, boolean checkTeleporter) {
-        int x = node.getX();
-        int y = node.getY();
         Set<Node> neighbors = new LinkedHashSet<>();
-        boolean s0 = false, d0 = false,
-                s1 = false, d1 = false,
-                s2 = false, d2 = false,
-                s3 = false, d3 = false;
 
         // teleporter node has only one logical neighbor, i.e. its final end.
         if (checkTeleporter && isTeleporterNode(node)) {
@@ -445,30 +678,57 @@ public class Grid {
             return neighbors;
         }
 
+        int x = node.getX();
+        int y = node.getY();
+        for (int directions = getNeighborDirections(x, y, diagonalMovement); directions != 0;
+             directions &= directions - 1) {
+            int direction = Integer.numberOfTrailingZeros(directions);
+            neighbors.add(getNodeAt(x + Direction.dx(direction), y + Direction.dy(direction)));
+        }
+        return neighbors;
+    }
+
+    /**
+     * Get the directions of the walkable neighbors of the node at the given position, as a mask of {@link Direction}
+     * bits. Same as {@link #getNeighbors(Node, DiagonalMovement)}, without allocating anything.
+     *
+     * @param x the x coordinate of the node.
+     * @param y the y coordinate of the node.
+     * @param diagonalMovement the allowed diagonal movement.
+     * @return the mask of the directions of the neighbors.
+     * @throws IllegalArgumentException if diagonalMovement is invalid.
+     */
+    public int getNeighborDirections(int x, int y, DiagonalMovement diagonalMovement) {
+        int directions = 0;
+        boolean s0 = false, d0 = false,
+                s1 = false, d1 = false,
+                s2 = false, d2 = false,
+                s3 = false, d3 = false;
+
         // neighbor above
         if (isWalkableAt(x, y - 1)) {
-            neighbors.add(nodes[y - 1][x]);
+            directions |= 1 << Direction.UP;
             s0 = true;
         }
         // neighbor on right
         if (isWalkableAt(x + 1, y)) {
-            neighbors.add(nodes[y][x + 1]);
+            directions |= 1 << Direction.RIGHT;
             s1 = true;
         }
         // neighbor below
         if (isWalkableAt(x, y + 1)) {
-            neighbors.add(nodes[y + 1][x]);
+            directions |= 1 << Direction.DOWN;
             s2 = true;
         }
         // neighbor on left
         if (isWalkableAt(x - 1, y)) {
-            neighbors.add(nodes[y][x - 1]);
+            directions |= 1 << Direction.LEFT;
             s3 = true;
         }
 
         switch (diagonalMovement) {
             case Never:
-                return neighbors;
+                return directions;
             case OnlyWhenNoObstacles:
                 d0 = s3 && s0;
                 d1 = s0 && s1;
@@ -493,32 +753,21 @@ public class Grid {
 
         // neighbor left above
         if (d0 && isWalkableAt(x - 1, y - 1)) {
-            neighbors.add(nodes[y - 1][x - 1]);
+            directions |= 1 << Direction.UP_LEFT;
         }
         // neighbor right above
         if (d1 && isWalkableAt(x + 1, y - 1)) {
-            neighbors.add(nodes[y - 1][x + 1]);
+            directions |= 1 << Direction.UP_RIGHT;
         }
         // neighbor right below
         if (d2 && isWalkableAt(x + 1, y + 1)) {
-            neighbors.add(nodes[y + 1][x + 1]);
+            directions |= 1 << Direction.DOWN_RIGHT;
         }
         // neighbor left below
         if (d3 && isWalkableAt(x - 1, y + 1)) {
-            neighbors.add(nodes[y + 1][x - 1]);
+            directions |= 1 << Direction.DOWN_LEFT;
         }
 
-        return neighbors;
-    }
-
-    public Grid reset() {
-        int height = nodes.length;
-        int width = nodes[0].length;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                nodes[y][x].reset();
-            }
-        }
-        return this;
+        return directions;
     }
 }
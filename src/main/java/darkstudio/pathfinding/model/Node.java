@@ -11,20 +11,13 @@ package darkstudio.pathfinding.model;
 /**
  * A node in grid.
  * <p/>
- * This class holds some basic information about a node and custom attributes may be added, depending on the
- * algorithms' needs.
+ * This class holds some basic information about a node. The state of a search, e.g. the parent and the scores of the
+ * node, is kept by the algorithms themselves, so that a grid is not modified by searching it.
  */
-public class Node implements Comparable<Node> {
+public class Node {
     private int x;
     private int y;
     private boolean walkable = true;
-    private Node parent;
-    private double fScore;
-    private double gScore;
-    private Double hScore;
-    private boolean opened;
-    private boolean closed;
-    private boolean tested;
 
     /**
      * Create a grid node.
@@ -63,72 +56,6 @@ public class Node implements Comparable<Node> {
         this.walkable = walkable;
     }
 
-    public Node getParent() {
-        return parent;
-    }
-
-    public void setParent(Node parent) {
-        this.parent = parent;
-    }
-
-    public double getFScore() {
-        return fScore;
-    }
-
-    public void setFScore(double score) {
-        fScore = score;
-    }
-
-    public double getGScore() {
-        return gScore;
-    }
-
-    public void setGScore(double score) {
-        gScore = score;
-    }
-
-    public Double getHScore() {
-        return hScore;
-    }
-
-    public void setHScore(double score) {
-        hScore = score;
-    }
-
-    public boolean isOpened() {
-        return opened;
-    }
-
-    public void setOpened(boolean opened) {
-        this.opened = opened;
-    }
-
-    public boolean isClosed() {
-        return closed;
-    }
-
-    public void setClosed(boolean closed) {
-        this.closed = closed;
-    }
-
-    public boolean isTested() {
-        return tested;
-    }
-
-    public void setTested(boolean tested) {
-        this.tested = tested;
-    }
-
-    public void reset() {
-        parent = null;
-        fScore = 0;
-        gScore = 0;
-        hScore = null;
-        opened = false;
-        closed = false;
-        tested = false;
-    }
-
     /**
      * Checks if coordinates match.
      *
@@ -145,14 +72,12 @@ public class Node implements Comparable<Node> {
     }
 
     @Override
-    public String toString() {
-        String parentInfo = parent != null ? "(" + parent.getX() + "," + parent.getY() + ")->" : "";
-        return "Node" + parentInfo + "(" + x + "," + y + ")" + "{walkable:" + walkable + ",opened:" + opened
-                + ",closed:" + closed + ",score:" + gScore + "+" + hScore + "=" + fScore + "}";
+    public int hashCode() {
+        return 31 * x + y;
     }
 
     @Override
-    public int compareTo(Node o) {
-        return o != null ? Double.compare(fScore, o.getFScore()) : 0;
+    public String toString() {
+        return "Node(" + x + "," + y + "){walkable:" + walkable + "}";
     }
 }
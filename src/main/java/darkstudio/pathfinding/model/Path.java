@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.model;
+
+import java.awt.Point;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable path, keeping the coordinates of its points as interleaved x/y pairs in a single {@code int[]}, so that
+ * a path of any length is two objects. Code reading a path should use {@link #getX(int)} and {@link #getY(int)};
+ * {@link #asList()} adapts the path to a {@code List<Point>}, creating the points on demand, and {@link #toList()}
+ * copies it into a modifiable one for existing callers.
+ */
+public final class Path {
+    public static final Path EMPTY = new Path(new int[0], 0);
+
+    private final int[] coordinates;
+    private final int size;
+
+    private Path(int[] coordinates, int size) {
+        this.coordinates = coordinates;
+        this.size = size;
+    }
+
+    /**
+     * Copy the points of the specific list into a path.
+     *
+     * @param points the points of the path.
+     * @return the path.
+     */
+    public static Path of(List<Point> points) {
+        Builder builder = new Builder(points.size());
+        for (Point point : points) {
+            builder.add(point.x, point.y);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return number of points of the path.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i the position of the point in the path.
+     * @return the x coordinate of the point.
+     */
+    public int getX(int i) {
+        checkIndex(i);
+        return coordinates[i << 1];
+    }
+
+    /**
+     * @param i the position of the point in the path.
+     * @return the y coordinate of the point.
+     */
+    public int getY(int i) {
+        checkIndex(i);
+        return coordinates[(i << 1) + 1];
+    }
+
+    /**
+     * @param x the x coordinate of the point.
+     * @param y the y coordinate of the point.
+     * @return the position of the first occurrence of the point in the path, or -1 if the path does not contain it.
+     */
+    public int indexOf(int x, int y) {
+        for (int i = 0; i < size; i++) {
+            if (coordinates[i << 1] == x && coordinates[(i << 1) + 1] == y) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int x, int y) {
+        return indexOf(x, y) != -1;
+    }
+
+    /**
+     * @return a copy of the coordinates, x and y of the first point, then x and y of the second point, and so on.
+     */
+    public int[] getCoordinates() {
+        return Arrays.copyOf(coordinates, size << 1);
+    }
+
+    /**
+     * @return an unmodifiable view of the path as a list, creating a {@link Point} whenever an element is read.
+     */
+    public List<Point> asList() {
+        return new PointList();
+    }
+
+    /**
+     * @return a new modifiable list of the points of the path.
+     */
+    public List<Point> toList() {
+        List<Point> points = new ArrayList<>(size);
+        for (int i = 0; i < size << 1; i += 2) {
+            points.add(new Point(coordinates[i], coordinates[i + 1]));
+        }
+        return points;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Path)) {
+            return false;
+        }
+        Path that = (Path) obj;
+        if (size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size << 1; i++) {
+            if (coordinates[i] != that.coordinates[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size << 1; i++) {
+            hash = 31 * hash + coordinates[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Path[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('(').append(coordinates[i << 1]).append(',').append(coordinates[(i << 1) + 1]).append(')');
+        }
+        return sb.append(']').toString();
+    }
+
+    private class PointList extends AbstractList<Point> implements RandomAccess {
+        @Override
+        public Point get(int index) {
+            return new Point(getX(index), getY(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof Point ? Path.this.indexOf(((Point) o).x, ((Point) o).y) : -1;
+        }
+    }
+
+    /**
+     * Collects the points of a path. The builder must not be used any more after {@link #build()}.
+     */
+    public static final class Builder {
+        private int[] coordinates;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * @param capacity number of points to reserve space for.
+         */
+        public Builder(int capacity) {
+            coordinates = new int[Math.max(capacity, 1) << 1];
+        }
+
+        /**
+         * Append a point to the path.
+         *
+         * @param x the x coordinate of the point.
+         * @param y the y coordinate of the point.
+         * @return this builder.
+         */
+        public Builder add(int x, int y) {
+            if (size << 1 == coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length << 1);
+            }
+            coordinates[size << 1] = x;
+            coordinates[(size << 1) + 1] = y;
+            size++;
+            return this;
+        }
+
+        /**
+         * Remove the last point, if any.
+         *
+         * @return this builder.
+         */
+        public Builder removeLast() {
+            if (size > 0) {
+                size--;
+            }
+            return this;
+        }
+
+        /**
+         * Reverse the order of the collected points.
+         *
+         * @return this builder.
+         */
+        public Builder reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int x = coordinates[i << 1];
+                int y = coordinates[(i << 1) + 1];
+                coordinates[i << 1] = coordinates[j << 1];
+                coordinates[(i << 1) + 1] = coordinates[(j << 1) + 1];
+                coordinates[j << 1] = x;
+                coordinates[(j << 1) + 1] = y;
+            }
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the path of the collected points.
+         */
+        public Path build() {
+            return size == 0 ? EMPTY : new Path(coordinates, size);
+        }
+    }
+}
@@ -27,15 +27,6 @@ public class TeleporterNode extends Node {
      */
     public TeleporterNode(Node node) {
         this(node.getX(), node.getY());
-        setParent(node.getParent());
-        setFScore(node.getFScore());
-        setGScore(node.getGScore());
-        if (node.getHScore() != null) {
-            setHScore(node.getHScore());
-        }
-        setOpened(node.isOpened());
-        setClosed(node.isClosed());
-        setTested(node.isTested());
     }
 
     /**
@@ -44,16 +35,6 @@ public class TeleporterNode extends Node {
      * @return the converted node.
      */
     public Node toNormalNode() {
-        Node node = new Node(getX(), getY(), true);
-        node.setParent(getParent());
-        node.setFScore(getFScore());
-        node.setGScore(getGScore());
-        if (getHScore() != null) {
-            node.setHScore(getHScore());
-        }
-        node.setOpened(isOpened());
-        node.setClosed(isClosed());
-        node.setTested(isTested());
-        return node;
+        return new Node(getX(), getY(), true);
     }
 }
@@ -91,9 +91,6 @@ public class TunnelNode extends TeleporterNode {
     public String toString() {
         String inInfo = ins.stream().map(n -> "(" + n.getX() + "," + n.getY() + ")").collect(Collectors.toList()) + "=>";
         String outInfo = out != null ? "=>[" + out.getX() + "," + out.getY() + "]" : "";
-        String parentInfo = getParent() != null ? "(" + getParent().getX() + "," + getParent().getY() + ")->" : "";
-        return "Tunnel" + parentInfo + inInfo + "(" + getX() + "," + getY() + ")" + outInfo
-                + "{walkable:" + isWalkable() + ",opened:" + isOpened() + ",closed:" + isClosed()
-                + ",score:" + getGScore() + "+" + getHScore() + "=" + getFScore() + "}";
+        return "Tunnel" + inInfo + "(" + getX() + "," + getY() + ")" + outInfo + "{walkable:" + isWalkable() + "}";
     }
 }
@@ -30,9 +30,6 @@ public class WormholeNode extends TeleporterNode {
     @Override
     public String toString() {
         String peerInfo = peer != null ? "<=>[" + peer.getX() + "," + peer.getY() + "]" : "";
-        String parentInfo = getParent() != null ? "(" + getParent().getX() + "," + getParent().getY() + ")->" : "";
-        return "Wormhole" + parentInfo + "(" + getX() + "," + getY() + ")" + peerInfo
-                + "{walkable:" + isWalkable() + ",opened:" + isOpened() + ",closed:" + isClosed()
-                + ",score:" + getGScore() + "+" + getHScore() + "=" + getFScore() + "}";
+        return "Wormhole(" + getX() + "," + getY() + ")" + peerInfo + "{walkable:" + isWalkable() + "}";
     }
 }
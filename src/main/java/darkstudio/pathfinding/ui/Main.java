@@ -9,7 +9,7 @@
 package darkstudio.pathfinding.ui;
 
 import darkstudio.pathfinding.algorithm.DiagonalMovement;
-import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.FinderPool;
 import darkstudio.pathfinding.algorithm.Options;
 import darkstudio.pathfinding.model.Grid;
 import darkstudio.pathfinding.model.Node;
@@ -75,6 +75,7 @@ public class Main extends JFrame implements MouseListener {
     private List<Point> path;
     private JButton[][] buttons = new JButton[ROWS][COLS];
     private Grid grid = new Grid(COLS, ROWS);
+    private FinderPool finderPool = new FinderPool(DiagonalMovement.TeleportNever, new Options().checkTeleporter(true));
     private Node startNode = grid.getNodeAt(COLS / 3, ROWS / 2);
     private Node endNode = grid.getNodeAt(2 * COLS / 3, ROWS / 2);
     private JLabel infoBar;
@@ -212,8 +213,7 @@ public class Main extends JFrame implements MouseListener {
         grid.setupTunnels(draggableNodes.stream().filter(node -> node instanceof TunnelNode).map(node -> (TunnelNode) node).collect(Collectors.toList()));
 
         long startTs = System.currentTimeMillis();
-        JumpPointFinderBase finder = Util.jumpPointFinder(DiagonalMovement.TeleportNever, new Options().checkTeleporter(true));
-        path = finder.findPath(startNode.getX(), startNode.getY(), endNode.getX(), endNode.getY(), grid.reset());
+        path = finderPool.findPath(startNode.getX(), startNode.getY(), endNode.getX(), endNode.getY(), grid);
         long duration = System.currentTimeMillis() - startTs;
 
         if (path.isEmpty()) {
@@ -439,7 +439,7 @@ public class Main extends JFrame implements MouseListener {
             // Clicked on obstacle node: change it to normal walkable node when in editing mode.
             if (editMode == MODE_OBSTACLE) {
                 btn.setBackground(WALKABLE_NODE_COLOR);
-                node.setWalkable(true);
+                grid.setWalkableAt(node.getX(), node.getY(), true);
             }
             return;
         }
@@ -454,7 +454,7 @@ public class Main extends JFrame implements MouseListener {
         TunnelNode tunnelNode;
         switch (editMode) {
             case MODE_OBSTACLE:
-                node.setWalkable(false);
+                grid.setWalkableAt(node.getX(), node.getY(), false);
                 btn.setBackground(OBSTACLE_NODE_COLOR);
                 break;
             case MODE_WORMHOLE:
@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.utility;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Node;
+import darkstudio.pathfinding.model.TunnelNode;
+import darkstudio.pathfinding.model.WormholeNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * A binary snapshot of a {@link Grid}: its walkability, its wormhole and tunnel nodes with their links as analyzed by
+ * {@link Grid#setupTunnels(List)}, and optionally the jump tables of {@link JPSPlusFinder}s built for it. Restoring a
+ * snapshot neither parses text nor analyzes the tunnels again.
+ * <p>
+ * The file is little-endian. A header of magic number, {@link #VERSION}, width and height is followed by sections, each
+ * made of a tag, the length in bytes of its content and the content:
+ * <ul>
+ * <li>walkability: {@code ceil(width / 64)} longs per row, bit {@code x % 64} of a long set if the node is
+ * walkable.</li>
+ * <li>teleporters: the wormhole nodes with their peers, the tunnel nodes with their direction, out and in nodes, then
+ * the tunnel links, all nodes written as cell indices {@code y * width + x}, -1 for none.</li>
+ * <li>jump table: the number of directions of the tables, the direction, and the table of the direction.</li>
+ * </ul>
+ * Sections are memory mapped one at a time when read, and the arrays in them are copied in bulk. Unknown sections are
+ * skipped, so that later versions may add sections.
+ */
+public final class GridSnapshot {
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x50464753; // "PFGS"
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int SECTION_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int WALKABILITY = 1;
+    private static final int TELEPORTERS = 2;
+    private static final int JUMP_TABLE = 3;
+
+    private final Grid grid;
+    private final Map<Integer, int[][]> tables; // jump tables by their number of directions.
+
+    private GridSnapshot(Grid grid, Map<Integer, int[][]> tables) {
+        this.grid = grid;
+        this.tables = tables;
+    }
+
+    /**
+     * @return the restored grid.
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @param diagonalMovement the diagonal movement of a JPS+ finder.
+     * @return {@code true} if the snapshot has the jump tables for the diagonal movement.
+     */
+    public boolean hasJumpTables(DiagonalMovement diagonalMovement) {
+        return tables.containsKey(directions(diagonalMovement));
+    }
+
+    /**
+     * Get a JPS+ finder for the restored grid, using the jump tables of the snapshot if it has them for the diagonal
+     * movement, or building them otherwise.
+     *
+     * @param diagonalMovement the diagonal movement of the finder.
+     * @param options the options of the search.
+     * @return the finder.
+     */
+    public JPSPlusFinder getJPSPlusFinder(DiagonalMovement diagonalMovement, Options options) {
+        return new JPSPlusFinder(grid, diagonalMovement, options, tables.get(directions(diagonalMovement)));
+    }
+
+    private static int directions(DiagonalMovement diagonalMovement) {
+        return diagonalMovement == DiagonalMovement.Never ? 4 : 8;
+    }
+
+    /**
+     * Convert a MovingAI map into a snapshot.
+     *
+     * @param mapFile the map file, see {@link MapLoader}.
+     * @param snapshotFile the snapshot file to write.
+     * @param diagonalMovements the diagonal movements to write JPS+ jump tables for.
+     * @throws IOException if the map can not be read, or the snapshot can not be written.
+     */
+    public static void convert(File mapFile, File snapshotFile, DiagonalMovement... diagonalMovements)
+            throws IOException {
+        Grid grid = MapLoader.load(mapFile);
+        JPSPlusFinder[] finders = new JPSPlusFinder[diagonalMovements.length];
+        for (int i = 0; i < finders.length; i++) {
+            finders[i] = new JPSPlusFinder(grid, diagonalMovements[i], new Options());
+        }
+        write(snapshotFile, grid, finders);
+    }
+
+    /**
+     * Convert a MovingAI map into a snapshot: {@code GridSnapshot <map file> <snapshot file> [Always|Never]...}, where
+     * the diagonal movements tell which JPS+ jump tables to include.
+     *
+     * @param args the arguments.
+     * @throws IOException if the map can not be read, or the snapshot can not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GridSnapshot <map file> <snapshot file> [Always|Never]...");
+            System.exit(1);
+        }
+        DiagonalMovement[] diagonalMovements = new DiagonalMovement[args.length - 2];
+        for (int i = 2; i < args.length; i++) {
+            diagonalMovements[i - 2] = DiagonalMovement.valueOf(args[i]);
+        }
+        convert(new File(args[0]), new File(args[1]), diagonalMovements);
+    }
+
+    /**
+     * Write a snapshot of the specific grid.
+     *
+     * @param file the file to write.
+     * @param grid the grid.
+     * @param finders the JPS+ finders built for the grid, whose jump tables are written as well.
+     * @throws IOException if the file can not be written.
+     * @throws IllegalArgumentException if a finder was built for another grid.
+     */
+    public static void write(File file, Grid grid, JPSPlusFinder... finders) throws IOException {
+        for (JPSPlusFinder finder : finders) {
+            if (finder.getGrid() != grid) {
+                throw new IllegalArgumentException("The jump tables were built for another grid");
+            }
+        }
+
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            write(channel, header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height));
+
+            int rowWords = (width + 63) >>> 6;
+            long[] words = new long[height * rowWords];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (grid.isWalkableAt(x, y)) {
+                        words[y * rowWords + (x >>> 6)] |= 1L << (x & 63);
+                    }
+                }
+            }
+            ByteBuffer walkability = section(WALKABILITY, (long) words.length * Long.BYTES);
+            walkability.asLongBuffer().put(words);
+            write(channel, walkability);
+
+            int[] teleporters = teleporters(grid);
+            ByteBuffer teleporterSection = section(TELEPORTERS, (long) teleporters.length * Integer.BYTES);
+            teleporterSection.asIntBuffer().put(teleporters);
+            write(channel, teleporterSection);
+
+            for (JPSPlusFinder finder : finders) {
+                int[][] jumpTables = finder.getTables();
+                for (int direction = 0; direction < jumpTables.length; direction++) {
+                    ByteBuffer table = section(JUMP_TABLE, (2L + jumpTables[direction].length) * Integer.BYTES);
+                    table.asIntBuffer().put(jumpTables.length).put(direction).put(jumpTables[direction]);
+                    write(channel, table);
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocate a buffer for a section, with the section header put.
+     */
+    private static ByteBuffer section(int tag, long length) {
+        if (length > Integer.MAX_VALUE - SECTION_HEADER_BYTES) {
+            throw new IllegalArgumentException("Section too large: " + length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SECTION_HEADER_BYTES + (int) length).order(ByteOrder.LITTLE_ENDIAN);
+        return buffer.putInt(tag).putLong(length);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Collect the teleporters of the grid as the content of the teleporters section.
+     */
+    private static int[] teleporters(Grid grid) {
+        List<WormholeNode> wormholes = new ArrayList<>();
+        List<TunnelNode> tunnels = new ArrayList<>();
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                switch (grid.getTeleporterKindAt(x, y)) {
+                    case Grid.TELEPORTER_WORMHOLE:
+                        wormholes.add((WormholeNode) grid.getNodeAt(x, y));
+                        break;
+                    case Grid.TELEPORTER_TUNNEL:
+                        tunnels.add((TunnelNode) grid.getNodeAt(x, y));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        IntList content = new IntList();
+        content.add(wormholes.size());
+        for (WormholeNode wormhole : wormholes) {
+            content.add(cellOf(grid, wormhole));
+            content.add(cellOf(grid, wormhole.getPeer()));
+        }
+        content.add(tunnels.size());
+        for (TunnelNode tunnel : tunnels) {
+            content.add(cellOf(grid, tunnel));
+            content.add(tunnel.getDirection());
+            content.add(cellOf(grid, tunnel.getOut()));
+            content.add(tunnel.getIns().size());
+            for (TunnelNode in : tunnel.getIns()) {
+                content.add(cellOf(grid, in));
+            }
+        }
+        content.add(grid.getTunnels().size());
+        for (List<Node> link : grid.getTunnels()) {
+            content.add(link.size());
+            for (Node node : link) {
+                content.add(cellOf(grid, node));
+            }
+        }
+        return content.toArray();
+    }
+
+    private static int cellOf(Grid grid, Node node) {
+        return node == null ? -1 : node.getY() * grid.getWidth() + node.getX();
+    }
+
+    /**
+     * Read a snapshot into a {@link Grid}.
+     *
+     * @param file the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the file can not be read, or is not a valid snapshot.
+     */
+    public static GridSnapshot read(File file) throws IOException {
+        return read(file, Grid::new);
+    }
+
+    /**
+     * Read a snapshot into a grid created by the specific factory.
+     *
+     * @param file the snapshot file.
+     * @param gridFactory creates an all walkable grid of the given width and height, e.g. {@code CompactGrid::new}.
+     * @return the snapshot.
+     * @throws IOException if the file can not be read, or is not a valid snapshot.
+     */
+    public static GridSnapshot read(File file, BiFunction<Integer, Integer, ? extends Grid> gridFactory)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a grid snapshot: " + file);
+            }
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a grid snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported grid snapshot version: " + version);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            Grid grid = gridFactory.apply(width, height);
+
+            Map<Integer, int[][]> tables = new HashMap<>();
+            long position = HEADER_BYTES;
+            while (position < size) {
+                if (size - position < SECTION_HEADER_BYTES) {
+                    throw new IOException("Truncated grid snapshot: " + file);
+                }
+                ByteBuffer sectionHeader = map(channel, position, SECTION_HEADER_BYTES);
+                int tag = sectionHeader.getInt();
+                long length = sectionHeader.getLong();
+                position += SECTION_HEADER_BYTES;
+                if (length < 0 || length > size - position || length > Integer.MAX_VALUE) {
+                    throw new IOException("Truncated grid snapshot: " + file);
+                }
+                ByteBuffer content = map(channel, position, length);
+                position += length;
+                switch (tag) {
+                    case WALKABILITY:
+                        readWalkability(grid, content.asLongBuffer());
+                        break;
+                    case TELEPORTERS:
+                        readTeleporters(grid, content.asIntBuffer());
+                        break;
+                    case JUMP_TABLE:
+                        readJumpTable(grid, content.asIntBuffer(), tables);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            for (int[][] directionTables : tables.values()) {
+                for (int[] table : directionTables) {
+                    if (table == null) {
+                        throw new IOException("Invalid jump table in grid snapshot: missing direction");
+                    }
+                }
+            }
+            return new GridSnapshot(grid, tables);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void readWalkability(Grid grid, LongBuffer words) {
+        int width = grid.getWidth();
+        int rowWords = (width + 63) >>> 6;
+        long[] row = new long[rowWords];
+        for (int y = 0; y < grid.getHeight(); y++) {
+            words.get(row);
+            for (int word = 0; word < rowWords; word++) {
+                // only the blocked nodes of the all walkable grid need to be set.
+                long blocked = ~row[word];
+                if (word == rowWords - 1 && (width & 63) != 0) {
+                    blocked &= (1L << (width & 63)) - 1;
+                }
+                for (; blocked != 0; blocked &= blocked - 1) {
+                    grid.setWalkableAt((word << 6) + Long.numberOfTrailingZeros(blocked), y, false);
+                }
+            }
+        }
+    }
+
+    private static void readTeleporters(Grid grid, IntBuffer content) {
+        int width = grid.getWidth();
+        WormholeNode[] wormholes = new WormholeNode[content.get()];
+        int[] peers = new int[wormholes.length];
+        for (int i = 0; i < wormholes.length; i++) {
+            int cell = content.get();
+            wormholes[i] = new WormholeNode(cell % width, cell / width);
+            wormholes[i].setWalkable(grid.isWalkableAt(cell % width, cell / width));
+            grid.replaceNode(cell % width, cell / width, wormholes[i]);
+            peers[i] = content.get();
+        }
+        for (int i = 0; i < wormholes.length; i++) {
+            if (peers[i] != -1) {
+                wormholes[i].setPeer((WormholeNode) grid.getNodeAt(peers[i] % width, peers[i] / width));
+            }
+        }
+
+        // create all the tunnel nodes before linking them to each other.
+        int tunnelStart = content.position();
+        int tunnelCount = content.get();
+        for (int i = 0; i < tunnelCount; i++) {
+            int cell = content.get();
+            TunnelNode tunnel = new TunnelNode(cell % width, cell / width);
+            tunnel.setWalkable(grid.isWalkableAt(cell % width, cell / width));
+            tunnel.setDirection(content.get());
+            grid.replaceNode(cell % width, cell / width, tunnel);
+            content.get(); // out
+            int ins = content.get();
+            content.position(content.position() + ins);
+        }
+        content.position(tunnelStart + 1);
+        for (int i = 0; i < tunnelCount; i++) {
+            TunnelNode tunnel = (TunnelNode) nodeAt(grid, content.get());
+            content.get(); // direction
+            tunnel.setOut(nodeAt(grid, content.get()));
+            for (int in = content.get(); in > 0; in--) {
+                tunnel.addIn((TunnelNode) nodeAt(grid, content.get()));
+            }
+        }
+
+        List<List<Node>> links = new ArrayList<>();
+        for (int linkCount = content.get(); linkCount > 0; linkCount--) {
+            List<Node> link = new ArrayList<>();
+            for (int length = content.get(); length > 0; length--) {
+                link.add(nodeAt(grid, content.get()));
+            }
+            links.add(link);
+        }
+        grid.setTunnels(links);
+    }
+
+    private static Node nodeAt(Grid grid, int cell) {
+        return cell == -1 ? null : grid.getNodeAt(cell % grid.getWidth(), cell / grid.getWidth());
+    }
+
+    private static void readJumpTable(Grid grid, IntBuffer content, Map<Integer, int[][]> tables) throws IOException {
+        int directions = content.get();
+        int direction = content.get();
+        if ((directions != 4 && directions != 8) || direction < 0 || direction >= directions
+                || content.remaining() != grid.getWidth() * grid.getHeight()) {
+            throw new IOException("Invalid jump table in grid snapshot");
+        }
+        int[] table = new int[content.remaining()];
+        content.get(table);
+        tables.computeIfAbsent(directions, key -> new int[directions][])[direction] = table;
+    }
+
+    /**
+     * A growable list of primitive ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.utility;
+
+import darkstudio.pathfinding.model.Grid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiFunction;
+
+/**
+ * Loads maps in the MovingAI format, i.e. a header of {@code type}, {@code height}, {@code width} and {@code map}
+ * lines, followed by one line of characters per row. '.', 'G' and 'S' are walkable, any other character is not.
+ * <p>
+ * The file is memory mapped a window at a time and its rows are parsed byte by byte into the grid, so that no text is
+ * copied into the heap and maps larger than the heap can be loaded into a compact grid, e.g.
+ * {@code MapLoader.load(file, CompactGrid::new)}.
+ */
+public final class MapLoader {
+    private static final long WINDOW = 1 << 26; // bytes of the file mapped at a time.
+
+    private MapLoader() {
+    }
+
+    /**
+     * Load the specific map into a {@link Grid}.
+     *
+     * @param file the map file.
+     * @return the loaded grid.
+     * @throws IOException if the file can not be read, or is not a valid map.
+     */
+    public static Grid load(File file) throws IOException {
+        return load(file, Grid::new);
+    }
+
+    /**
+     * Load the specific map into a grid created by the specific factory.
+     *
+     * @param file the map file.
+     * @param gridFactory creates an all walkable grid of the given width and height, e.g. {@code CompactGrid::new}.
+     * @param <T> the type of the grid.
+     * @return the loaded grid.
+     * @throws IOException if the file can not be read, or is not a valid map.
+     */
+    public static <T extends Grid> T load(File file, BiFunction<Integer, Integer, T> gridFactory) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+            int width = -1;
+            int height = -1;
+            header:
+            while (true) {
+                String keyword = reader.readWord();
+                switch (keyword) {
+                    case "type":
+                        reader.readWord();
+                        break;
+                    case "height":
+                        height = reader.readInt();
+                        break;
+                    case "width":
+                        width = reader.readInt();
+                        break;
+                    case "map":
+                        break header;
+                    default:
+                        throw new IOException("Unexpected map header: " + keyword);
+                }
+            }
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid map size: " + width + "x" + height);
+            }
+
+            T grid = gridFactory.apply(width, height);
+            for (int y = 0; y < height; y++) {
+                reader.skipLineBreaks();
+                reader.readRow(grid, y);
+            }
+            return grid;
+        }
+    }
+
+    /**
+     * Reads the bytes of a file through successive memory mapped windows.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long mapped; // position in the file of the end of the current window.
+        private MappedByteBuffer buffer;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        /**
+         * @return {@code false} if the end of the file is reached.
+         */
+        private boolean fill() throws IOException {
+            if (buffer != null && buffer.hasRemaining()) {
+                return true;
+            }
+            if (mapped >= size) {
+                return false;
+            }
+            long length = Math.min(WINDOW, size - mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+            mapped += length;
+            return true;
+        }
+
+        int read() throws IOException {
+            return fill() ? buffer.get() & 0xFF : -1;
+        }
+
+        int peek() throws IOException {
+            return fill() ? buffer.get(buffer.position()) & 0xFF : -1;
+        }
+
+        /**
+         * Read a row of the map, scanning the mapped bytes directly, and mark the un-walkable nodes of the grid.
+         */
+        void readRow(Grid grid, int y) throws IOException {
+            int width = grid.getWidth();
+            int x = 0;
+            while (x < width) {
+                if (!fill()) {
+                    throw new IOException("Row " + y + " is shorter than " + width);
+                }
+                int start = buffer.position();
+                int end = Math.min(buffer.limit(), start + width - x);
+                for (int i = start; i < end; i++, x++) {
+                    byte c = buffer.get(i);
+                    if (c == '\r' || c == '\n') {
+                        throw new IOException("Row " + y + " is shorter than " + width);
+                    }
+                    if (c != '.' && c != 'G' && c != 'S') {
+                        grid.setWalkableAt(x, y, false);
+                    }
+                }
+                buffer.position(end);
+            }
+            int c = peek();
+            if (c != '\r' && c != '\n' && c != -1) {
+                throw new IOException("Row " + y + " is longer than " + width);
+            }
+        }
+
+        void skipLineBreaks() throws IOException {
+            for (int c = peek(); c == '\r' || c == '\n'; c = peek()) {
+                read();
+            }
+        }
+
+        String readWord() throws IOException {
+            int c = read();
+            while (Character.isWhitespace(c)) {
+                c = read();
+            }
+            if (c == -1) {
+                throw new IOException("Unexpected end of map header");
+            }
+            StringBuilder word = new StringBuilder();
+            while (c != -1 && !Character.isWhitespace(c)) {
+                word.append((char) c);
+                c = read();
+            }
+            return word.toString();
+        }
+
+        int readInt() throws IOException {
+            String word = readWord();
+            try {
+                return Integer.parseInt(word);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid number in map header: " + word, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2019-present Dark Studio
+ * All rights, including trade secret rights, reserved.
+ *
+ * @author Oscar Cai <blackmuffus@yahoo.com>
+ */
+
+package darkstudio.pathfinding.utility;
+
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.HPAFinder;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.model.BitGrid;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runs the queries of a MovingAI scenario file through a finder, and reports per bucket how long they took, how many
+ * nodes they expanded and how far their paths are from the optimal lengths of the scenario.
+ * <p>
+ * A scenario file starts with a {@code version} line, followed by one query per line of tab separated bucket, map,
+ * map width, map height, start x, start y, goal x, goal y and optimal length. The maps are looked up relative to the
+ * directory of the scenario file, by their path and then by their name.
+ * <p>
+ * Note that the optimal lengths of the MovingAI benchmarks do not allow cutting corners, so that a finder which does,
+ * e.g. for {@link DiagonalMovement#Always}, may report paths shorter than optimal, i.e. a negative suboptimality.
+ */
+public final class ScenarioRunner {
+    private static final double TOLERANCE = 1e-4; // of the lengths, which are written with 8 decimals.
+    private static final int HPA_CLUSTER_SIZE = 16;
+
+    private final BiFunction<Integer, Integer, ? extends Grid> gridFactory;
+    private final Function<Grid, ? extends JumpPointFinderBase> finderFactory;
+
+    /**
+     * Run the queries on {@link Grid}s through the specific finder.
+     *
+     * @param finder the finder.
+     */
+    public ScenarioRunner(JumpPointFinderBase finder) {
+        this(Grid::new, grid -> finder);
+    }
+
+    /**
+     * Run the queries on grids created by the specific factory, through finders created for each map, e.g. a
+     * {@link JPSPlusFinder}.
+     *
+     * @param gridFactory creates an all walkable grid of the given width and height, see {@link MapLoader}.
+     * @param finderFactory creates the finder of a loaded map.
+     */
+    public ScenarioRunner(BiFunction<Integer, Integer, ? extends Grid> gridFactory,
+                          Function<Grid, ? extends JumpPointFinderBase> finderFactory) {
+        this.gridFactory = gridFactory;
+        this.finderFactory = finderFactory;
+    }
+
+    /**
+     * Read the queries of a scenario file.
+     *
+     * @param file the scenario file.
+     * @return the queries, in the order of the file.
+     * @throws IOException if the file can not be read, or is not a valid scenario.
+     */
+    public static List<Scenario> load(File file) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.US_ASCII)) {
+            String line = reader.readLine();
+            if (line == null || !line.startsWith("version")) {
+                throw new IOException("Not a scenario file: " + file);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 9) {
+                    throw new IOException("Invalid scenario: " + line);
+                }
+                try {
+                    scenarios.add(new Scenario(Integer.parseInt(fields[0]), fields[1], Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+                            Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+                            Double.parseDouble(fields[8])));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid scenario: " + line, e);
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Run all the queries of a scenario file, each once.
+     *
+     * @param file the scenario file.
+     * @return the statistics of the buckets, ordered by bucket.
+     * @throws IOException if the scenario or one of its maps can not be read.
+     */
+    public List<Bucket> run(File file) throws IOException {
+        Map<Integer, Bucket> buckets = new TreeMap<>();
+        String map = null;
+        JumpPointFinderBase finder = null;
+        SearchContext context = null;
+        for (Scenario scenario : load(file)) {
+            if (!scenario.getMap().equals(map)) {
+                map = scenario.getMap();
+                Grid grid = MapLoader.load(findMap(file, map), gridFactory);
+                if (grid.getWidth() != scenario.getWidth() || grid.getHeight() != scenario.getHeight()) {
+                    throw new IOException("Size of map " + map + " does not fit its scenarios");
+                }
+                finder = finderFactory.apply(grid);
+                context = new SearchContext(grid);
+            }
+
+            long start = System.nanoTime();
+            Path path = finder.findCompactPath(scenario.getStartX(), scenario.getStartY(), scenario.getGoalX(),
+                    scenario.getGoalY(), context);
+            long nanos = System.nanoTime() - start;
+            buckets.computeIfAbsent(scenario.getBucket(), Bucket::new).add(scenario, path, nanos,
+                    context.getExpandedNodes());
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    private static File findMap(File scenarioFile, String map) throws IOException {
+        File dir = scenarioFile.getAbsoluteFile().getParentFile();
+        File file = new File(dir, map);
+        if (!file.isFile()) {
+            file = new File(dir, new File(map).getName());
+        }
+        if (!file.isFile()) {
+            throw new IOException("Map not found: " + map);
+        }
+        return file;
+    }
+
+    /**
+     * Write the statistics of the buckets as CSV, with a header line.
+     *
+     * @param buckets the statistics of the buckets.
+     * @param out the output.
+     * @throws IOException if the output can not be written.
+     */
+    public static void writeCsv(List<Bucket> buckets, Appendable out) throws IOException {
+        out.append("bucket,queries,failed,suboptimal,total_ms,mean_us,max_us,mean_expanded,mean_suboptimality,"
+                + "max_suboptimality\n");
+        for (Bucket bucket : buckets) {
+            out.append(String.format(Locale.ROOT, "%d,%d,%d,%d,%.3f,%.3f,%.3f,%.1f,%.6f,%.6f%n", bucket.getBucket(),
+                    bucket.getQueries(), bucket.getFailed(), bucket.getSuboptimal(), bucket.getTotalNanos() / 1e6,
+                    bucket.getMeanNanos() / 1e3, bucket.getMaxNanos() / 1e3, bucket.getMeanExpandedNodes(),
+                    bucket.getMeanSuboptimality(), bucket.getMaxSuboptimality()));
+        }
+    }
+
+    /**
+     * Run a scenario file and write its report:
+     * {@code ScenarioRunner <scenario file> <csv file> [diagonal movement] [jps|bitScan|jpsPlus|hpa]}, by default
+     * {@code Always jps}. The queries are run once to warm up before the measured run, and the octile heuristic is
+     * used. {@code hpa} uses clusters of {@value #HPA_CLUSTER_SIZE}x{@value #HPA_CLUSTER_SIZE} nodes.
+     *
+     * @param args the arguments.
+     * @throws IOException if the scenario or one of its maps can not be read, or the report can not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ScenarioRunner <scenario file> <csv file> [diagonal movement] "
+                    + "[jps|bitScan|jpsPlus|hpa]");
+            System.exit(1);
+        }
+        DiagonalMovement diagonalMovement = args.length > 2
+                ? DiagonalMovement.valueOf(args[2]) : DiagonalMovement.Always;
+        String algorithm = args.length > 3 ? args[3] : "jps";
+        Options options = new Options().heuristic(Heuristic::octile);
+        ScenarioRunner runner;
+        switch (algorithm) {
+            case "jps":
+                runner = new ScenarioRunner(Util.jumpPointFinder(diagonalMovement, options));
+                break;
+            case "bitScan":
+                JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options.bitScan(true));
+                runner = new ScenarioRunner(BitGrid::new, grid -> finder);
+                break;
+            case "jpsPlus":
+                runner = new ScenarioRunner(Grid::new, grid -> new JPSPlusFinder(grid, diagonalMovement, options));
+                break;
+            case "hpa":
+                runner = new ScenarioRunner(Grid::new, grid -> new HPAFinder(grid, HPA_CLUSTER_SIZE, diagonalMovement,
+                        options));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+
+        File file = new File(args[0]);
+        runner.run(file);
+        List<Bucket> buckets = runner.run(file);
+        try (Writer writer = new FileWriter(args[1])) {
+            writeCsv(buckets, writer);
+        }
+    }
+
+    /**
+     * A query of a scenario file.
+     */
+    public static final class Scenario {
+        private final int bucket;
+        private final String map;
+        private final int width;
+        private final int height;
+        private final int startX;
+        private final int startY;
+        private final int goalX;
+        private final int goalY;
+        private final double optimalLength;
+
+        Scenario(int bucket, String map, int width, int height, int startX, int startY, int goalX, int goalY,
+                 double optimalLength) {
+            this.bucket = bucket;
+            this.map = map;
+            this.width = width;
+            this.height = height;
+            this.startX = startX;
+            this.startY = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+            this.optimalLength = optimalLength;
+        }
+
+        public int getBucket() {
+            return bucket;
+        }
+
+        public String getMap() {
+            return map;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getStartX() {
+            return startX;
+        }
+
+        public int getStartY() {
+            return startY;
+        }
+
+        public int getGoalX() {
+            return goalX;
+        }
+
+        public int getGoalY() {
+            return goalY;
+        }
+
+        public double getOptimalLength() {
+            return optimalLength;
+        }
+    }
+
+    /**
+     * The statistics of the queries of a bucket.
+     */
+    public static final class Bucket {
+        private final int bucket;
+        private int queries;
+        private int failed;
+        private int suboptimal;
+        private long totalNanos;
+        private long maxNanos;
+        private long expandedNodes;
+        private double totalSuboptimality;
+        private double maxSuboptimality = Double.NEGATIVE_INFINITY;
+
+        Bucket(int bucket) {
+            this.bucket = bucket;
+        }
+
+        void add(Scenario scenario, Path path, long nanos, int expanded) {
+            queries++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            expandedNodes += expanded;
+            double optimal = scenario.getOptimalLength();
+            // the finders return no path when the start is the goal, which solves a scenario of optimal length 0.
+            boolean trivial = scenario.getStartX() == scenario.getGoalX() && scenario.getStartY() == scenario.getGoalY()
+                    && optimal <= TOLERANCE;
+            if (path.isEmpty() && !trivial) {
+                failed++;
+                return;
+            }
+            double length = path.isEmpty() ? 0 : Util.pathLength(path);
+            // the optimal lengths are rounded, so that lengths within the tolerance count as optimal.
+            double suboptimality = Math.abs(length - optimal) <= TOLERANCE ? 0
+                    : optimal > 0 ? length / optimal - 1 : length;
+            totalSuboptimality += suboptimality;
+            maxSuboptimality = Math.max(maxSuboptimality, suboptimality);
+            if (length > optimal + TOLERANCE) {
+                suboptimal++;
+            }
+        }
+
+        public int getBucket() {
+            return bucket;
+        }
+
+        public int getQueries() {
+            return queries;
+        }
+
+        /**
+         * @return number of queries which found no path.
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return number of queries whose path is longer than the optimal length.
+         */
+        public int getSuboptimal() {
+            return suboptimal;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public double getMeanNanos() {
+            return queries == 0 ? 0 : (double) totalNanos / queries;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanExpandedNodes() {
+            return queries == 0 ? 0 : (double) expandedNodes / queries;
+        }
+
+        /**
+         * @return mean of {@code length / optimal length - 1} over the queries which found a path.
+         */
+        public double getMeanSuboptimality() {
+            int found = queries - failed;
+            return found == 0 ? 0 : totalSuboptimality / found;
+        }
+
+        public double getMaxSuboptimality() {
+            return queries == failed ? 0 : maxSuboptimality;
+        }
+    }
+}
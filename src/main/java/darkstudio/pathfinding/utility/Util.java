@@ -10,50 +10,60 @@ package darkstudio.pathfinding.utility;
 
 import darkstudio.pathfinding.algorithm.DiagonalMovement;
 import darkstudio.pathfinding.algorithm.JPFAlwaysMoveDiagonally;
+import darkstudio.pathfinding.algorithm.JPFAlwaysMoveDiagonallyBitScan;
 import darkstudio.pathfinding.algorithm.JPFNeverMoveDiagonally;
+import darkstudio.pathfinding.algorithm.JPFNeverMoveDiagonallyBitScan;
 import darkstudio.pathfinding.algorithm.JPFTeleportMoveOrthogonally;
 import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
 import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.SearchContext;
 import darkstudio.pathfinding.model.Grid;
 import darkstudio.pathfinding.model.Node;
+import darkstudio.pathfinding.model.Path;
 
 import java.awt.Color;
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class Util {
     /**
      * Backtrace according to the parent records and return the path including both start and end nodes.
      *
-     * @param node the end node
+     * @param context the state of the search
+     * @param node the cell index of the end node
      * @return the path
      */
-    public static List<Point> backtrace(Node node) {
-        List<Point> path = new ArrayList<>();
-        path.add(new Point(node.getX(), node.getY()));
-        while (node.getParent() != null) {
-            node = node.getParent();
-            path.add(new Point(node.getX(), node.getY()));
+    public static Path backtrace(SearchContext context, int node) {
+        Path.Builder path = new Path.Builder();
+        path.add(context.getX(node), context.getY(node));
+        while (context.getParent(node) != -1) {
+            node = context.getParent(node);
+            path.add(context.getX(node), context.getY(node));
         }
-        Collections.reverse(path);
-        return path;
+        return path.reverse().build();
     }
 
     /**
      * Backtrace from start and end node, and return the path including both start and end nodes.
      *
-     * @param nodeA the end node
-     * @param nodeB the other end node
+     * @param contextA the state of the search from the start node
+     * @param nodeA the cell index of the end node
+     * @param contextB the state of the search from the end node
+     * @param nodeB the cell index of the other end node
      * @return the path
      */
-    public static List<Point> biBacktrace(Node nodeA, Node nodeB) {
-        List<Point> pathA = backtrace(nodeA);
-        List<Point> pathB = backtrace(nodeB);
-        Collections.reverse(pathB);
-        pathA.addAll(pathB);
-        return pathA;
+    public static Path biBacktrace(SearchContext contextA, int nodeA, SearchContext contextB, int nodeB) {
+        Path pathA = backtrace(contextA, nodeA);
+        Path pathB = backtrace(contextB, nodeB);
+        Path.Builder builder = new Path.Builder(pathA.size() + pathB.size());
+        for (int i = 0; i < pathA.size(); i++) {
+            builder.add(pathA.getX(i), pathA.getY(i));
+        }
+        for (int i = pathB.size() - 1; i >= 0; i--) {
+            builder.add(pathB.getX(i), pathB.getY(i));
+        }
+        return builder.build();
     }
 
     /**
@@ -73,6 +83,20 @@ public class Util {
         return sum;
     }
 
+    /**
+     * Compute the length of the path.
+     *
+     * @param path the path
+     * @return the length of the path
+     */
+    public static double pathLength(Path path) {
+        double sum = 0;
+        for (int i = 1; i < path.size(); i++) {
+            sum += Math.hypot(path.getX(i - 1) - path.getX(i), path.getY(i - 1) - path.getY(i));
+        }
+        return sum;
+    }
+
     /**
      * Given the start and end coordinates, return all the coordinates lying on the line formed by these coordinates,
      * based on Bresenham's algorithm.
@@ -85,7 +109,22 @@ public class Util {
      * @return the coordinates on the line
      */
     public static List<Point> interpolate(int x0, int y0, int x1, int y1) {
-        List<Point> line = new ArrayList<>();
+        Path.Builder line = new Path.Builder();
+        interpolate(x0, y0, x1, y1, line);
+        return new ArrayList<>(line.build().asList());
+    }
+
+    /**
+     * Given the start and end coordinates, append all the coordinates lying on the line formed by these coordinates to
+     * the specific path, based on Bresenham's algorithm.
+     *
+     * @param x0 start x coordinate
+     * @param y0 start y coordinate
+     * @param x1 end x coordinate
+     * @param y1 end y coordinate
+     * @param line the path to append the coordinates to
+     */
+    public static void interpolate(int x0, int y0, int x1, int y1, Path.Builder line) {
         int sx, sy, dx, dy, err, e2;
 
         dx = Math.abs(x1 - x0);
@@ -97,7 +136,7 @@ public class Util {
         err = dx - dy;
 
         while (true) {
-            line.add(new Point(x0, y0));
+            line.add(x0, y0);
 
             if (x0 == x1 && y0 == y1) {
                 break;
@@ -113,8 +152,6 @@ public class Util {
                 y0 = y0 + sy;
             }
         }
-
-        return line;
     }
 
     /**
@@ -125,29 +162,38 @@ public class Util {
      * @return expanded path
      */
     public static List<Point> expandTeleportPath(List<Point> path, Grid grid) {
-        List<Point> expanded = new ArrayList<>();
-        Point coord0;
-        Point coord1;
-        List<Point> interpolated;
+        return new ArrayList<>(expandTeleportPath(Path.of(path), grid).asList());
+    }
+
+    /**
+     * Given a compressed teleporting path, return a new path that has all the segments in it interpolated.
+     *
+     * @param path the path
+     * @param grid the map
+     * @return expanded path
+     */
+    public static Path expandTeleportPath(Path path, Grid grid) {
+        Path.Builder expanded = new Path.Builder(path.size() * 4);
+        int x0, y0, x1, y1;
         Node end;
 
         if (path.size() < 2) {
-            return expanded;
+            return Path.EMPTY;
         }
 
         for (int i = 0; i < path.size() - 1; i++) {
-            coord0 = path.get(i);
-            coord1 = path.get(i + 1);
+            x0 = path.getX(i);
+            y0 = path.getY(i);
+            x1 = path.getX(i + 1);
+            y1 = path.getY(i + 1);
 
-            switch (grid.getTeleporterType(coord0.x, coord0.y, coord1.x, coord1.y)) {
+            switch (grid.getTeleporterType(x0, y0, x1, y1)) {
                 case Grid.TELEPORT_NORMAL_NORMAL:
                 case Grid.TELEPORT_NORMAL_TUNNEL:
                 case Grid.TELEPORT_NORMAL_OT_TUNNEL: // FIXME: really interpolate as following?
                 case Grid.TELEPORT_NORMAL_WORMHOLE:
-                    interpolated = interpolate(coord0.x, coord0.y, coord1.x, coord1.y);
-                    for (int j = 0; j < interpolated.size() - 1; j++) {
-                        expanded.add(interpolated.get(j));
-                    }
+                    interpolate(x0, y0, x1, y1, expanded);
+                    expanded.removeLast();
                     break;
                 case Grid.TELEPORT_TUNNEL_NORMAL:
                 case Grid.TELEPORT_TUNNEL_TUNNEL:
@@ -157,25 +203,23 @@ public class Util {
                 case Grid.TELEPORT_WORMHOLE_OT_TUNNEL:
                 case Grid.TELEPORT_WORMHOLE_TUNNEL:
                 case Grid.TELEPORT_WORMHOLE_WORMHOLE:
-                    expanded.add(coord0);
-                    end = grid.getFinalEnd(coord0.x, coord0.y);
-                    interpolated = interpolate(end.getX(), end.getY(), coord1.x, coord1.y);
-                    for (int j = 0; j < interpolated.size() - 1; j++) {
-                        expanded.add(interpolated.get(j));
-                    }
+                    expanded.add(x0, y0);
+                    end = grid.getFinalEnd(x0, y0);
+                    interpolate(end.getX(), end.getY(), x1, y1, expanded);
+                    expanded.removeLast();
                     break;
                 case Grid.TELEPORT_TUNNEL_TO_NORMAL:
                 case Grid.TELEPORT_TUNNEL_TO_TUNNEL:
                 case Grid.TELEPORT_TUNNEL_TO_WORMHOLE:
                 case Grid.TELEPORT_WORMHOLE_TO_WORMHOLE:
-                    expanded.add(coord0);
-                    expanded.add(coord1);
+                    expanded.add(x0, y0);
+                    expanded.add(x1, y1);
                     break;
             }
         }
-        expanded.add(path.get(path.size() - 1));
+        expanded.add(path.getX(path.size() - 1), path.getY(path.size() - 1));
 
-        return expanded;
+        return expanded.build();
     }
 
     /**
@@ -186,26 +230,29 @@ public class Util {
      * @return expanded path
      */
     public static List<Point> expandPath(List<Point> path, Grid grid) {
-        List<Point> expanded = new ArrayList<>();
-        Point coord0;
-        Point coord1;
-        List<Point> interpolated;
+        return new ArrayList<>(expandPath(Path.of(path), grid).asList());
+    }
 
+    /**
+     * Given a compressed path, return a new path that has all the segments in it interpolated.
+     *
+     * @param path the path
+     * @param grid the map
+     * @return expanded path
+     */
+    public static Path expandPath(Path path, Grid grid) {
         if (path.size() < 2) {
-            return expanded;
+            return Path.EMPTY;
         }
 
+        Path.Builder expanded = new Path.Builder(path.size() * 4);
         for (int i = 0; i < path.size() - 1; i++) {
-            coord0 = path.get(i);
-            coord1 = path.get(i + 1);
-            interpolated = interpolate(coord0.x, coord0.y, coord1.x, coord1.y);
-            for (int j = 0; j < interpolated.size() - 1; j++) {
-                expanded.add(interpolated.get(j));
-            }
+            interpolate(path.getX(i), path.getY(i), path.getX(i + 1), path.getY(i + 1), expanded);
+            expanded.removeLast();
         }
-        expanded.add(path.get(path.size() - 1));
+        expanded.add(path.getX(path.size() - 1), path.getY(path.size() - 1));
 
-        return expanded;
+        return expanded.build();
     }
 
     /**
@@ -216,46 +263,65 @@ public class Util {
      * @return smoothed path
      */
     public static List<Point> smoothenPath(Grid grid, List<Point> path) {
-        int x0 = path.get(0).x;                // path start x
-        int y0 = path.get(0).y;                // path start y
-        int x1 = path.get(path.size() - 1).x;  // path end x
-        int y1 = path.get(path.size() - 1).y;  // path end y
-        int sx, sy;                            // current start coordinate
-        int ex, ey;                            // current end coordinate
-        List<Point> newPath = new ArrayList<>();
-        List<Point> line;
-        Point coord, testCoord, lastValidCoord;
-        boolean blocked;
-
-        sx = x0;
-        sy = y0;
-        newPath.add(new Point(sx, sy));
+        return new ArrayList<>(smoothenPath(grid, Path.of(path)).asList());
+    }
+
+    /**
+     * Smoothen the give path. The original path will not be modified and a new path will be returned.
+     *
+     * @param grid
+     * @param path The path
+     * @return smoothed path
+     */
+    public static Path smoothenPath(Grid grid, Path path) {
+        int x1 = path.getX(path.size() - 1);  // path end x
+        int y1 = path.getY(path.size() - 1);  // path end y
+        int sx, sy;                           // current start coordinate
+        Path.Builder newPath = new Path.Builder();
+
+        sx = path.getX(0);
+        sy = path.getY(0);
+        newPath.add(sx, sy);
 
         for (int i = 2; i < path.size(); i++) {
-            coord = path.get(i);
-            ex = coord.x;
-            ey = coord.y;
-            line = interpolate(sx, sy, ex, ey);
+            if (!isLineWalkable(grid, sx, sy, path.getX(i), path.getY(i))) {
+                sx = path.getX(i - 1);
+                sy = path.getY(i - 1);
+                newPath.add(sx, sy);
+            }
+        }
+        newPath.add(x1, y1);
 
-            blocked = false;
-            for (int j = 1; j < line.size(); j++) {
-                testCoord = line.get(j);
+        return newPath.build();
+    }
 
-                if (!grid.isWalkableAt(testCoord.x, testCoord.y)) {
-                    blocked = true;
-                    break;
-                }
+    /**
+     * Determine whether all the coordinates on the line between the specific coordinates, except the start one, are
+     * walkable. Same line as {@link #interpolate(int, int, int, int)}, without collecting the coordinates.
+     */
+    private static boolean isLineWalkable(Grid grid, int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = Math.abs(y1 - y0);
+        int sx = (x0 < x1) ? 1 : -1;
+        int sy = (y0 < y1) ? 1 : -1;
+        int err = dx - dy;
+        int e2;
+
+        while (x0 != x1 || y0 != y1) {
+            e2 = 2 * err;
+            if (e2 > -dy) {
+                err = err - dy;
+                x0 = x0 + sx;
+            }
+            if (e2 < dx) {
+                err = err + dx;
+                y0 = y0 + sy;
             }
-            if (blocked) {
-                lastValidCoord = path.get(i - 1);
-                newPath.add(lastValidCoord);
-                sx = lastValidCoord.x;
-                sy = lastValidCoord.y;
+            if (!grid.isWalkableAt(x0, y0)) {
+                return false;
             }
         }
-        newPath.add(new Point(x1, y1));
-
-        return newPath;
+        return true;
     }
 
     /**
@@ -269,12 +335,26 @@ public class Util {
         if (path.size() < 3) {
             return path;
         }
+        return new ArrayList<>(compressPath(Path.of(path)).asList());
+    }
+
+    /**
+     * Compress a path, remove redundant nodes without altering the shape.
+     *
+     * @param path the path
+     * @return the compressed path
+     */
+    public static Path compressPath(Path path) {
+        // nothing to compress
+        if (path.size() < 3) {
+            return path;
+        }
 
-        List<Point> compressed = new ArrayList<>();
-        int sx = path.get(0).x; // start x
-        int sy = path.get(0).y; // start y
-        int px = path.get(1).x; // second point x
-        int py = path.get(1).y; // second point y
+        Path.Builder compressed = new Path.Builder();
+        int sx = path.getX(0); // start x
+        int sy = path.getY(0); // start y
+        int px = path.getX(1); // second point x
+        int py = path.getY(1); // second point y
         double dx = px - sx; // direction between the two points
         double dy = py - sy; // direction between the two points
         int lx, ly;
@@ -287,7 +367,7 @@ public class Util {
         dy /= sq;
 
         // start the new path
-        compressed.add(new Point(sx, sy));
+        compressed.add(sx, sy);
 
         for (int i = 2; i < path.size(); i++) {
             // store the last point
@@ -299,8 +379,8 @@ public class Util {
             ldy = dy;
 
             // next point
-            px = path.get(i).x;
-            py = path.get(i).y;
+            px = path.getX(i);
+            py = path.getY(i);
 
             // next direction
             dx = px - lx;
@@ -313,24 +393,24 @@ public class Util {
 
             // if the direction has changed, store the point
             if (dx != ldx || dy != ldy) {
-                compressed.add(new Point(lx, ly));
+                compressed.add(lx, ly);
             }
         }
 
         // store the last point
-        compressed.add(new Point(px, py));
+        compressed.add(px, py);
 
-        return compressed;
+        return compressed.build();
     }
 
     public static JumpPointFinderBase jumpPointFinder(DiagonalMovement diagonalMovement, Options options) {
         switch (diagonalMovement) {
             case Never:
-                return new JPFNeverMoveDiagonally(options);
+                return options.bitScan() ? new JPFNeverMoveDiagonallyBitScan(options) : new JPFNeverMoveDiagonally(options);
             case TeleportNever:
                 return new JPFTeleportMoveOrthogonally(options);
             default:
-                return new JPFAlwaysMoveDiagonally(options);
+                return options.bitScan() ? new JPFAlwaysMoveDiagonallyBitScan(options) : new JPFAlwaysMoveDiagonally(options);
         }
     }
 
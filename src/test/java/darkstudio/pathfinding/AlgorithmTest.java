@@ -7,44 +7,774 @@
 
 package darkstudio.pathfinding;
 
-import darkstudio.pathfinding.model.Node;
+import darkstudio.pathfinding.algorithm.BiJPSFinder;
+import darkstudio.pathfinding.algorithm.DStarLitePlanner;
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Direction;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.FinderPool;
+import darkstudio.pathfinding.algorithm.FlowField;
+import darkstudio.pathfinding.algorithm.GoalPath;
+import darkstudio.pathfinding.algorithm.HPAFinder;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
+import darkstudio.pathfinding.algorithm.MovingTargetPlanner;
+import darkstudio.pathfinding.algorithm.MultiGoalFinder;
+import darkstudio.pathfinding.algorithm.OpenList;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.algorithm.PathCache;
+import darkstudio.pathfinding.algorithm.PathQuery;
+import darkstudio.pathfinding.algorithm.SearchContext;
+import darkstudio.pathfinding.algorithm.SearchStats;
+import darkstudio.pathfinding.model.BitGrid;
+import darkstudio.pathfinding.model.CompactGrid;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Path;
 import darkstudio.pathfinding.model.TunnelNode;
+import darkstudio.pathfinding.model.WormholeNode;
+import darkstudio.pathfinding.utility.Util;
 import org.junit.Test;
 
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class AlgorithmTest {
     @Test
     public void testPriorityQueue() {
-        PriorityQueue<Node> queue = new PriorityQueue<>();
+        OpenList queue = new OpenList(3);
 
-        TunnelNode tn1 = new TunnelNode(6, 8);
-        tn1.setGScore(2);
-        tn1.setHScore(1);
-        tn1.setFScore(3);
-
-        Node n2 = new Node(13, 10, true);
-        n2.setGScore(7);
-        n2.setHScore(0);
-        n2.setFScore(7);
-
-        TunnelNode tn3 = new TunnelNode(6, 13);
-        tn3.setGScore(3);
-        tn3.setHScore(1);
-        tn3.setFScore(4);
+        int tn1 = 0;
+        int n2 = 1;
+        int tn3 = 2;
 
         for (int i = 0; i < 100; i++) {
-            queue.add(tn1);
-            queue.add(n2);
-            queue.add(tn3);
+            queue.add(tn1, 3);
+            queue.add(n2, 7);
+            queue.add(tn3, 4);
 
             assertEquals(tn1, queue.poll());
             assertEquals(tn3, queue.poll());
             assertEquals(n2, queue.poll());
-            assertNull(queue.poll());
+            assertEquals(-1, queue.poll());
+        }
+    }
+
+    @Test
+    public void testOpenList() {
+        OpenList openList = new OpenList(4);
+
+        for (int i = 0; i < 100; i++) {
+            openList.add(0, 5);
+            openList.add(1, 3);
+            openList.add(2, 8);
+            openList.add(3, 6);
+            assertEquals(4, openList.size());
+            assertTrue(openList.contains(2));
+
+            openList.update(2, 1);
+            openList.update(0, 9);
+
+            assertEquals(2, openList.poll());
+            assertFalse(openList.contains(2));
+            assertEquals(1, openList.poll());
+            assertEquals(3, openList.poll());
+            assertEquals(0, openList.poll());
+            assertEquals(-1, openList.poll());
+            assertTrue(openList.isEmpty());
+        }
+    }
+
+    @Test
+    public void testOpenListKeepsPriorityQueueOrder() {
+        double[] fScores = new double[50];
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> Double.compare(fScores[a], fScores[b]));
+        OpenList openList = new OpenList(fScores.length);
+        for (int i = 0; i < fScores.length; i++) {
+            fScores[i] = i % 7;
+            queue.add(i);
+            openList.add(i, fScores[i]);
+        }
+
+        for (int i = 0; i < fScores.length; i += 3) {
+            queue.remove(i);
+            fScores[i] = i % 5 - 1;
+            queue.add(i);
+            openList.update(i, fScores[i]);
+        }
+
+        while (!queue.isEmpty()) {
+            assertEquals((int) queue.poll(), openList.poll());
         }
+        assertTrue(openList.isEmpty());
+    }
+
+    @Test
+    public void testReusedSearchContext() {
+        Grid small = randomGrid(32, 3);
+        Grid large = randomGrid(64, 5);
+        SearchContext context = new SearchContext(small);
+
+        for (Grid grid : new Grid[]{small, large, small}) {
+            for (int[] query : randomQueries(grid, 50, 11)) {
+                List<Point> expected = findPath(query, grid);
+                List<Point> actual = Util.jumpPointFinder(DiagonalMovement.Always, new Options())
+                        .findPath(query[0], query[1], query[2], query[3], context.reset(grid));
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testGridQueriesReuseContext() {
+        Grid grid = randomGrid(64, 3);
+        JumpPointFinderBase finder = Util.jumpPointFinder(DiagonalMovement.Always, new Options());
+        for (int[] query : randomQueries(grid, 20, 3)) {
+            assertEquals(findPath(query, grid), finder.findPath(query[0], query[1], query[2], query[3], grid));
+            assertEquals(1, finder.idleContextCount());
+        }
+        finder.clearContexts();
+        assertEquals(0, finder.idleContextCount());
+    }
+
+    @Test
+    public void testConcurrentSearchesOnSharedGrid() throws Exception {
+        Grid grid = randomGrid(64, 7);
+        List<int[]> queries = randomQueries(grid, 200, 7);
+
+        List<List<Point>> expected = new ArrayList<>();
+        for (int[] query : queries) {
+            expected.add(findPath(query, grid));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Point>>> actual = new ArrayList<>();
+            for (int[] query : queries) {
+                actual.add(executor.submit(() -> findPath(query, grid)));
+            }
+            for (int i = 0; i < queries.size(); i++) {
+                assertEquals(expected.get(i), actual.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFinderPool() throws Exception {
+        Grid grid = randomGrid(64, 13);
+        List<int[]> queries = randomQueries(grid, 200, 13);
+        FinderPool pool = new FinderPool(DiagonalMovement.Always, new Options());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Point>>> actual = new ArrayList<>();
+            for (int[] query : queries) {
+                actual.add(executor.submit(() -> pool.findPath(query[0], query[1], query[2], query[3], grid)));
+            }
+            for (int i = 0; i < queries.size(); i++) {
+                assertEquals(findPath(queries.get(i), grid), actual.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(pool.idleCount() >= 1 && pool.idleCount() <= 4);
+    }
+
+    @Test
+    public void testBatchQueries() {
+        Grid grid = randomGrid(64, 17);
+        List<PathQuery> queries = new ArrayList<>();
+        for (int[] query : randomQueries(grid, 300, 17)) {
+            queries.add(new PathQuery(query[0], query[1], query[2], query[3]));
+        }
+        FinderPool pool = new FinderPool(DiagonalMovement.Always, new Options());
+
+        List<List<Point>> forkJoinPaths = pool.findPaths(queries, grid);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<List<Point>> executorPaths;
+        try {
+            executorPaths = pool.findPaths(queries, grid, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(queries.size(), forkJoinPaths.size());
+        assertEquals(queries.size(), executorPaths.size());
+        for (int i = 0; i < queries.size(); i++) {
+            PathQuery query = queries.get(i);
+            List<Point> expected = findPath(new int[]{query.getStartX(), query.getStartY(), query.getEndX(),
+                    query.getEndY()}, grid);
+            assertEquals(expected, forkJoinPaths.get(i));
+            assertEquals(expected, executorPaths.get(i));
+        }
+    }
+
+    @Test
+    public void testJumpOnSmallStack() throws Exception {
+        Grid grid = new Grid(20000, 3);
+        List<List<Point>> paths = new ArrayList<>();
+        Thread thread = new Thread(null, () -> {
+            for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+                paths.add(Util.jumpPointFinder(diagonalMovement, new Options()).findPath(0, 0, 19999, 2, grid));
+            }
+        }, "small-stack", 128 * 1024);
+        thread.start();
+        thread.join();
+
+        assertEquals(2, paths.size());
+        assertEquals(20000, paths.get(0).size());
+        assertEquals(20002, paths.get(1).size());
+    }
+
+    @Test
+    public void testBitScan() {
+        Grid grid = randomGrid(150, 19);
+        BitGrid bitGrid = new BitGrid(150, 150);
+        for (int y = 0; y < 150; y++) {
+            for (int x = 0; x < 150; x++) {
+                bitGrid.setWalkableAt(x, y, grid.isWalkableAt(x, y));
+            }
+        }
+
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, new Options());
+            JumpPointFinderBase bitScanFinder = Util.jumpPointFinder(diagonalMovement, new Options().bitScan(true));
+            for (int[] query : randomQueries(grid, 100, 23)) {
+                assertEquals(finder.findPath(query[0], query[1], query[2], query[3], grid),
+                        bitScanFinder.findPath(query[0], query[1], query[2], query[3], bitGrid));
+            }
+        }
+    }
+
+    @Test
+    public void testJPSPlus() {
+        Grid grid = randomGrid(150, 29);
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, new Options());
+            JPSPlusFinder jpsPlus = new JPSPlusFinder(grid, diagonalMovement, new Options());
+            assertEquals((diagonalMovement == DiagonalMovement.Always ? 8 : 4) * 150 * 150 * 4, jpsPlus.getTableBytes());
+            for (int[] query : randomQueries(grid, 200, 31)) {
+                assertEquals(finder.findPath(query[0], query[1], query[2], query[3], grid),
+                        jpsPlus.findPath(query[0], query[1], query[2], query[3], grid));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJPSPlusOnAnotherGrid() {
+        new JPSPlusFinder(randomGrid(16, 1), DiagonalMovement.Always, new Options()).findPath(0, 0, 1, 1, new Grid(16, 16));
+    }
+
+    @Test
+    public void testCompactPath() {
+        Grid grid = randomGrid(64, 37);
+        JumpPointFinderBase finder = Util.jumpPointFinder(DiagonalMovement.Always, new Options());
+        for (int[] query : randomQueries(grid, 50, 37)) {
+            Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], grid);
+            List<Point> points = finder.findPath(query[0], query[1], query[2], query[3], grid);
+            assertTrue(points instanceof ArrayList);
+            assertEquals(points, path.asList());
+            assertEquals(path, Path.of(points));
+            if (!path.isEmpty()) {
+                assertEquals(Util.compressPath(points), Util.compressPath(path).asList());
+                assertEquals(Util.smoothenPath(grid, points), Util.smoothenPath(grid, path).asList());
+                assertEquals(path, Util.expandPath(Util.compressPath(path), grid));
+            }
+        }
+
+        Path reversed = new Path.Builder(1).add(0, 0).add(1, 1).add(2, 1).reverse().build();
+        assertEquals(3, reversed.size());
+        assertEquals(2, reversed.getX(0));
+        assertEquals(0, reversed.getY(2));
+        assertEquals(1, reversed.indexOf(1, 1));
+    }
+
+    @Test
+    public void testCompactGrid() {
+        Grid grid = randomGrid(100, 41);
+        int[][] matrix = new int[100][100];
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 100; x++) {
+                matrix[y][x] = grid.isWalkableAt(x, y) ? 0 : 1;
+            }
+        }
+        CompactGrid compactGrid = new CompactGrid(matrix);
+
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, new Options());
+            for (int[] query : randomQueries(grid, 100, 43)) {
+                assertEquals(finder.findPath(query[0], query[1], query[2], query[3], grid),
+                        finder.findPath(query[0], query[1], query[2], query[3], compactGrid));
+            }
+        }
+
+        assertEquals(compactGrid.isWalkableAt(0, 0), compactGrid.getNodeAt(0, 0).isWalkable());
+        compactGrid.getNodeAt(0, 0).setWalkable(false);
+        assertFalse(compactGrid.isWalkableAt(0, 0));
+        compactGrid.setWalkableAt(0, 0, true);
+        assertTrue(compactGrid.getNodeAt(0, 0).isWalkable());
+        assertEquals(100 * 100, compactGrid.getCellBytes());
+    }
+
+    @Test
+    public void testSearchStats() {
+        Grid grid = randomGrid(150, 47);
+        BitGrid bitGrid = new BitGrid(150, 150);
+        for (int y = 0; y < 150; y++) {
+            for (int x = 0; x < 150; x++) {
+                bitGrid.setWalkableAt(x, y, grid.isWalkableAt(x, y));
+            }
+        }
+
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, new Options());
+            JumpPointFinderBase bitScanFinder = Util.jumpPointFinder(diagonalMovement, new Options().bitScan(true));
+            SearchContext context = new SearchContext(grid);
+            SearchStats stats = new SearchStats();
+            SearchStats bitScanStats = new SearchStats();
+            for (int[] query : randomQueries(grid, 50, 53)) {
+                Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], context, stats);
+                assertNull(context.getStats());
+                assertEquals(path, finder.findCompactPath(query[0], query[1], query[2], query[3], context));
+                assertEquals(context.getExpandedNodes(), stats.getExpandedNodes());
+                assertTrue(stats.getPushes() >= stats.getExpandedNodes());
+                assertTrue(stats.getPeakOpenSize() <= stats.getPushes());
+                assertTrue(stats.getJumpCalls() > 0);
+                assertTrue(stats.getSearchNanos() > 0);
+
+                // the bit scans examine the same nodes, a word at a time.
+                bitScanFinder.findPath(query[0], query[1], query[2], query[3], bitGrid, bitScanStats);
+                assertEquals(stats.getExpandedNodes(), bitScanStats.getExpandedNodes());
+                assertEquals(stats.getJumpCalls(), bitScanStats.getJumpCalls());
+                assertEquals(stats.getScannedCells(), bitScanStats.getScannedCells());
+                assertEquals(stats.getPushes(), bitScanStats.getPushes());
+                assertEquals(stats.getDecreaseKeys(), bitScanStats.getDecreaseKeys());
+                assertEquals(stats.getPeakOpenSize(), bitScanStats.getPeakOpenSize());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBidirectionalSearchWithBitScan() {
+        new BiJPSFinder(DiagonalMovement.Always, new Options().bitScan(true));
+    }
+
+    @Test
+    public void testBidirectionalSearch() {
+        Grid grid = randomGrid(150, 59);
+        SearchContext context = new SearchContext(grid);
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Always
+                    ? Heuristic::octile : Heuristic::manhattan);
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+            BiJPSFinder biFinder = new BiJPSFinder(diagonalMovement, options);
+            for (int[] query : randomQueries(grid, 300, 61)) {
+                Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], grid);
+                Path biPath = biFinder.findCompactPath(query[0], query[1], query[2], query[3], context);
+                assertEquals(path.isEmpty(), biPath.isEmpty());
+                assertEquals(Util.pathLength(path), Util.pathLength(biPath), 1e-9);
+                if (!biPath.isEmpty()) {
+                    assertEquals(query[0], biPath.getX(0));
+                    assertEquals(query[1], biPath.getY(0));
+                    assertEquals(query[2], biPath.getX(biPath.size() - 1));
+                    assertEquals(query[3], biPath.getY(biPath.size() - 1));
+                    assertEquals(biPath, Util.expandPath(Util.compressPath(biPath), grid));
+                    for (int i = 0; i < biPath.size(); i++) {
+                        assertTrue(grid.isWalkableAt(biPath.getX(i), biPath.getY(i)));
+                    }
+                }
+            }
+            assertEquals(finder.findCompactPath(3, 3, 3, 3, new Grid(8, 8)),
+                    biFinder.findCompactPath(3, 3, 3, 3, new Grid(8, 8)));
+        }
+    }
+
+    @Test
+    public void testPathCache() {
+        Grid grid = randomGrid(60, 83);
+        Options options = new Options().heuristic(Heuristic::octile);
+        JumpPointFinderBase finder = Util.jumpPointFinder(DiagonalMovement.Always, options);
+        PathCache cache = new PathCache(50);
+        List<int[]> queries = randomQueries(grid, 40, 89);
+        for (int round = 0; round < 2; round++) {
+            for (int[] query : queries) {
+                assertEquals(finder.findCompactPath(query[0], query[1], query[2], query[3], grid),
+                        cache.findCompactPath(query[0], query[1], query[2], query[3], grid, DiagonalMovement.Always,
+                                options));
+            }
+        }
+        assertEquals(40, cache.getMisses());
+        assertEquals(40, cache.getHits());
+
+        // another diagonal movement, or a change of the grid, misses.
+        int[] query = queries.get(0);
+        cache.findCompactPath(query[0], query[1], query[2], query[3], grid, DiagonalMovement.Never, options);
+        assertEquals(41, cache.getMisses());
+        grid.setWalkableAt(query[2], query[3], false);
+        assertTrue(cache.findCompactPath(query[0], query[1], query[2], query[3], grid, DiagonalMovement.Always,
+                options).isEmpty());
+        assertEquals(42, cache.getMisses());
+        assertEquals(40, cache.getHits());
+
+        // the paths found before the change are stale, and evicted first.
+        for (int i = 1; i < queries.size(); i++) {
+            query = queries.get(i);
+            cache.findCompactPath(query[0], query[1], query[2], query[3], grid, DiagonalMovement.Always, options);
+        }
+        assertEquals(81, cache.getMisses());
+        assertEquals(50, cache.size());
+        assertEquals(31, cache.getEvictions());
+
+        // the least recently used path is evicted.
+        cache = new PathCache(2);
+        cache.findCompactPath(0, 0, 1, 1, grid, DiagonalMovement.Always, options);
+        cache.findCompactPath(0, 0, 2, 2, grid, DiagonalMovement.Always, options);
+        cache.findCompactPath(0, 0, 1, 1, grid, DiagonalMovement.Always, options);
+        cache.findCompactPath(0, 0, 3, 3, grid, DiagonalMovement.Always, options);
+        cache.findCompactPath(0, 0, 1, 1, grid, DiagonalMovement.Always, options);
+        assertEquals(2, cache.getHits());
+        cache.findCompactPath(0, 0, 2, 2, grid, DiagonalMovement.Always, options);
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void testHierarchicalSearch() {
+        Grid grid = randomGrid(150, 67);
+        SearchContext context = new SearchContext(grid);
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            Options options = new Options().heuristic(Heuristic::octile);
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+            HPAFinder hpaFinder = new HPAFinder(grid, 16, diagonalMovement, options);
+            for (int[] query : randomQueries(grid, 300, 71)) {
+                Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], grid);
+                Path hpaPath = hpaFinder.findCompactPath(query[0], query[1], query[2], query[3], context);
+                assertEquals(path.isEmpty(), hpaPath.isEmpty());
+                if (!hpaPath.isEmpty()) {
+                    assertEquals(query[0], hpaPath.getX(0));
+                    assertEquals(query[1], hpaPath.getY(0));
+                    assertEquals(query[2], hpaPath.getX(hpaPath.size() - 1));
+                    assertEquals(query[3], hpaPath.getY(hpaPath.size() - 1));
+                    assertTrue(Util.pathLength(hpaPath) >= Util.pathLength(path) - 1e-9);
+                    for (int i = 0; i < hpaPath.size(); i++) {
+                        assertTrue(grid.isWalkableAt(hpaPath.getX(i), hpaPath.getY(i)));
+                        if (i > 0) {
+                            int dx = Math.abs(hpaPath.getX(i) - hpaPath.getX(i - 1));
+                            int dy = Math.abs(hpaPath.getY(i) - hpaPath.getY(i - 1));
+                            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+                            assertTrue(dx + dy == 1 || diagonalMovement != DiagonalMovement.Never);
+                        }
+                    }
+                }
+            }
+
+            // an update keeps the abstract graph as if it was built for the changed grid.
+            assertEquals(1, flipWalkable(grid, hpaFinder, 20, 20));
+            Random random = new Random(73);
+            for (int i = 0; i < 200; i++) {
+                flipWalkable(grid, hpaFinder, random.nextInt(150), random.nextInt(150));
+            }
+            HPAFinder rebuilt = new HPAFinder(grid, 16, diagonalMovement, options);
+            assertEquals(rebuilt.getAbstractNodeCount(), hpaFinder.getAbstractNodeCount());
+            for (int[] query : randomQueries(grid, 100, 79)) {
+                assertEquals(rebuilt.findCompactPath(query[0], query[1], query[2], query[3], grid),
+                        hpaFinder.findCompactPath(query[0], query[1], query[2], query[3], context));
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalReplanning() {
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            Grid grid = randomGrid(60, 83);
+            Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                    ? Heuristic::manhattan : Heuristic::octile);
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+            DStarLitePlanner planner = new DStarLitePlanner(grid, diagonalMovement, options);
+            for (int[] query : randomQueries(grid, 30, 89)) {
+                Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], grid);
+                Path plan = planner.plan(query[0], query[1], query[2], query[3]);
+                assertEquals(path.isEmpty(), plan.isEmpty());
+                assertEquals(Util.pathLength(path), Util.pathLength(plan), 1e-9);
+            }
+
+            // walk along the plan, blocking a node ahead after every step, and compare with a fresh search.
+            Random random = new Random(97);
+            for (int[] query : randomQueries(grid, 5, 101)) {
+                Path plan = planner.plan(query[0], query[1], query[2], query[3]);
+                while (plan.size() > 3) {
+                    int i = 2 + random.nextInt(plan.size() - 3);
+                    grid.setWalkableAt(plan.getX(i), plan.getY(i), false);
+                    planner.update(Collections.singletonList(new Point(plan.getX(i), plan.getY(i))));
+                    int x = plan.getX(1), y = plan.getY(1);
+                    plan = planner.plan(x, y, query[2], query[3]);
+                    Path path = finder.findCompactPath(x, y, query[2], query[3], grid);
+                    assertEquals(path.isEmpty(), plan.isEmpty());
+                    assertEquals(Util.pathLength(path), Util.pathLength(plan), 1e-9);
+                }
+            }
+        }
+
+        // stepping on a tunnel moves on from its out node, until the tunnel is removed.
+        int[][] matrix = new int[10][10];
+        for (int y = 0; y < 10; y++) {
+            matrix[y][5] = 1;
+        }
+        Grid grid = new Grid(matrix);
+        Options options = new Options().checkTeleporter(true);
+        DStarLitePlanner planner = new DStarLitePlanner(grid, DiagonalMovement.TeleportNever, options);
+        assertTrue(planner.plan(0, 0, 9, 9).isEmpty());
+        TunnelNode tunnel = new TunnelNode(4, 2);
+        grid.replaceNode(4, 2, tunnel);
+        tunnel.setOut(grid.getNodeAt(6, 2));
+        grid.setupTunnels(new ArrayList<>(Collections.singletonList(tunnel)));
+        planner.update(Collections.singletonList(new Point(4, 2)));
+        Path plan = planner.plan(0, 0, 9, 9);
+        assertEquals(new DStarLitePlanner(grid, DiagonalMovement.TeleportNever, options).plan(0, 0, 9, 9), plan);
+        assertEquals(18, plan.size());
+        assertEquals(new Point(4, 2), new Point(plan.getX(6), plan.getY(6)));
+        assertEquals(new Point(6, 2), new Point(plan.getX(7), plan.getY(7)));
+        // the out node of the tunnel is the goal node, which stepping on the tunnel reaches.
+        plan = planner.plan(0, 2, 6, 2);
+        FlowField field = new FlowField(grid, 6, 2, DiagonalMovement.TeleportNever, options);
+        assertEquals(4, field.getDistance(0, 2), 0);
+        assertEquals(field.getPath(0, 2), plan);
+        assertEquals(6, plan.size());
+        assertEquals(new Point(4, 2), new Point(plan.getX(4), plan.getY(4)));
+        assertEquals(new Point(6, 2), new Point(plan.getX(5), plan.getY(5)));
+        grid.replaceNode(4, 2, tunnel.toNormalNode());
+        grid.setupTunnels(new ArrayList<>());
+        planner.update(Collections.singletonList(new Point(4, 2)));
+        assertTrue(planner.plan(0, 2, 6, 2).isEmpty());
+        assertTrue(planner.plan(0, 0, 9, 9).isEmpty());
+    }
+
+    @Test
+    public void testMovingTargetSearch() {
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            Grid grid = randomGrid(60, 103);
+            Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                    ? Heuristic::manhattan : Heuristic::octile);
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+            MovingTargetPlanner planner = new MovingTargetPlanner(grid, diagonalMovement, options);
+            Random random = new Random(107);
+            long expanded = 0, independent = 0;
+            for (int[] query : randomQueries(grid, 10, 109)) {
+                // chase a goal which drifts by a step after every step of the start node.
+                for (int tick = 0; tick < 30; tick++) {
+                    if (tick == 15) {
+                        // a change of the grid makes the planner forget what it learned.
+                        grid.setWalkableAt(random.nextInt(60), random.nextInt(60), false);
+                        grid.setWalkableAt(query[0], query[1], true);
+                        grid.setWalkableAt(query[2], query[3], true);
+                    }
+                    Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], grid);
+                    Path plan = planner.plan(query[0], query[1], query[2], query[3]);
+                    assertEquals(path.isEmpty(), plan.isEmpty());
+                    assertEquals(Util.pathLength(path), Util.pathLength(plan), 1e-9);
+                    expanded += planner.getExpandedNodes();
+                    MovingTargetPlanner fresh = new MovingTargetPlanner(grid, diagonalMovement, options);
+                    fresh.plan(query[0], query[1], query[2], query[3]);
+                    independent += fresh.getExpandedNodes();
+                    if (plan.size() < 3) {
+                        break;
+                    }
+                    query[0] = plan.getX(1);
+                    query[1] = plan.getY(1);
+                    int direction = random.nextInt(diagonalMovement == DiagonalMovement.Never ? 4 : 8);
+                    if (grid.isWalkableAt(query[2] + Direction.dx(direction), query[3] + Direction.dy(direction))) {
+                        query[2] += Direction.dx(direction);
+                        query[3] += Direction.dy(direction);
+                    }
+                }
+            }
+            assertTrue(expanded < independent);
+        }
+    }
+
+    @Test
+    public void testFlowField() {
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            Grid grid = randomGrid(100, 113);
+            Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                    ? Heuristic::manhattan : Heuristic::octile);
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+            int[] goal = randomQueries(grid, 1, 127).get(0);
+            FlowField field = new FlowField(grid, goal[0], goal[1], diagonalMovement, options);
+            assertEquals(0, field.getDistance(goal[0], goal[1]), 0);
+            assertEquals(-1, field.getDirection(goal[0], goal[1]));
+            for (int[] query : randomQueries(grid, 100, 131)) {
+                Path path = finder.findCompactPath(query[0], query[1], goal[0], goal[1], grid);
+                Path fieldPath = field.getPath(query[0], query[1]);
+                assertEquals(path.isEmpty(), fieldPath.isEmpty());
+                if (!path.isEmpty()) {
+                    assertEquals(Util.pathLength(path), field.getDistance(query[0], query[1]), 1e-9);
+                    assertEquals(Util.pathLength(path), Util.pathLength(fieldPath), 1e-9);
+                } else {
+                    assertTrue(query[0] == goal[0] && query[1] == goal[1]
+                            || field.getDistance(query[0], query[1]) == Double.POSITIVE_INFINITY);
+                }
+            }
+
+            // an updated field is the same as a field built for the changed grid.
+            Random random = new Random(137);
+            for (int i = 0; i < 20; i++) {
+                List<Point> cells = new ArrayList<>();
+                for (int j = random.nextInt(3); j >= 0; j--) {
+                    Point cell = new Point(random.nextInt(100), random.nextInt(100));
+                    if (cell.x != goal[0] || cell.y != goal[1]) {
+                        grid.setWalkableAt(cell.x, cell.y, !grid.isWalkableAt(cell.x, cell.y));
+                        cells.add(cell);
+                    }
+                }
+                field.update(cells);
+                FlowField built = new FlowField(grid, goal[0], goal[1], diagonalMovement, options);
+                for (int y = 0; y < 100; y++) {
+                    for (int x = 0; x < 100; x++) {
+                        assertEquals(built.getDistance(x, y), field.getDistance(x, y), 1e-9);
+                        assertEquals(built.getDirection(x, y) == -1, field.getDirection(x, y) == -1);
+                    }
+                }
+            }
+        }
+
+        // stepping on a wormhole moves on from the other end, and stepping on a tunnel from its out node.
+        int[][] matrix = new int[10][10];
+        for (int y = 0; y < 10; y++) {
+            matrix[y][5] = 1;
+        }
+        Grid grid = new Grid(matrix);
+        Options options = new Options().checkTeleporter(true);
+        FlowField field = new FlowField(grid, 9, 9, DiagonalMovement.TeleportNever, options);
+        assertEquals(Double.POSITIVE_INFINITY, field.getDistance(0, 0), 0);
+        grid.setupWormhole(grid.getNodeAt(2, 2), grid.getNodeAt(7, 7));
+        field.update(Arrays.asList(new Point(2, 2), new Point(7, 7)));
+        assertEquals(8, field.getDistance(0, 0), 0);
+        Path path = field.getPath(0, 0);
+        assertEquals(10, path.size());
+        assertEquals(new Point(2, 2), new Point(path.getX(4), path.getY(4)));
+        assertEquals(new Point(7, 7), new Point(path.getX(5), path.getY(5)));
+        grid.breakWormhole((WormholeNode) grid.getNodeAt(2, 2), (WormholeNode) grid.getNodeAt(7, 7));
+        TunnelNode tunnel = new TunnelNode(4, 2);
+        grid.replaceNode(4, 2, tunnel);
+        tunnel.setOut(grid.getNodeAt(6, 2));
+        grid.setupTunnels(new ArrayList<>(Collections.singletonList(tunnel)));
+        field.update(Arrays.asList(new Point(2, 2), new Point(7, 7), new Point(4, 2)));
+        assertEquals(16, field.getDistance(0, 0), 0);
+        assertEquals(18, field.getPath(0, 0).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNearestGoalWithBitScan() {
+        new MultiGoalFinder(DiagonalMovement.Always, new Options().bitScan(true));
+    }
+
+    @Test
+    public void testNearestGoal() {
+        for (DiagonalMovement diagonalMovement : new DiagonalMovement[]{DiagonalMovement.Always, DiagonalMovement.Never}) {
+            Grid grid = randomGrid(100, 139);
+            Options options = new Options().heuristic(diagonalMovement == DiagonalMovement.Never
+                    ? Heuristic::manhattan : Heuristic::octile);
+            JumpPointFinderBase finder = Util.jumpPointFinder(diagonalMovement, options);
+            MultiGoalFinder multiGoalFinder = new MultiGoalFinder(diagonalMovement, options);
+            SearchContext context = new SearchContext(grid);
+            // both bounds of the goal nodes, the smallest heuristic and the bounding box.
+            for (int goalCount : new int[]{1, 5, MultiGoalFinder.MAX_EXACT_GOALS + 24}) {
+                List<Point> goals = new ArrayList<>();
+                for (int[] query : randomQueries(grid, goalCount, 149 + goalCount)) {
+                    goals.add(new Point(query[0], query[1]));
+                }
+                for (int[] query : randomQueries(grid, 30, 151)) {
+                    double nearest = Double.POSITIVE_INFINITY;
+                    for (Point goal : goals) {
+                        Path path = finder.findCompactPath(query[0], query[1], goal.x, goal.y, grid);
+                        if (!path.isEmpty()) {
+                            nearest = Math.min(nearest, Util.pathLength(path));
+                        }
+                    }
+                    GoalPath goalPath = multiGoalFinder.findNearestPath(query[0], query[1], goals, context);
+                    if (nearest == Double.POSITIVE_INFINITY) {
+                        assertEquals(-1, goalPath.getGoal());
+                        assertTrue(goalPath.getPath().isEmpty());
+                        continue;
+                    }
+                    Path path = goalPath.getPath();
+                    Point goal = goals.get(goalPath.getGoal());
+                    assertEquals(nearest, Util.pathLength(path), 1e-9);
+                    assertEquals(new Point(query[0], query[1]), new Point(path.getX(0), path.getY(0)));
+                    assertEquals(goal, new Point(path.getX(path.size() - 1), path.getY(path.size() - 1)));
+                }
+            }
+
+            // a single goal node is the same as a plain search.
+            for (int[] query : randomQueries(grid, 20, 157)) {
+                Path path = finder.findCompactPath(query[0], query[1], query[2], query[3], grid);
+                GoalPath goalPath = multiGoalFinder.findNearestPath(query[0], query[1],
+                        Collections.singletonList(new Point(query[2], query[3])), grid);
+                assertEquals(Util.pathLength(path), Util.pathLength(goalPath.getPath()), 1e-9);
+                assertEquals(Util.pathLength(path),
+                        Util.pathLength(multiGoalFinder.findCompactPath(query[0], query[1], query[2], query[3], grid)),
+                        1e-9);
+            }
+        }
+
+        // unwalkable goal nodes are ignored, and the start node may be a goal node itself.
+        Grid grid = new Grid(new int[][]{{0, 0, 1}, {0, 0, 0}, {0, 0, 0}});
+        MultiGoalFinder finder = new MultiGoalFinder(DiagonalMovement.Always, new Options());
+        assertEquals(GoalPath.NONE, finder.findNearestPath(0, 0, Collections.singletonList(new Point(2, 0)), grid));
+        GoalPath goalPath = finder.findNearestPath(0, 0, Arrays.asList(new Point(2, 0), new Point(2, 2)), grid);
+        assertEquals(1, goalPath.getGoal());
+        assertEquals(3, goalPath.getPath().size());
+        goalPath = finder.findNearestPath(0, 0, Arrays.asList(new Point(2, 2), new Point(0, 0)), grid);
+        assertEquals(1, goalPath.getGoal());
+        assertTrue(goalPath.getPath().isEmpty());
+    }
+
+    private int flipWalkable(Grid grid, HPAFinder finder, int x, int y) {
+        grid.setWalkableAt(x, y, !grid.isWalkableAt(x, y));
+        return finder.update(x, y);
+    }
+
+    private Grid randomGrid(int size, long seed) {
+        Random random = new Random(seed);
+        int[][] matrix = new int[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                matrix[y][x] = random.nextInt(4) == 0 ? 1 : 0;
+            }
+        }
+        return new Grid(matrix);
+    }
+
+    private List<int[]> randomQueries(Grid grid, int count, long seed) {
+        Random random = new Random(seed);
+        List<int[]> queries = new ArrayList<>();
+        while (queries.size() < count) {
+            int[] query = {random.nextInt(grid.getWidth()), random.nextInt(grid.getHeight()),
+                    random.nextInt(grid.getWidth()), random.nextInt(grid.getHeight())};
+            if (grid.isWalkableAt(query[0], query[1]) && grid.isWalkableAt(query[2], query[3])) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+
+    private List<Point> findPath(int[] query, Grid grid) {
+        JumpPointFinderBase finder = Util.jumpPointFinder(DiagonalMovement.Always, new Options());
+        return finder.findPath(query[0], query[1], query[2], query[3], grid);
     }
 }
@@ -8,87 +8,91 @@
 
 package darkstudio.pathfinding;
 
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.JumpPointFinderBase;
 import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.model.BitGrid;
+import darkstudio.pathfinding.model.CompactGrid;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.MapLoader;
+import darkstudio.pathfinding.utility.Util;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.awt.Point;
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 /**
  * Heavy testing for all routing algorithms.
- * Main idea: results of all three algorithms should be the same, always.
- * Warning: important to reload the map after every search, as the algorithms change the state of the VertexMatrix (the map)
+ * Main idea: results of all algorithms should be the same, always.
  */
 public class ExtensiveRoutingTest {
     private static final double EPSILON = 0.5;
 
-//    private GridNav gridNav;
-//
-//    @Before
-//    public void setUp() {
-//        gridNav = new GridNav();
-//        assertTrue(gridNav.loadMap(new File(getClass().getClassLoader().getResource("combat.map").getFile())));
-//    }
-//
-//
-//    /**
-//     * Compares the results of all routing algorithms with diagonal allowed.
-//     * Uses EPSILON in comparing the double values.
-//     * Manhattan is not tested as it is not consistent when diagonal is allowed.
-//     */
-//    @Test
-//    public void testDiagonalRouting() {
-//        testDiagonalRouting(Options.DIAGONAL_HEURISTIC);
-//        testDiagonalRouting(Options.EUCLIDEAN_HEURISTIC);
-//    }
-//
-//    private void testDiagonalRouting(Options heuristic) {
-//        for (int i = 0; i < 100; i++) {
-//            // two random valid points on the map
-//            Point pt1 = gridNav.getRandomCoordinate();
-//            Point pt2 = gridNav.getRandomCoordinate();
-//
-//            gridNav.clearMap();
-//            gridNav.route(pt1, pt2, Options.DIJKSTRA, Options.NO_HEURISTIC, true);
-//            double dijkstraDist = gridNav.getDistance();
-//
-//            gridNav.clearMap();
-//            gridNav.route(pt1, pt2, Options.ASTAR, heuristic, true);
-//            double astarDist = gridNav.getDistance();
-//
-//            gridNav.clearMap();
-//            gridNav.route(pt1, pt2, Options.JPS, heuristic, true);
-//            double jpsDist = gridNav.getDistance();
-//
-//            assertEquals(dijkstraDist, astarDist, EPSILON);
-//            assertEquals(dijkstraDist, jpsDist, EPSILON);
-//        }
-//    }
-//
-//    /**
-//     * Dijkstra and Astar should have same MANHATTAN scores when diagonal not allowed.
-//     * JPS is not tested as it always uses 8 directions, MANHATTAN is consistent with only 4.
-//     */
-//    @Test
-//    public void testManhattan() {
-//        for (int i = 0; i < 100; i++) {
-//            // two random valid points on the map
-//            Point pt1 = gridNav.getRandomCoordinate();
-//            Point pt2 = gridNav.getRandomCoordinate();
-//
-//            gridNav.clearMap();
-//            gridNav.route(pt1, pt2, Options.DIJKSTRA, Options.NO_HEURISTIC, false);
-//            double dijkstra = gridNav.getDistance();
-//
-//            gridNav.clearMap();
-//            gridNav.route(pt1, pt2, Options.ASTAR, Options.MANHATTAN_HEURISTIC, false);
-//            double astar = gridNav.getDistance();
-//
-//            assertEquals(dijkstra, astar, EPSILON);
-//        }
-//    }
+    private Grid grid;
+    private BitGrid bitGrid;
+    private CompactGrid compactGrid;
+    private Random random;
+
+    @Before
+    public void setUp() throws IOException {
+        File map = new File(getClass().getClassLoader().getResource("combat.map").getFile());
+        grid = MapLoader.load(map);
+        bitGrid = MapLoader.load(map, BitGrid::new);
+        compactGrid = MapLoader.load(map, CompactGrid::new);
+        random = new Random(42);
+    }
+
+    /**
+     * Compares the results of all routing algorithms with diagonal allowed.
+     * Uses EPSILON in comparing the double values.
+     */
+    @Test
+    public void testDiagonalRouting() {
+        testRouting(DiagonalMovement.Always);
+    }
+
+    /**
+     * Compares the results of all routing algorithms when diagonal not allowed.
+     */
+    @Test
+    public void testOrthogonalRouting() {
+        testRouting(DiagonalMovement.Never);
+    }
+
+    private void testRouting(DiagonalMovement diagonalMovement) {
+        JumpPointFinderBase jps = Util.jumpPointFinder(diagonalMovement, new Options());
+        JumpPointFinderBase bitScan = Util.jumpPointFinder(diagonalMovement, new Options().bitScan(true));
+        JumpPointFinderBase jpsPlus = new JPSPlusFinder(grid, diagonalMovement, new Options());
+        for (int i = 0; i < 100; i++) {
+            // two random valid points on the map
+            Point pt1 = getRandomCoordinate();
+            Point pt2 = getRandomCoordinate();
+
+            double jpsDist = Util.pathLength(jps.findPath(pt1.x, pt1.y, pt2.x, pt2.y, grid));
+            double bitScanDist = Util.pathLength(bitScan.findPath(pt1.x, pt1.y, pt2.x, pt2.y, bitGrid));
+            double compactDist = Util.pathLength(jps.findPath(pt1.x, pt1.y, pt2.x, pt2.y, compactGrid));
+            List<Point> jpsPlusPath = jpsPlus.findPath(pt1.x, pt1.y, pt2.x, pt2.y, grid);
+
+            assertEquals(jpsDist, bitScanDist, EPSILON);
+            assertEquals(jpsDist, compactDist, EPSILON);
+            assertEquals(jpsDist, Util.pathLength(jpsPlusPath), EPSILON);
+        }
+    }
+
+    private Point getRandomCoordinate() {
+        while (true) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (grid.isWalkableAt(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
 }
@@ -7,6 +7,7 @@
 
 package darkstudio.pathfinding;
 
+import darkstudio.pathfinding.model.CompactGrid;
 import darkstudio.pathfinding.model.Grid;
 import darkstudio.pathfinding.model.Node;
 import darkstudio.pathfinding.model.TunnelNode;
@@ -287,6 +288,66 @@ public class GridTest {
         then2MergedTunnelShouldBeOk(nodes, grid.getTunnels());
     }
 
+    @Test
+    public void testTeleporterKinds() {
+        Grid grid = new Grid(GRID_WIDTH, GRID_HEIGHT);
+        grid.setupWormhole(grid.getNodeAt(0, 0), grid.getNodeAt(2, 2));
+        grid.replaceNode(1, 1, new TunnelNode(1, 1));
+        assertEquals(Grid.TELEPORTER_WORMHOLE, grid.getTeleporterKindAt(0, 0));
+        assertEquals(Grid.TELEPORTER_WORMHOLE, grid.getTeleporterKindAt(2, 2));
+        assertEquals(Grid.TELEPORTER_TUNNEL, grid.getTeleporterKindAt(1, 1));
+        assertEquals(Grid.TELEPORTER_NONE, grid.getTeleporterKindAt(1, 0));
+        assertEquals(Grid.TELEPORTER_NONE, grid.getTeleporterKindAt(-1, 0));
+        assertEquals(Grid.TELEPORT_WORMHOLE_TO_WORMHOLE, grid.getTeleporterType(0, 0, 2, 2));
+        assertEquals(Grid.TELEPORT_NORMAL_NORMAL, grid.getTeleporterType(1, 0, 0, 1));
+
+        grid.breakWormhole((WormholeNode) grid.getNodeAt(0, 0), (WormholeNode) grid.getNodeAt(2, 2));
+        assertEquals(Grid.TELEPORTER_NONE, grid.getTeleporterKindAt(0, 0));
+        assertEquals(Grid.TELEPORT_NORMAL_NORMAL, grid.getTeleporterType(0, 0, 2, 2));
+    }
+
+    @Test
+    public void testVersion() {
+        for (Grid grid : new Grid[]{new Grid(GRID_WIDTH, GRID_HEIGHT), new CompactGrid(GRID_WIDTH, GRID_HEIGHT)}) {
+            long version = grid.getVersion();
+            grid.setWalkableAt(3, 3, false);
+            assertTrue(grid.getVersion() > version);
+            version = grid.getVersion();
+            grid.setWalkableAt(-1, 3, false);
+            assertEquals(version, grid.getVersion());
+            grid.replaceNode(4, 4, new Node(4, 4, false));
+            assertTrue(grid.getVersion() > version);
+            version = grid.getVersion();
+            grid.setupWormhole(grid.getNodeAt(0, 0), grid.getNodeAt(2, 2));
+            assertTrue(grid.getVersion() > version);
+            version = grid.getVersion();
+            grid.breakWormhole((WormholeNode) grid.getNodeAt(0, 0), (WormholeNode) grid.getNodeAt(2, 2));
+            assertTrue(grid.getVersion() > version);
+            version = grid.getVersion();
+            grid.setupTunnels(given1TunnelNodes(grid));
+            assertTrue(grid.getVersion() > version);
+            version = grid.getVersion();
+            grid.setTunnels(grid.getTunnels());
+            assertTrue(grid.getVersion() > version);
+        }
+    }
+
+    @Test
+    public void testMergedTunnelLinks() {
+        Grid grid = new Grid(GRID_WIDTH, GRID_HEIGHT);
+        List<TunnelNode> nodes = given2MergedTunnelNodes(grid);
+        grid.setupTunnels(new ArrayList<>(nodes));
+
+        for (TunnelNode node : nodes) {
+            assertEquals(nodes.get(5).getOut(), grid.getFinalEnd(node));
+        }
+        assertEquals(Grid.TELEPORT_TUNNEL_TO_TUNNEL, grid.getTeleporterType(nodes.get(0), nodes.get(5)));
+        assertEquals(Grid.TELEPORT_TUNNEL_TO_TUNNEL, grid.getTeleporterType(nodes.get(4), nodes.get(2)));
+        assertEquals(Grid.TELEPORT_TUNNEL_OT_TUNNEL, grid.getTeleporterType(nodes.get(2), nodes.get(3)));
+        assertEquals(Grid.TELEPORT_TUNNEL_TUNNEL, grid.getTeleporterType(nodes.get(0), nodes.get(3)));
+        assertEquals(Grid.TELEPORT_TUNNEL_TO_NORMAL, grid.getTeleporterType(nodes.get(1), nodes.get(5).getOut()));
+    }
+
     @Test
     public void testSetupTunnelToWormhole() {
         Grid grid = new Grid(GRID_WIDTH, GRID_HEIGHT);
@@ -8,101 +8,62 @@
 
 package darkstudio.pathfinding;
 
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
 import darkstudio.pathfinding.algorithm.Options;
-import darkstudio.pathfinding.model.Node;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.utility.MapLoader;
+import darkstudio.pathfinding.utility.Util;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.awt.Point;
 import java.io.File;
-import java.util.ArrayDeque;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 /**
  * Tiny routing tests.
  */
 public class TinyRoutingTest {
     private static final double EPSILON = 0.005;
-//
-//    private GridNav gridNav;
-//    private Point pt1;
-//    private Point pt2;
-//    private ArrayDeque<Node> bestRoute;
-//
-//    @Before
-//    public void setUp() {
-//        gridNav = new GridNav();
-//        assertTrue(gridNav.loadMap(new File(getClass().getClassLoader().getResource("test4.map").getFile())));
-//
-//        pt1 = new Point(0, 0);
-//        pt2 = new Point(2, 2);
-//    }
-//
-//    /**
-//     * Route should find correct nodes.
-//     */
-//    @Test
-//    public void testFindRoute() {
-//        List<Point> route1 = Arrays.asList(new Point(0, 0), new Point(1, 0), new Point(1, 1), new Point(1, 2), new Point(2, 2));
-//        List<Point> route2 = Arrays.asList(new Point(0, 0), new Point(2, 2));
-//
-//        gridNav.clearMap();
-//        bestRoute = gridNav.route(pt1, pt2, Options.ASTAR, Options.MANHATTAN_HEURISTIC, false);
-//        assertEquals(5, bestRoute.size());
-//        testRoute(route1);
-//
-//        gridNav.clearMap();
-//        bestRoute = gridNav.route(pt1, pt2, Options.DIJKSTRA, Options.MANHATTAN_HEURISTIC, false);
-//        assertEquals(5, bestRoute.size());
-//        testRoute(route1);
-//
-//        gridNav.clearMap();
-//        bestRoute = gridNav.route(pt1, pt2, Options.JPS, Options.EUCLIDEAN_HEURISTIC, true);
-//        assertEquals(2, bestRoute.size());
-//        testRoute(route2);
-//
-//    }
-//
-//    private void testRoute(List<Point> route) {
-//        for (Point pt : route) {
-//            Node v = bestRoute.pop();
-//            assertEquals(pt.x, v.getX());
-//            assertEquals(pt.y, v.getY());
-//        }
-//    }
-//
-//    /**
-//     * Route should set node distances correctly.
-//     */
-//    @Test
-//    public void testSetDistance() {
-//        double[] distances1 = {0, 1, 2, 3, 4};
-//        double[] distances2 = {0, 2 * Math.sqrt(2)}; // two times diagonal == 2*sqrt(2)
-//
-//        gridNav.clearMap();
-//        bestRoute = gridNav.route(pt1, pt2, Options.ASTAR, Options.MANHATTAN_HEURISTIC, false);
-//        assertEquals(5, bestRoute.size());
-//        testDistances(distances1);
-//
-//        gridNav.clearMap();
-//        bestRoute = gridNav.route(pt1, pt2, Options.DIJKSTRA, Options.MANHATTAN_HEURISTIC, false);
-//        assertEquals(5, bestRoute.size());
-//        testDistances(distances1);
-//
-//        gridNav.clearMap();
-//        bestRoute = gridNav.route(pt1, pt2, Options.JPS, Options.EUCLIDEAN_HEURISTIC, true);
-//        assertEquals(2, bestRoute.size());
-//        testDistances(distances2);
-//    }
-//
-//    private void testDistances(double[] distances) {
-//        for (double d : distances) {
-//            Node v = bestRoute.pop();
-//            assertEquals(d, v.getDistance(), EPSILON);
-//        }
-//    }
-}
\ No newline at end of file
+
+    private Grid grid;
+    private Point pt1;
+    private Point pt2;
+
+    @Before
+    public void setUp() throws IOException {
+        grid = MapLoader.load(new File(getClass().getClassLoader().getResource("test4.map").getFile()));
+
+        pt1 = new Point(0, 0);
+        pt2 = new Point(2, 2);
+    }
+
+    /**
+     * Route should find correct nodes.
+     */
+    @Test
+    public void testFindRoute() {
+        List<Point> route1 = Arrays.asList(new Point(0, 0), new Point(1, 0), new Point(1, 1), new Point(1, 2), new Point(2, 2));
+        List<Point> route2 = Arrays.asList(new Point(0, 0), new Point(2, 2));
+
+        assertEquals(route1, Util.expandPath(route(DiagonalMovement.Never), grid));
+        assertEquals(route2, Util.compressPath(route(DiagonalMovement.Always)));
+    }
+
+    /**
+     * Route should have correct length.
+     */
+    @Test
+    public void testSetDistance() {
+        assertEquals(4, Util.pathLength(route(DiagonalMovement.Never)), EPSILON);
+        assertEquals(2 * Math.sqrt(2), Util.pathLength(route(DiagonalMovement.Always)), EPSILON); // two times diagonal
+    }
+
+    private List<Point> route(DiagonalMovement diagonalMovement) {
+        return Util.jumpPointFinder(diagonalMovement, new Options()).findPath(pt1.x, pt1.y, pt2.x, pt2.y, grid);
+    }
+}
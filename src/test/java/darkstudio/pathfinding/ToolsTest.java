@@ -8,43 +8,298 @@
 
 package darkstudio.pathfinding;
 
-import org.junit.Assert;
+import darkstudio.pathfinding.algorithm.DiagonalMovement;
+import darkstudio.pathfinding.algorithm.Heuristic;
+import darkstudio.pathfinding.algorithm.JPSPlusFinder;
+import darkstudio.pathfinding.algorithm.Options;
+import darkstudio.pathfinding.model.CompactGrid;
+import darkstudio.pathfinding.model.Grid;
+import darkstudio.pathfinding.model.Node;
+import darkstudio.pathfinding.model.TunnelNode;
+import darkstudio.pathfinding.model.WormholeNode;
+import darkstudio.pathfinding.utility.GridSnapshot;
+import darkstudio.pathfinding.utility.MapLoader;
+import darkstudio.pathfinding.utility.ScenarioRunner;
+import darkstudio.pathfinding.utility.ScenarioRunner.Bucket;
+import darkstudio.pathfinding.utility.Util;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.awt.Point;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ToolsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private File f1;
     private File f2;
     private File f3;
     private File f4;
-//    private GridNav gridNav;
-//
-//    @Before
-//    public void setUp() {
-//        gridNav = new GridNav();
-//        f1 = new File(getClass().getClassLoader().getResource("test1.map").getFile());
-//        f2 = new File(getClass().getClassLoader().getResource("test2.map").getFile());
-//        f3 = new File(getClass().getClassLoader().getResource("test3.map").getFile());
-//        f4 = new File("asdasdasd"); // does not exist
-//    }
-//
-//    @Test
-//    public void testLoadMap() {
-//        Assert.assertTrue("failed to load file " + f1.getAbsolutePath(), gridNav.loadMap(f1));
-//        assertEquals('T', gridNav.getMap()[0][0].getKey());
-//        assertEquals('@', gridNav.getMap()[1][0].getKey());
-//
-//        Assert.assertTrue("failed to load file " + f2.getAbsolutePath(), gridNav.loadMap(f2));
-//        assertEquals('@', gridNav.getMap()[0][0].getKey());
-//        assertEquals('T', gridNav.getMap()[0][3].getKey());
-//        assertEquals('T', gridNav.getMap()[1][0].getKey());
-//        assertEquals('T', gridNav.getMap()[2][3].getKey());
-//
-//        Assert.assertFalse("should NOT successfully load file " + f3.getAbsolutePath(), gridNav.loadMap(f3));
-//        Assert.assertFalse("should NOT load non-exist file " + f4.getAbsolutePath(), gridNav.loadMap(f4));
-//    }
-}
\ No newline at end of file
+    private File f5;
+
+    @Before
+    public void setUp() {
+        f1 = new File(getClass().getClassLoader().getResource("test1.map").getFile());
+        f2 = new File(getClass().getClassLoader().getResource("test2.map").getFile());
+        f3 = new File(getClass().getClassLoader().getResource("test3.map").getFile());
+        f4 = new File("asdasdasd"); // does not exist
+        f5 = new File(getClass().getClassLoader().getResource("test4.map").getFile());
+    }
+
+    @Test
+    public void testLoadMap() throws IOException {
+        Grid grid = MapLoader.load(f1);
+        assertEquals(2, grid.getWidth());
+        assertEquals(2, grid.getHeight());
+        assertFalse(grid.isWalkableAt(0, 0));
+        assertFalse(grid.isWalkableAt(0, 1));
+
+        grid = MapLoader.load(f2);
+        assertEquals(4, grid.getWidth());
+        assertEquals(3, grid.getHeight());
+        assertFalse(grid.isWalkableAt(3, 2));
+
+        grid = MapLoader.load(f5, CompactGrid::new);
+        assertTrue(grid.isWalkableAt(0, 0));
+        assertFalse(grid.isWalkableAt(2, 0));
+        assertFalse(grid.isWalkableAt(0, 1));
+        assertTrue(grid.isWalkableAt(1, 1));
+        assertTrue(grid.isWalkableAt(2, 2));
+
+        assertLoadFails(f3);
+        assertLoadFails(f4);
+    }
+
+    @Test
+    public void testLoadMapWithWindowsLineBreaks() throws IOException {
+        File file = folder.newFile("crlf.map");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("type octile\r\nheight 2\r\nwidth 3\r\nmap\r\n.@G\r\nTS.\r\n");
+        }
+        Grid grid = MapLoader.load(file);
+        assertTrue(grid.isWalkableAt(0, 0));
+        assertFalse(grid.isWalkableAt(1, 0));
+        assertTrue(grid.isWalkableAt(2, 0));
+        assertFalse(grid.isWalkableAt(0, 1));
+        assertTrue(grid.isWalkableAt(1, 1));
+
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("type octile\nheight 2\nwidth 3\nmap\n...\n..\n");
+        }
+        assertLoadFails(file);
+
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("type octile\nheight 2\nwidth 3\nmap\n....\n...\n");
+        }
+        assertLoadFails(file);
+
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("type octile\nheight 2\nwidth 3\nmap\n...\n....");
+        }
+        assertLoadFails(file);
+
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("type octile\nheight 2\nwidth 3\nmap\n...\n..@");
+        }
+        assertFalse(MapLoader.load(file).isWalkableAt(2, 1));
+    }
+
+    @Test
+    public void testGridSnapshot() throws IOException {
+        Grid grid = MapLoader.load(new File(getClass().getClassLoader().getResource("combat.map").getFile()));
+        Random random = new Random(42);
+        List<Node> teleporters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Point from = getRandomCoordinate(grid, random);
+            Point to = getRandomCoordinate(grid, random);
+            grid.setupWormhole(grid.getNodeAt(from.x, from.y), grid.getNodeAt(to.x, to.y));
+            teleporters.add(grid.getNodeAt(from.x, from.y));
+            teleporters.add(grid.getNodeAt(to.x, to.y));
+        }
+        // a tunnel going down through the walkable nodes below a random node, merged by a tunnel from its left.
+        List<TunnelNode> tunnelNodes = new ArrayList<>();
+        Point top = getRandomCoordinate(grid, random);
+        TunnelNode previous = null;
+        for (int y = top.y; grid.isWalkableAt(top.x, y + 1) && tunnelNodes.size() < 5; y++) {
+            TunnelNode tunnelNode = new TunnelNode(grid.getNodeAt(top.x, y));
+            tunnelNode.setDirection(TunnelNode.DOWN);
+            grid.replaceNode(top.x, y, tunnelNode);
+            if (previous != null) {
+                previous.setOut(tunnelNode);
+                tunnelNode.addIn(previous);
+            }
+            tunnelNodes.add(tunnelNode);
+            previous = tunnelNode;
+        }
+        previous.setOut(grid.getNodeAt(previous.getX(), previous.getY() + 1));
+        if (tunnelNodes.size() > 1 && grid.getTeleporterKindAt(top.x - 1, top.y + 1) == Grid.TELEPORTER_NONE) {
+            TunnelNode merging = new TunnelNode(grid.getNodeAt(top.x - 1, top.y + 1));
+            merging.setDirection(TunnelNode.RIGHT);
+            merging.setOut(tunnelNodes.get(1));
+            tunnelNodes.get(1).addIn(merging);
+            grid.replaceNode(top.x - 1, top.y + 1, merging);
+            tunnelNodes.add(merging);
+        }
+        grid.setupTunnels(new ArrayList<>(tunnelNodes));
+        teleporters.addAll(tunnelNodes);
+        teleporters.add(previous.getOut());
+        teleporters.add(grid.getNodeAt(top.x, top.y - 1));
+
+        JPSPlusFinder finder = new JPSPlusFinder(grid, DiagonalMovement.Always, new Options());
+        File file = folder.newFile("combat.snapshot");
+        GridSnapshot.write(file, grid, finder);
+
+        thenSnapshotShouldBeOk(grid, teleporters, finder, GridSnapshot.read(file), random);
+        thenSnapshotShouldBeOk(grid, teleporters, finder, GridSnapshot.read(file, CompactGrid::new), random);
+
+        try {
+            GridSnapshot.read(f1);
+            fail("should NOT read map file " + f1.getAbsolutePath() + " as snapshot");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // drop the section of the last direction of the jump tables.
+        long sectionBytes = Integer.BYTES + Long.BYTES + (2L + grid.getWidth() * grid.getHeight()) * Integer.BYTES;
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(truncated.length() - sectionBytes);
+        }
+        try {
+            GridSnapshot.read(file);
+            fail("should NOT read a snapshot missing a direction of the jump tables");
+        } catch (IOException e) {
+            // expected
+        }
+
+        int[][] tables = finder.getTables().clone();
+        tables[3] = null;
+        try {
+            new JPSPlusFinder(grid, DiagonalMovement.Always, new Options(), tables);
+            fail("should NOT use jump tables missing a direction");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testScenarioRunner() throws IOException {
+        File scenario = new File(getClass().getClassLoader().getResource("arena.map.scen").getFile());
+        assertEquals(5, ScenarioRunner.load(scenario).size());
+
+        List<Bucket> buckets = new ScenarioRunner(Util.jumpPointFinder(DiagonalMovement.Always,
+                new Options().heuristic(Heuristic::octile))).run(scenario);
+        assertEquals(3, buckets.size());
+        assertEquals(0, buckets.get(0).getBucket());
+        assertEquals(11, buckets.get(2).getBucket());
+        assertEquals(2, buckets.get(1).getQueries());
+        for (Bucket bucket : buckets) {
+            assertEquals(0, bucket.getFailed());
+            assertEquals(0, bucket.getSuboptimal());
+            assertEquals(0, bucket.getMaxSuboptimality(), 1e-6);
+            assertTrue(bucket.getMeanExpandedNodes() > 0);
+        }
+
+        // without diagonal moves, the query from (1, 3) to (3, 4) takes 3 instead of 2.41421356.
+        buckets = new ScenarioRunner(Util.jumpPointFinder(DiagonalMovement.Never, new Options())).run(scenario);
+        assertEquals(1, buckets.get(0).getSuboptimal());
+        assertEquals(3 / 2.41421356 - 1, buckets.get(0).getMaxSuboptimality(), 1e-6);
+
+        StringBuilder csv = new StringBuilder();
+        ScenarioRunner.writeCsv(buckets, csv);
+        String[] lines = csv.toString().split("\\R");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("bucket,queries,failed,suboptimal,"));
+        assertTrue(lines[1].startsWith("0,2,0,1,"));
+
+        // a query whose start is its goal is solved by staying there.
+        File trivial = folder.newFile("trivial.scen");
+        Files.copy(new File(getClass().getClassLoader().getResource("arena.map").getFile()).toPath(),
+                new File(folder.getRoot(), "arena.map").toPath());
+        try (Writer writer = new FileWriter(trivial)) {
+            writer.write("version 1\n0\tarena.map\t49\t49\t1\t3\t1\t3\t0.00000000\n");
+        }
+        buckets = new ScenarioRunner(Util.jumpPointFinder(DiagonalMovement.Always, new Options())).run(trivial);
+        assertEquals(1, buckets.get(0).getQueries());
+        assertEquals(0, buckets.get(0).getFailed());
+        assertEquals(0, buckets.get(0).getSuboptimal());
+    }
+
+    private void thenSnapshotShouldBeOk(Grid grid, List<Node> teleporters, JPSPlusFinder finder,
+                                        GridSnapshot snapshot, Random random) {
+        Grid restored = snapshot.getGrid();
+        assertEquals(grid.getWidth(), restored.getWidth());
+        assertEquals(grid.getHeight(), restored.getHeight());
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                assertEquals(grid.isWalkableAt(x, y), restored.isWalkableAt(x, y));
+                assertEquals(grid.getTeleporterKindAt(x, y), restored.getTeleporterKindAt(x, y));
+            }
+        }
+        for (Node node : teleporters) {
+            Node restoredNode = restored.getNodeAt(node.getX(), node.getY());
+            if (node instanceof WormholeNode) {
+                assertEquals(((WormholeNode) node).getPeer(), ((WormholeNode) restoredNode).getPeer());
+            } else if (node instanceof TunnelNode) {
+                TunnelNode tunnelNode = (TunnelNode) node;
+                TunnelNode restoredTunnelNode = (TunnelNode) restoredNode;
+                assertEquals(tunnelNode.getDirection(), restoredTunnelNode.getDirection());
+                assertEquals(tunnelNode.getOut(), restoredTunnelNode.getOut());
+                assertEquals(tunnelNode.getIns(), restoredTunnelNode.getIns());
+            }
+            assertEquals(grid.getFinalEnd(node.getX(), node.getY()), restored.getFinalEnd(node.getX(), node.getY()));
+            for (Node end : teleporters) {
+                assertEquals(grid.getTeleporterType(node.getX(), node.getY(), end.getX(), end.getY()),
+                        restored.getTeleporterType(node.getX(), node.getY(), end.getX(), end.getY()));
+            }
+        }
+        assertEquals(grid.getTunnels(), restored.getTunnels());
+
+        assertTrue(snapshot.hasJumpTables(DiagonalMovement.Always));
+        assertFalse(snapshot.hasJumpTables(DiagonalMovement.Never));
+        JPSPlusFinder restoredFinder = snapshot.getJPSPlusFinder(DiagonalMovement.Always, new Options());
+        assertEquals(0, restoredFinder.getBuildNanos());
+        for (int i = 0; i < 20; i++) {
+            Point start = getRandomCoordinate(grid, random);
+            Point end = getRandomCoordinate(grid, random);
+            assertEquals(finder.findPath(start.x, start.y, end.x, end.y, grid),
+                    restoredFinder.findPath(start.x, start.y, end.x, end.y, restored));
+        }
+        assertNull(restored.getNodeAt(-1, 0));
+    }
+
+    private static Point getRandomCoordinate(Grid grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (grid.isWalkableAt(x, y) && grid.getTeleporterKindAt(x, y) == Grid.TELEPORTER_NONE) {
+                return new Point(x, y);
+            }
+        }
+    }
+
+    private void assertLoadFails(File file) {
+        try {
+            MapLoader.load(file);
+            fail("should NOT load file " + file.getAbsolutePath());
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}